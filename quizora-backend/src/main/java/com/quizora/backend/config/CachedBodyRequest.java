@@ -0,0 +1,86 @@
+package com.quizora.backend.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/** Request wrapper that buffers a small body so filters and the controller can all read it. */
+final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    final byte[] body;
+
+    private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+        super(request);
+        this.body = body;
+    }
+
+    /** Buffers the body, or returns null if it exceeds maxBytes. An already wrapped request is returned as is. */
+    static CachedBodyRequest wrap(HttpServletRequest request, int maxBytes) throws IOException {
+        if (request instanceof CachedBodyRequest cached) return cached.body.length <= maxBytes ? cached : null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try (InputStream in = request.getInputStream()) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+                if (out.size() > maxBytes) return null;
+            }
+        }
+        return new CachedBodyRequest(request, out.toByteArray());
+    }
+
+    /** Streams the JSON body just far enough to find the top-level quizCode field. */
+    static String quizCodeOf(byte[] body) {
+        return stringField(body, "quizCode");
+    }
+
+    /** Streams the JSON body just far enough to find a top-level string field. */
+    static String stringField(byte[] body, String name) {
+        if (body.length == 0) return null;
+        try (JsonParser p = JSON.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken v = p.nextToken();
+                if (name.equals(field)) return v == JsonToken.VALUE_STRING ? p.getText() : null;
+                p.skipChildren();
+            }
+        } catch (IOException ignored) {}
+        return null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override public boolean isFinished() { return in.available() == 0; }
+            @Override public boolean isReady() { return true; }
+            @Override public void setReadListener(ReadListener listener) { throw new UnsupportedOperationException(); }
+            @Override public int read() { return in.read(); }
+            @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String enc = getCharacterEncoding();
+        return new BufferedReader(new InputStreamReader(getInputStream(),
+                enc != null ? Charset.forName(enc) : StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int getContentLength() { return body.length; }
+
+    @Override
+    public long getContentLengthLong() { return body.length; }
+}
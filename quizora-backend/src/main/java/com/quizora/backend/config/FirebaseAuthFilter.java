@@ -1,6 +1,5 @@
 package com.quizora.backend.config;
 
-import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
@@ -26,7 +25,8 @@ import java.util.List;
  *
  * Public (examples):
  * - GET /api/quizzes/code/**
- * - GET /api/quizzes/all
+ * - GET /api/quizzes/all, GET /api/quizzes/search, GET /api/quizzes/trending
+ * - POST /api/quizzes/join, POST /api/quizzes/{code}/live/answer, POST /api/quizzes/{code}/presence/*
  */
 @Component
 @Order(10)
@@ -42,11 +42,23 @@ public class FirebaseAuthFilter extends OncePerRequestFilter {
     private static final List<String> PUBLIC_EXCEPTIONS = List.of(
             "/api/quizzes/code/**",
             "/api/quizzes/all",
+            "/api/quizzes/search",
+            "/api/quizzes/trending",
             "/api/quizzes/*/leaderboard",
             "/api/quizzes/*/results",
-            "/api/quizzes/*/participants"
+            "/api/quizzes/*/participants",
+            "/api/quizzes/*/live/state",
+            "/api/quizzes/*/live/stream",
+            "/api/quizzes/*/presence",
+            "/api/quizzes/*/presence/stream"
     );
 
+    private final FirebaseClients firebase;
+
+    public FirebaseAuthFilter(FirebaseClients firebase) {
+        this.firebase = firebase;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         // Always allow CORS preflight to pass through
@@ -58,6 +70,10 @@ public class FirebaseAuthFilter extends OncePerRequestFilter {
 
         // Allow unauthenticated join requests
         if (matcher.match("/api/quizzes/join", path)) return true;
+        // Live-mode answers come from the same unauthenticated players
+        if (matcher.match("/api/quizzes/*/live/answer", path)) return true;
+        // ...as do presence heartbeats
+        if (matcher.match("/api/quizzes/*/presence/*", path)) return true;
 
         // Allow read-only GETs without auth
         if (HttpMethod.GET.matches(request.getMethod())) return PUBLIC_EXCEPTIONS.stream().anyMatch(p -> matcher.match(p, path));
@@ -74,14 +90,15 @@ public class FirebaseAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        // If Firebase is not initialized (e.g., no credentials in dev), skip verification
-        try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) {
+        if (!firebase.ready()) {
+            // Firebase switched off (local dev without credentials): skip verification
+            if (!firebase.enabled()) {
                 filterChain.doFilter(request, response);
                 return;
             }
-        } catch (IllegalStateException ignored) {
-            filterChain.doFilter(request, response);
+            // Enabled but not initialized (yet): fail closed until a retry succeeds
+            response.setHeader("Retry-After", String.valueOf(firebase.retryAfterSeconds()));
+            error(request, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Authentication unavailable, try again shortly");
             return;
         }
 
@@ -103,6 +120,10 @@ public class FirebaseAuthFilter extends OncePerRequestFilter {
     }
 
     private void unauthorized(HttpServletRequest request, HttpServletResponse response, String message) throws IOException {
+        error(request, response, HttpServletResponse.SC_UNAUTHORIZED, message);
+    }
+
+    private void error(HttpServletRequest request, HttpServletResponse response, int status, String message) throws IOException {
         // Add CORS headers on error path; echo origin to be compatible with allowCredentials=true
         String origin = request.getHeader("Origin");
         if (origin != null && !origin.isBlank()) {
@@ -111,7 +132,7 @@ public class FirebaseAuthFilter extends OncePerRequestFilter {
             response.setHeader("Access-Control-Allow-Credentials", "true");
             response.setHeader("Access-Control-Allow-Headers", "Authorization, Content-Type");
         }
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setStatus(status);
         response.setContentType("application/json");
         response.getWriter().write("{\"error\":\"" + message + "\"}");
     }
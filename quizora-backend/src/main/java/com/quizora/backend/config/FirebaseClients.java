@@ -0,0 +1,181 @@
+package com.quizora.backend.config;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.firestore.Firestore;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.cloud.FirestoreClient;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The one place the Firebase Admin SDK is initialized (app.firebase.*).
+ *
+ * By default the app is initialized during startup and a missing or unreadable credentials file
+ * fails the boot. With app.firebase.lazy-init=true (fast-start profile) nothing is read until the
+ * first caller asks for Firebase. A failed lazy init is retried with backoff (1s doubling up to
+ * 5 minutes), on demand and from a background check, so a credentials file that shows up late or a
+ * transient error does not leave Firebase off for the life of the process. Until then callers see
+ * "Admin not initialized" and FirebaseAuthFilter answers 503; work that needs Firebase to start
+ * (the Firestore sync listener) registers with {@link #whenReady}.
+ */
+@Component
+public class FirebaseClients {
+
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 300_000;
+
+    private final boolean enabled;
+    private final boolean lazyInit;
+    private final String credentialsPath;
+    private final String databaseUrl;
+    private final List<Runnable> onReady = new ArrayList<>();
+    private volatile boolean ready;
+    private volatile int failures;
+    private volatile long nextAttemptMillis;
+
+    public FirebaseClients(@Value("${app.firebase.enabled:false}") boolean enabled,
+                           @Value("${app.firebase.lazy-init:false}") boolean lazyInit,
+                           @Value("${app.firebase.credentials:}") String credentialsPath,
+                           @Value("${app.firebase.database-url:}") String databaseUrl) {
+        this.enabled = enabled;
+        this.lazyInit = lazyInit;
+        this.credentialsPath = credentialsPath != null ? credentialsPath.trim() : "";
+        this.databaseUrl = databaseUrl;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            System.out.println("[Admin] Firebase Admin disabled via app.firebase.enabled=false");
+            return;
+        }
+        if (lazyInit) return;
+        try {
+            initialize();
+        } catch (IOException e) {
+            System.out.println("[Admin] Failed to initialize Firebase Admin SDK: " + e.getMessage());
+            throw new RuntimeException("Failed to initialize Firebase Admin SDK", e);
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * True once the default FirebaseApp exists. In lazy mode a call initializes it, unless the last
+     * attempt failed and its backoff has not run out yet.
+     */
+    public boolean ready() {
+        if (ready) return true;
+        if (!enabled || System.currentTimeMillis() < nextAttemptMillis) return false;
+        List<Runnable> callbacks;
+        synchronized (this) {
+            if (ready) return true;
+            if (System.currentTimeMillis() < nextAttemptMillis) return false;
+            try {
+                initialize();
+            } catch (IOException | RuntimeException e) {
+                int n = ++failures;
+                long delay = Math.min(MAX_RETRY_MILLIS, MIN_RETRY_MILLIS << Math.min(n - 1, 20));
+                nextAttemptMillis = System.currentTimeMillis() + delay;
+                System.out.println("[Admin] Failed to initialize Firebase Admin SDK (attempt " + n + ", retrying in "
+                        + delay / 1000 + "s): " + e.getMessage());
+                return false;
+            }
+            callbacks = new ArrayList<>(onReady);
+            onReady.clear();
+        }
+        for (Runnable r : callbacks) {
+            try {
+                r.run();
+            } catch (RuntimeException e) {
+                System.err.println("[Admin] Firebase ready callback failed: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /** Seconds until the next init attempt, for Retry-After. */
+    public long retryAfterSeconds() {
+        return Math.max(1, (nextAttemptMillis - System.currentTimeMillis() + 999) / 1000);
+    }
+
+    /** Run the task once Firebase is available: right away if it already is, else after the init that succeeds. */
+    public void whenReady(Runnable task) {
+        synchronized (this) {
+            if (!ready) {
+                onReady.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+    /** Retries a failed init even when no request asks for Firebase; ready() applies the backoff. */
+    @Scheduled(fixedDelay = 5000, initialDelay = 5000)
+    public void retryFailedInit() {
+        if (enabled && !ready && failures > 0) ready();
+    }
+
+    /** Firestore client; throws IllegalStateException if Firebase is not available. */
+    public Firestore firestore() {
+        if (!ready()) throw new IllegalStateException("Firebase Admin not initialized");
+        return FirestoreClient.getFirestore();
+    }
+
+    private synchronized void initialize() throws IOException {
+        if (!FirebaseApp.getApps().isEmpty()) {
+            try {
+                FirebaseOptions opts = FirebaseApp.getInstance().getOptions();
+                System.out.println("[Admin] Firebase already initialized. projectId=" + opts.getProjectId() + ", databaseUrl=" + opts.getDatabaseUrl());
+            } catch (Exception ignored) {
+                System.out.println("[Admin] Firebase already initialized.");
+            }
+            ready = true;
+            return;
+        }
+        Resource resource = resolveCredentials();
+        if (!resource.exists()) {
+            System.out.println("[Admin] Firebase credentials NOT FOUND at path: " + credentialsPath);
+            throw new IOException("Firebase credentials not found at path: " + credentialsPath);
+        }
+        try (InputStream is = resource.getInputStream()) {
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.fromStream(is))
+                    .setDatabaseUrl(databaseUrl)
+                    .build();
+            FirebaseApp.initializeApp(options);
+            ready = true;
+            System.out.println("[Admin] Firebase initialized OK. projectId=" + options.getProjectId() + ", databaseUrl=" + options.getDatabaseUrl());
+        }
+    }
+
+    /** "file:" paths are read from disk; anything else from the classpath, falling back to disk. */
+    private Resource resolveCredentials() {
+        if (credentialsPath.startsWith("file:")) {
+            String filePath = credentialsPath.substring("file:".length());
+            System.out.println("[Admin] Using filesystem credentials: " + filePath);
+            return new FileSystemResource(filePath);
+        }
+        String path = credentialsPath.startsWith("classpath:") ? credentialsPath.substring("classpath:".length()) : credentialsPath;
+        Resource resource = new ClassPathResource(path);
+        if (resource.exists()) {
+            System.out.println("[Admin] Using classpath credentials: " + path);
+            return resource;
+        }
+        System.out.println("[Admin] Classpath credentials not found, trying filesystem: " + path);
+        return new FileSystemResource(path);
+    }
+}
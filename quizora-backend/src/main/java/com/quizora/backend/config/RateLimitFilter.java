@@ -0,0 +1,206 @@
+package com.quizora.backend.config;
+
+import com.quizora.backend.service.ClusterRing;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for the write endpoints POST /api/quizzes/join and POST /api/quizzes/submit.
+ *
+ * Runs after {@link FirebaseAuthFilter} so an authenticated uid is available:
+ * - a token bucket per client: the uid when signed in, otherwise the remote IP together with the
+ *   room and player name from the body, so players sharing one NAT address never share a bucket
+ * - for anonymous requests also a much larger bucket per remote IP, sized for a whole classroom
+ *   joining at once, which bounds what one address can do by cycling names
+ * - a token bucket per room (quizCode from the JSON body), to absorb reconnect storms
+ * - a global cap on concurrent write requests, sized below the Hikari pool
+ *
+ * Buckets use the GCRA formulation (one AtomicLong "theoretical arrival time" per key), so checks
+ * are a single CAS with no locks. Rejected requests get 429 with a Retry-After header.
+ *
+ * The client address is the remote address, unless the request came through a hop that is trusted
+ * to report it: a reverse proxy (app.ratelimit.trust-forwarded) or a cluster peer forwarding a room
+ * request. Then it is the right-most X-Forwarded-For entry, the one that hop appended; entries to
+ * its left come from the client and are ignored.
+ */
+@Component
+@Order(20)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+
+    /** GCRA token bucket: admits when now >= tat - burstNanos, then advances tat by one interval. */
+    static final class Bucket {
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+        /** Returns 0 when admitted, otherwise nanos to wait before a token is available. */
+        long tryAcquire(long now, long intervalNanos, long burstNanos) {
+            while (true) {
+                long cur = tat.get();
+                long base = Math.max(cur, now);
+                long allowAt = base - burstNanos;
+                if (now < allowAt) return allowAt - now;
+                if (tat.compareAndSet(cur, base + intervalNanos)) return 0;
+            }
+        }
+
+        boolean idle(long now) { return tat.get() <= now; }
+    }
+
+    private final ClusterRing ring;
+    private final boolean enabled;
+    private final boolean trustForwarded;
+    private final long clientInterval;
+    private final long clientBurst;
+    private final long ipInterval;
+    private final long ipBurst;
+    private final long roomInterval;
+    private final long roomBurst;
+    private final int maxConcurrentWrites;
+    private final Map<String, Bucket> clientBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> roomBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightWrites = new AtomicInteger();
+
+    public RateLimitFilter(ClusterRing ring,
+                           @Value("${app.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${app.ratelimit.trust-forwarded:false}") boolean trustForwarded,
+                           @Value("${app.ratelimit.client.per-second:2}") double clientPerSecond,
+                           @Value("${app.ratelimit.client.burst:10}") int clientBurst,
+                           @Value("${app.ratelimit.ip.per-second:50}") double ipPerSecond,
+                           @Value("${app.ratelimit.ip.burst:500}") int ipBurst,
+                           @Value("${app.ratelimit.room.per-second:50}") double roomPerSecond,
+                           @Value("${app.ratelimit.room.burst:200}") int roomBurst,
+                           @Value("${app.ratelimit.max-concurrent-writes:8}") int maxConcurrentWrites) {
+        this.ring = ring;
+        this.enabled = enabled;
+        this.trustForwarded = trustForwarded;
+        this.clientInterval = intervalNanos(clientPerSecond);
+        this.clientBurst = this.clientInterval * Math.max(0, clientBurst - 1);
+        this.ipInterval = intervalNanos(ipPerSecond);
+        this.ipBurst = this.ipInterval * Math.max(0, ipBurst - 1);
+        this.roomInterval = intervalNanos(roomPerSecond);
+        this.roomBurst = this.roomInterval * Math.max(0, roomBurst - 1);
+        this.maxConcurrentWrites = Math.max(1, maxConcurrentWrites);
+    }
+
+    private static long intervalNanos(double perSecond) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, perSecond));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) return true;
+        if (!"POST".equalsIgnoreCase(request.getMethod())) return true;
+        String path = request.getRequestURI();
+        return !("/api/quizzes/join".equals(path) || "/api/quizzes/submit".equals(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+
+        CachedBodyRequest cached = CachedBodyRequest.wrap(request, MAX_BODY_BYTES);
+        if (cached == null) {
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        String quizCode = CachedBodyRequest.quizCodeOf(cached.body);
+
+        Object uid = request.getAttribute("firebaseUid");
+        String clientKey;
+        long wait;
+        if (uid instanceof String s && !s.isBlank()) {
+            clientKey = "u:" + s;
+        } else {
+            String ip = clientIp(request, trustForwarded || forwardedByPeer(request));
+            wait = ipBuckets.computeIfAbsent(ip, k -> new Bucket()).tryAcquire(now, ipInterval, ipBurst);
+            if (wait > 0) {
+                tooManyRequests(request, response, wait, "Too many requests from this network");
+                return;
+            }
+            clientKey = "ip:" + ip + '|' + quizCode + '|' + CachedBodyRequest.stringField(cached.body, "name");
+        }
+        wait = clientBuckets.computeIfAbsent(clientKey, k -> new Bucket()).tryAcquire(now, clientInterval, clientBurst);
+        if (wait > 0) {
+            tooManyRequests(request, response, wait, "Too many requests from this client");
+            return;
+        }
+
+        if (quizCode != null && !quizCode.isBlank()) {
+            wait = roomBuckets.computeIfAbsent(quizCode, k -> new Bucket()).tryAcquire(now, roomInterval, roomBurst);
+            if (wait > 0) {
+                tooManyRequests(request, response, wait, "Room is busy, please retry");
+                return;
+            }
+        }
+
+        // Shed load before the request can queue on the connection pool
+        if (inFlightWrites.incrementAndGet() > maxConcurrentWrites) {
+            inFlightWrites.decrementAndGet();
+            tooManyRequests(request, response, TimeUnit.SECONDS.toNanos(1), "Server busy, please retry");
+            return;
+        }
+        try {
+            filterChain.doFilter(cached, response);
+        } finally {
+            inFlightWrites.decrementAndGet();
+        }
+    }
+
+    /** Drop buckets that have fully refilled so idle clients and rooms do not accumulate. */
+    @Scheduled(fixedDelayString = "${app.ratelimit.sweep-interval-ms:60000}")
+    public void sweepIdleBuckets() {
+        long now = System.nanoTime();
+        clientBuckets.entrySet().removeIf(e -> e.getValue().idle(now));
+        ipBuckets.entrySet().removeIf(e -> e.getValue().idle(now));
+        roomBuckets.entrySet().removeIf(e -> e.getValue().idle(now));
+    }
+
+    private boolean forwardedByPeer(HttpServletRequest request) {
+        return ring.fromPeer(request.getHeader(ClusterRing.FORWARDED_HEADER), request.getRemoteAddr());
+    }
+
+    /** Right-most X-Forwarded-For entry when the previous hop is trusted, otherwise the remote address. */
+    static String clientIp(HttpServletRequest request, boolean trustPreviousHop) {
+        if (trustPreviousHop) {
+            String fwd = request.getHeader("X-Forwarded-For");
+            if (fwd != null && !fwd.isBlank()) {
+                String last = fwd.substring(fwd.lastIndexOf(',') + 1).trim();
+                if (!last.isEmpty()) return last;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void tooManyRequests(HttpServletRequest request, HttpServletResponse response, long waitNanos, String message) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        // Add CORS headers on error path; echo origin to be compatible with allowCredentials=true
+        String origin = request.getHeader("Origin");
+        if (origin != null && !origin.isBlank()) {
+            response.setHeader("Access-Control-Allow-Origin", origin);
+            response.setHeader("Vary", "Origin");
+            response.setHeader("Access-Control-Allow-Credentials", "true");
+            response.setHeader("Access-Control-Expose-Headers", "Retry-After");
+        }
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
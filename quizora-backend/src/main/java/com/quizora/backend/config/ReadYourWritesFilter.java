@@ -0,0 +1,100 @@
+package com.quizora.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a client's reads on the primary for a short while after it wrote, so a player who just
+ * submitted sees their own result even if the replicas are a moment behind.
+ *
+ * The window is the worst replay lag of the replicas in rotation plus a margin. A write is recorded
+ * under the client IP (resolved like the rate limiter does) and, when signed in, also under the uid:
+ * the public reads that follow a signed-in write (results, leaderboard) carry no token, so only the
+ * IP matches them. Registered by {@link ReplicaRoutingConfig} only when replicas are enabled.
+ */
+@Order(30)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReplicaRoutingDataSource routing;
+    private final long marginNanos;
+    private final int maxClients;
+    private final boolean trustForwarded;
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(ReplicaRoutingDataSource routing, long marginMillis, int maxClients, boolean trustForwarded) {
+        this.routing = routing;
+        this.marginNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, marginMillis));
+        this.maxClients = Math.max(1, maxClients);
+        this.trustForwarded = trustForwarded;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String ipKey = "ip:" + RateLimitFilter.clientIp(request, trustForwarded);
+        String uidKey = uidKey(request);
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            chain.doFilter(request, response);
+            if (response.getStatus() < 400) {
+                long now = System.nanoTime();
+                record(ipKey, now);
+                if (uidKey != null) record(uidKey, now);
+            }
+            return;
+        }
+        if (!recentlyWrote(ipKey) && (uidKey == null || !recentlyWrote(uidKey))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        IOException[] io = new IOException[1];
+        ServletException[] se = new ServletException[1];
+        ReplicaRoutingDataSource.onPrimary(() -> {
+            try {
+                chain.doFilter(request, response);
+            } catch (IOException e) {
+                io[0] = e;
+            } catch (ServletException e) {
+                se[0] = e;
+            }
+        });
+        if (io[0] != null) throw io[0];
+        if (se[0] != null) throw se[0];
+    }
+
+    private void record(String key, long now) {
+        if (lastWrite.size() >= maxClients && !lastWrite.containsKey(key)) sweep();
+        lastWrite.put(key, now);
+    }
+
+    private boolean recentlyWrote(String key) {
+        Long wroteAt = lastWrite.get(key);
+        return wroteAt != null && System.nanoTime() - wroteAt <= windowNanos();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.sweep-interval-ms:30000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        long window = windowNanos();
+        lastWrite.values().removeIf(t -> now - t > window);
+    }
+
+    private long windowNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(routing.worstLagMillis()) + marginNanos;
+    }
+
+    private static String uidKey(HttpServletRequest request) {
+        Object uid = request.getAttribute("firebaseUid");
+        return uid instanceof String s && !s.isBlank() ? "u:" + s : null;
+    }
+}
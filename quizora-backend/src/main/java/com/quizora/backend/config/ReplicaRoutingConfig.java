@@ -0,0 +1,80 @@
+package com.quizora.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary + read-replica datasources (opt-in via app.datasource.replicas.enabled).
+ *
+ * spring.datasource.* stays the primary. Each URL in app.datasource.replicas.urls gets its own
+ * read-only Hikari pool; @Transactional(readOnly = true) work is routed there by
+ * {@link ReplicaRoutingDataSource}. Any Postgres works as a "replica" for local testing (one that is
+ * not in recovery reports zero lag), e.g. a second instance on port 5433.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                     DataSourceProperties properties,
+                                                     @Value("${app.datasource.replicas.urls:}") List<String> urls,
+                                                     @Value("${app.datasource.replicas.username:}") String username,
+                                                     @Value("${app.datasource.replicas.password:}") String password,
+                                                     @Value("${app.datasource.replicas.pool-size:10}") int poolSize,
+                                                     @Value("${app.datasource.replicas.max-lag-ms:5000}") long maxLagMillis) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            if (url == null || url.isBlank()) continue;
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("replica-" + pools.size());
+            ds.setJdbcUrl(url.trim());
+            ds.setUsername(username.isBlank() ? properties.determineUsername() : username);
+            ds.setPassword(password.isBlank() ? properties.determinePassword() : password);
+            ds.setMaximumPoolSize(Math.max(1, poolSize));
+            ds.setReadOnly(true);
+            // Do not fail startup if a replica is down; it stays out of rotation until it answers
+            ds.setInitializationFailTimeout(-1);
+            pools.add(ds);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, pools, Math.max(0, maxLagMillis));
+        routing.refreshLag();
+        System.out.println("[Replicas] routing read-only transactions across " + pools.size() + " replica(s)");
+        return routing;
+    }
+
+    /** What JPA, JdbcTemplate and everything else inject. */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replicas.read-your-writes", havingValue = "true", matchIfMissing = true)
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource routingDataSource,
+                                                     @Value("${app.datasource.replicas.read-your-writes-margin-ms:500}") long marginMillis,
+                                                     @Value("${app.datasource.replicas.read-your-writes-max-clients:100000}") int maxClients,
+                                                     @Value("${app.ratelimit.trust-forwarded:false}") boolean trustForwarded) {
+        return new ReadYourWritesFilter(routingDataSource, marginMillis, maxClients, trustForwarded);
+    }
+}
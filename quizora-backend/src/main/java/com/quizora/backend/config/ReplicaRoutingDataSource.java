@@ -0,0 +1,135 @@
+package com.quizora.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica pool and everything else to the primary.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only known
+ * once the transaction has begun, so the physical connection has to be fetched on first use.
+ *
+ * Replicas are polled for replay lag; one that is unreachable or further behind than
+ * app.datasource.replicas.max-lag-ms is skipped until it recovers. With no usable replica, reads
+ * go to the primary. {@link #onPrimary(Runnable)} pins the current thread to the primary (used for
+ * a client's own reads right after it wrote).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    // 0 when caught up; otherwise time since the last replayed commit
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+    private final Map<String, Long> lagMillis = new HashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+    private volatile List<String> healthy = List.of();
+    private volatile long worstLagMillis;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+        this.worstLagMillis = maxLagMillis;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaPools.size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            replicas.put(key, replicaPools.get(i));
+            targets.put(key, replicaPools.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /** Run with every statement on the primary, regardless of read-only transactions. */
+    public static void onPrimary(Runnable r) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            r.run();
+        } finally {
+            if (previous == null) PINNED.remove();
+        }
+    }
+
+    static boolean pinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PINNED.get() != null) return PRIMARY;
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) return PRIMARY;
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /** Poll each replica's replay lag and update the set used for reads. */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.lag-check-interval-ms:1000}")
+    public synchronized void refreshLag() {
+        List<String> ok = new ArrayList<>();
+        long worst = 0;
+        for (String key : replicaKeys) {
+            long lag;
+            try (Connection c = replicas.get(key).getConnection();
+                 Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_SQL)) {
+                lag = rs.next() ? (long) rs.getDouble(1) : Long.MAX_VALUE;
+            } catch (Exception e) {
+                lag = Long.MAX_VALUE;
+            }
+            Long before = lagMillis.put(key, lag);
+            boolean usable = lag <= maxLagMillis;
+            boolean wasUsable = before != null && before <= maxLagMillis;
+            if (usable != wasUsable) {
+                System.out.println("[Replicas] " + key + (usable ? " in rotation, lag=" + lag + "ms" : " out of rotation"));
+            }
+            if (usable) {
+                ok.add(key);
+                worst = Math.max(worst, lag);
+            }
+        }
+        healthy = List.copyOf(ok);
+        worstLagMillis = ok.isEmpty() ? 0 : worst;
+    }
+
+    /** Worst replay lag among replicas currently serving reads (0 when reads go to the primary). */
+    public long worstLagMillis() {
+        return worstLagMillis;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (String key : replicaKeys) {
+            Long lag = lagMillis.get(key);
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("url", replicas.get(key).getJdbcUrl());
+            m.put("lagMillis", lag == null || lag == Long.MAX_VALUE ? null : lag);
+            m.put("inRotation", healthy.contains(key));
+            out.put(key, m);
+        }
+        return out;
+    }
+
+    @Override
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+    }
+}
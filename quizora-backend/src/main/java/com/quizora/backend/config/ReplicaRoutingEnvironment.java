@@ -0,0 +1,28 @@
+package com.quizora.backend.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Turns off spring.jpa.open-in-view when read replicas are enabled.
+ *
+ * With open-in-view the request's EntityManager holds its JDBC connection across transactions, so
+ * a request whose first transaction was read-only would keep the replica connection for its later
+ * writes. Without it every transaction gets its own connection and {@link ReplicaRoutingDataSource}
+ * routes each one. Registered in META-INF/spring.factories; takes precedence over application
+ * properties because routing is not correct otherwise.
+ */
+public class ReplicaRoutingEnvironment implements EnvironmentPostProcessor {
+
+    static final String SOURCE = "replicaRouting";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("app.datasource.replicas.enabled", Boolean.class, false)) return;
+        environment.getPropertySources().addFirst(new MapPropertySource(SOURCE, Map.of("spring.jpa.open-in-view", "false")));
+    }
+}
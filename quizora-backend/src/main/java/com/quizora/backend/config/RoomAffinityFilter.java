@@ -0,0 +1,186 @@
+package com.quizora.backend.config;
+
+import com.quizora.backend.service.ClusterRing;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cluster mode: forwards room-scoped requests to the node that owns the room ({@link ClusterRing}).
+ *
+ * Covers join and submit (quizCode from the JSON body), the room leaderboard, presence and the
+ * live-quiz endpoints including the SSE streams, which are relayed as they arrive. Runs before
+ * authentication and rate limiting so the owner does that work once. A forwarded request carries
+ * X-Quizora-Forwarded and is always served where it lands, so nodes that briefly disagree on
+ * membership cannot bounce a request back and forth. Its X-Forwarded-For is replaced by the single
+ * client address this node resolved, which the owner trusts because the request comes from a peer. If the owner refuses the connection or does
+ * not accept it in time it is marked down and the request is served locally. Once the request has
+ * been sent it is never replayed, since the owner may already have run it: a response that does not
+ * arrive within app.cluster.forward-timeout-ms gets 504, any other failure 502.
+ */
+@Component
+@Order(5)
+public class RoomAffinityFilter extends OncePerRequestFilter {
+
+    static final String FORWARDED_HEADER = ClusterRing.FORWARDED_HEADER;
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+    private static final Pattern ROOM_PATH = Pattern.compile("^/api/quizzes/([^/]+)/(leaderboard|presence(/.*)?|live(/.*)?)$");
+    // Hop-by-hop headers, plus those java.net.http sets itself and refuses from callers
+    private static final Set<String> SKIP_HEADERS = Set.of("connection", "keep-alive", "proxy-connection",
+            "transfer-encoding", "te", "trailer", "upgrade", "host", "content-length", "expect", "date", "from",
+            "via", "warning");
+
+    private final ClusterRing ring;
+    private final boolean trustForwarded;
+    private final HttpClient http;
+    private final Duration forwardTimeout;
+
+    public RoomAffinityFilter(ClusterRing ring,
+                              @Value("${app.ratelimit.trust-forwarded:false}") boolean trustForwarded,
+                              @Value("${app.cluster.connect-timeout-ms:1000}") long connectTimeoutMillis,
+                              @Value("${app.cluster.forward-timeout-ms:15000}") long forwardTimeoutMillis) {
+        this.ring = ring;
+        this.trustForwarded = trustForwarded;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Math.max(100, connectTimeoutMillis)))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        this.forwardTimeout = Duration.ofMillis(Math.max(1000, forwardTimeoutMillis));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!ring.enabled() || request.getHeader(FORWARDED_HEADER) != null) return true;
+        String path = request.getRequestURI();
+        if ("POST".equalsIgnoreCase(request.getMethod())
+                && ("/api/quizzes/join".equals(path) || "/api/quizzes/submit".equals(path))) return false;
+        return !ROOM_PATH.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletRequest req = request;
+        byte[] body = null;
+        String quizCode = null;
+        Matcher m = ROOM_PATH.matcher(request.getRequestURI());
+        if (m.matches()) quizCode = m.group(1);
+        if ("POST".equalsIgnoreCase(request.getMethod()) || "PUT".equalsIgnoreCase(request.getMethod())) {
+            CachedBodyRequest cached = CachedBodyRequest.wrap(request, MAX_BODY_BYTES);
+            if (cached == null) {
+                response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                return;
+            }
+            req = cached;
+            body = cached.body;
+            if (quizCode == null) quizCode = CachedBodyRequest.quizCodeOf(body);
+        }
+        if (quizCode == null || quizCode.isBlank() || ring.isLocal(quizCode)) {
+            chain.doFilter(req, response);
+            return;
+        }
+        String owner = ring.ownerOf(quizCode);
+        if (!forward(owner, req, body, response)) {
+            ring.markDown(owner);
+            chain.doFilter(req, response);
+        }
+    }
+
+    /** Returns false if no connection to the owner could be made (nothing has been written to the response). */
+    private boolean forward(String owner, HttpServletRequest request, byte[] body, HttpServletResponse response)
+            throws IOException {
+        String query = request.getQueryString();
+        boolean stream = request.getRequestURI().endsWith("/stream");
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(owner + request.getRequestURI() + (query != null ? "?" + query : "")));
+        if (!stream) b.timeout(forwardTimeout);
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (SKIP_HEADERS.contains(name.toLowerCase()) || name.equalsIgnoreCase("X-Forwarded-For")) continue;
+            for (String value : Collections.list(request.getHeaders(name))) {
+                try {
+                    b.header(name, value);
+                } catch (IllegalArgumentException restricted) {
+                    // header the client library manages itself
+                }
+            }
+        }
+        // Only the address this node resolved; anything the client put in the header is dropped
+        b.header("X-Forwarded-For", RateLimitFilter.clientIp(request, trustForwarded));
+        b.header(FORWARDED_HEADER, ring.self());
+        b.method(request.getMethod(), body != null
+                ? HttpRequest.BodyPublishers.ofByteArray(body)
+                : HttpRequest.BodyPublishers.noBody());
+
+        HttpResponse<InputStream> res;
+        try {
+            res = http.send(b.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            System.err.println("[Cluster] cannot connect to " + owner + ": " + e.getMessage());
+            return false;
+        } catch (HttpTimeoutException e) {
+            System.err.println("[Cluster] no response from " + owner + " within " + forwardTimeout.toMillis() + "ms");
+            gatewayError(request, response, HttpServletResponse.SC_GATEWAY_TIMEOUT, "Room owner did not respond in time");
+            return true;
+        } catch (IOException e) {
+            System.err.println("[Cluster] forward to " + owner + " failed: " + e.getMessage());
+            gatewayError(request, response, HttpServletResponse.SC_BAD_GATEWAY, "Room owner is unavailable, please retry");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            gatewayError(request, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request interrupted");
+            return true;
+        }
+
+        response.setStatus(res.statusCode());
+        res.headers().map().forEach((name, values) -> {
+            if (name.startsWith(":") || SKIP_HEADERS.contains(name.toLowerCase())) return;
+            for (String v : values) response.addHeader(name, v);
+        });
+        res.headers().firstValueAsLong("content-length").ifPresent(response::setContentLengthLong);
+        try (InputStream in = res.body()) {
+            OutputStream out = response.getOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+                if (stream) out.flush();
+            }
+            out.flush();
+        }
+        return true;
+    }
+
+    private static void gatewayError(HttpServletRequest request, HttpServletResponse response, int status, String message)
+            throws IOException {
+        // Add CORS headers on error path; echo origin to be compatible with allowCredentials=true
+        String origin = request.getHeader("Origin");
+        if (origin != null && !origin.isBlank()) {
+            response.setHeader("Access-Control-Allow-Origin", origin);
+            response.setHeader("Vary", "Origin");
+            response.setHeader("Access-Control-Allow-Credentials", "true");
+        }
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,22 @@
+package com.quizora.backend.config;
+
+import com.quizora.backend.service.HashedWheelTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared hashed-wheel timer for room deadlines (attempt clocks, live question windows).
+ * One worker thread serves every room; callers must keep their timeout tasks short.
+ */
+@Configuration
+public class TimerConfig {
+
+    @Bean(destroyMethod = "stop")
+    public HashedWheelTimer roomTimer(@Value("${app.session.tick-millis:100}") long tickMillis,
+                                      @Value("${app.session.wheel-size:512}") int wheelSize) {
+        return new HashedWheelTimer("room-timer", tickMillis, TimeUnit.MILLISECONDS, wheelSize);
+    }
+}
@@ -2,15 +2,25 @@ package com.quizora.backend.controller;
 
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
-import com.google.firebase.cloud.FirestoreClient;
+import com.quizora.backend.config.FirebaseClients;
+import com.quizora.backend.config.ReplicaRoutingDataSource;
+import com.quizora.backend.model.AwardLedgerEntry;
 import com.quizora.backend.model.Quiz;
-import com.quizora.backend.model.Submission;
 import com.quizora.backend.repository.QuizRepository;
+import com.quizora.backend.service.AwardLedgerService;
+import com.quizora.backend.service.ClusterRing;
+import com.quizora.backend.service.LeaderElection;
+import com.quizora.backend.service.PartitionMaintenance;
+import com.quizora.backend.service.PresenceService;
+import com.quizora.backend.service.QuizEntityCache;
 import com.quizora.backend.service.QuizService;
+import com.quizora.backend.service.SubmissionArchiveService;
 import com.quizora.backend.service.UserStatsService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.*;
 
 @RestController
@@ -20,11 +30,34 @@ public class AdminController {
     private final QuizRepository quizRepository;
     private final QuizService quizService;
     private final UserStatsService userStatsService;
+    private final AwardLedgerService awardLedgerService;
+    private final QuizEntityCache quizEntityCache;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRouting;
+    private final ClusterRing clusterRing;
+    private final LeaderElection leaderElection;
+    private final FirebaseClients firebase;
+    private final PresenceService presenceService;
+    private final PartitionMaintenance partitionMaintenance;
 
-    public AdminController(QuizRepository quizRepository, QuizService quizService, UserStatsService userStatsService) {
+    public AdminController(QuizRepository quizRepository, QuizService quizService, UserStatsService userStatsService,
+                           AwardLedgerService awardLedgerService, QuizEntityCache quizEntityCache,
+                           SubmissionArchiveService submissionArchiveService,
+                           ObjectProvider<ReplicaRoutingDataSource> replicaRouting, ClusterRing clusterRing,
+                           LeaderElection leaderElection, FirebaseClients firebase,
+                           PresenceService presenceService, PartitionMaintenance partitionMaintenance) {
         this.quizRepository = quizRepository;
         this.quizService = quizService;
         this.userStatsService = userStatsService;
+        this.awardLedgerService = awardLedgerService;
+        this.quizEntityCache = quizEntityCache;
+        this.submissionArchiveService = submissionArchiveService;
+        this.replicaRouting = replicaRouting;
+        this.clusterRing = clusterRing;
+        this.leaderElection = leaderElection;
+        this.firebase = firebase;
+        this.presenceService = presenceService;
+        this.partitionMaintenance = partitionMaintenance;
     }
 
     public record BackfillRequest(String quizCode) {}
@@ -34,10 +67,63 @@ public class AdminController {
         return ResponseEntity.ok(Map.of("ok", true));
     }
 
+    /** Hit/miss/put counters for the quiz second-level cache regions. */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(quizEntityCache.stats());
+    }
+
+    /** Replay lag and rotation state of each read replica (empty when routing is off). */
+    @GetMapping("/replicas")
+    public ResponseEntity<?> replicas() {
+        ReplicaRoutingDataSource routing = replicaRouting.getIfAvailable();
+        return ResponseEntity.ok(routing != null ? routing.status() : Map.of());
+    }
+
+    /** Configured and live cluster members as this node sees them. */
+    @GetMapping("/cluster")
+    public ResponseEntity<?> cluster() {
+        return ResponseEntity.ok(clusterRing.status());
+    }
+
+    /** Whether this instance currently runs the cluster's singleton jobs. */
+    @GetMapping("/leader")
+    public ResponseEntity<?> leader() {
+        return ResponseEntity.ok(leaderElection.status());
+    }
+
+    /** Rooms with presence state, players online and SSE watchers on this node. */
+    @GetMapping("/presence")
+    public ResponseEntity<?> presence() {
+        return ResponseEntity.ok(presenceService.stats());
+    }
+
+    /** Partitions of participants and submissions with bounds and row estimates. */
+    @GetMapping("/partitions")
+    public ResponseEntity<?> partitions() {
+        return ResponseEntity.ok(partitionMaintenance.status());
+    }
+
+    /** Convert (if enabled) and create upcoming partitions now instead of waiting for the schedule. */
+    @PostMapping("/partitions/run")
+    public ResponseEntity<?> runPartitionMaintenance() {
+        int created = partitionMaintenance.maintain();
+        if (created < 0) return alreadyRunning();
+        return ResponseEntity.ok(Map.of("created", created));
+    }
+
+    /** Run one archive pass now instead of waiting for the schedule. */
+    @PostMapping("/archive/run")
+    public ResponseEntity<?> runArchive() {
+        int archived = submissionArchiveService.archiveInactive();
+        if (archived < 0) return alreadyRunning();
+        return ResponseEntity.ok(Map.of("archived", archived));
+    }
+
     @GetMapping("/user-stats/{uid}")
     public ResponseEntity<?> userStats(@PathVariable String uid) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             var userSnap = db.collection("users").document(uid).get().get();
             Map<String, Object> result = new HashMap<>();
             result.put("user", userSnap.exists() ? userSnap.getData() : null);
@@ -57,7 +143,7 @@ public class AdminController {
     public ResponseEntity<?> recompute(@PathVariable String uid) {
         try {
             userStatsService.recomputeAggregates(uid);
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             var userSnap = db.collection("users").document(uid).get().get();
             Map<String, Object> result = new HashMap<>();
             result.put("user", userSnap.exists() ? userSnap.getData() : null);
@@ -88,11 +174,72 @@ public class AdminController {
         return doBackfill(quizCode);
     }
 
+    /**
+     * One-time import of awards written before the ledger existed (Firestore users/{uid}/awards).
+     * Imported rows are marked as already projected; awards already in the ledger are skipped.
+     */
+    @PostMapping("/ledger/import")
+    public ResponseEntity<?> importLedger() {
+        return leaderElection.<ResponseEntity<?>>runExclusive("ledger-import", this::doImportLedger)
+                .orElseGet(AdminController::alreadyRunning);
+    }
+
+    private ResponseEntity<?> doImportLedger() {
+        int imported = 0;
+        int existing = 0;
+        try {
+            Firestore db = firebase.firestore();
+            var users = db.collection("users").get().get();
+            for (var u : users.getDocuments()) {
+                var awards = u.getReference().collection("awards").get().get();
+                for (var d : awards.getDocuments()) {
+                    // Milestone badges are stored as badge_<kind>; everything else is a quiz award
+                    String milestoneKind = d.getId().startsWith("badge_") ? d.getId().substring(6).toUpperCase() : null;
+                    Integer rank = d.get("rank") instanceof Number n ? n.intValue() : null;
+                    Double percent = d.get("percent") instanceof Number n ? n.doubleValue() : null;
+                    long xp = d.get("xp") instanceof Number n ? n.longValue() : 0L;
+                    String badge = d.get("badge") instanceof String b && !b.isBlank() ? b : null;
+                    Instant awardedAt = null;
+                    try {
+                        Object at = d.get("awardedAt");
+                        if (at instanceof String s && !s.isBlank()) awardedAt = Instant.parse(s);
+                    } catch (Exception ignored) {}
+                    AwardLedgerService.Award award = milestoneKind != null
+                            ? new AwardLedgerService.Award(u.getId(), "", milestoneKind,
+                                    AwardLedgerEntry.SOURCE_MILESTONE, xp, badge, null, null)
+                            : new AwardLedgerService.Award(u.getId(), d.getId(), AwardLedgerEntry.KIND_QUIZ,
+                                    rank != null ? AwardLedgerEntry.SOURCE_RANK : AwardLedgerEntry.SOURCE_PERFORMANCE,
+                                    xp, badge, rank, percent);
+                    if (awardLedgerService.importProjected(award, awardedAt)) imported++;
+                    else existing++;
+                }
+            }
+            awardLedgerService.rollupTotals();
+            return ResponseEntity.ok(Map.of("imported", imported, "existing", existing));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "error", String.valueOf(e.getMessage()),
+                    "imported", imported,
+                    "existing", existing
+            ));
+        }
+    }
+
+    /** Backfills run once across the cluster; a second request while one is running gets 409. */
     private ResponseEntity<?> doBackfill(String quizCode) {
+        return leaderElection.<ResponseEntity<?>>runExclusive("backfill-awards", () -> backfillAwards(quizCode))
+                .orElseGet(AdminController::alreadyRunning);
+    }
+
+    private static ResponseEntity<?> alreadyRunning() {
+        return ResponseEntity.status(409).body(Map.of("error", "Already running"));
+    }
+
+    private ResponseEntity<?> backfillAwards(String quizCode) {
         List<String> processed = new ArrayList<>();
         List<String> skipped = new ArrayList<>();
         try {
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             // Build a name->uid multimap to cautiously resolve users by display name
             Map<String, String> nameToUid = new HashMap<>();
             Map<String, Integer> nameCounts = new HashMap<>();
@@ -120,21 +267,21 @@ public class AdminController {
                 String code = q.getQuizCode();
                 if (code == null || code.isBlank()) continue;
                 // Compute ranked results using latest attempts
-                List<Submission> ranked = quizService.listResults(code);
+                List<QuizService.ResultRow> ranked = quizService.listResults(code);
                 int[] rankPtr = {0};
                 int[] lastScore = {Integer.MIN_VALUE};
                 int[] lastDur = {Integer.MIN_VALUE};
                 int[] pos = {0};
-                for (Submission s : ranked) {
+                for (QuizService.ResultRow s : ranked) {
                     pos[0]++;
-                    int sc = s.getTotalScore();
-                    int dur = s.getDurationSeconds();
+                    int sc = s.totalScore();
+                    int dur = s.durationSeconds();
                     if (sc != lastScore[0] || dur != lastDur[0]) {
                         rankPtr[0] = pos[0];
                         lastScore[0] = sc;
                         lastDur[0] = dur;
                     }
-                    String name = s.getParticipantName();
+                    String name = s.participantName();
                     String uid = null;
                     try {
                         DocumentSnapshot entry = db.collection("leaderboards").document(code)
@@ -0,0 +1,33 @@
+package com.quizora.backend.controller;
+
+import com.quizora.backend.service.ClusterRing;
+import com.quizora.backend.service.LiveQuizService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/** Member-to-member calls; anything not sent by a configured peer gets 403. */
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    private final ClusterRing clusterRing;
+    private final LiveQuizService liveQuizService;
+
+    public ClusterController(ClusterRing clusterRing, LiveQuizService liveQuizService) {
+        this.clusterRing = clusterRing;
+        this.liveQuizService = liveQuizService;
+    }
+
+    /** The room's new owner claims it: 200 with its state, or 204 when this node holds no such room. */
+    @PostMapping("/live/{quizCode}/release")
+    public ResponseEntity<?> releaseLiveRoom(@PathVariable String quizCode, HttpServletRequest httpReq) {
+        if (!clusterRing.fromPeer(httpReq.getHeader(ClusterRing.FORWARDED_HEADER), httpReq.getRemoteAddr())) {
+            return ResponseEntity.status(403).body(Map.of("error", "Cluster members only"));
+        }
+        var snapshot = liveQuizService.release(quizCode);
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.noContent().build();
+    }
+}
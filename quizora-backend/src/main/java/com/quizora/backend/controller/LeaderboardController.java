@@ -0,0 +1,32 @@
+package com.quizora.backend.controller;
+
+import com.quizora.backend.service.GlobalRankingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final GlobalRankingService globalRankingService;
+
+    public LeaderboardController(GlobalRankingService globalRankingService) {
+        this.globalRankingService = globalRankingService;
+    }
+
+    @GetMapping("/global")
+    public ResponseEntity<?> global(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(globalRankingService.top(Math.min(Math.max(limit, 1), MAX_LIMIT)));
+    }
+
+    @GetMapping("/global/{uid}")
+    public ResponseEntity<?> rank(@PathVariable String uid) {
+        return globalRankingService.rankOf(uid)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(404).body(Map.of("error", "User has no XP yet")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.quizora.backend.controller;
+
+import com.quizora.backend.service.LiveQuizService;
+import com.quizora.backend.service.QuizService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/quizzes/{quizCode}/live")
+public class LiveQuizController {
+
+    private final LiveQuizService liveQuizService;
+    private final QuizService quizService;
+
+    public LiveQuizController(LiveQuizService liveQuizService, QuizService quizService) {
+        this.liveQuizService = liveQuizService;
+        this.quizService = quizService;
+    }
+
+    // Host controls (authenticated via FirebaseAuthFilter)
+    @PostMapping("/start")
+    public ResponseEntity<?> start(@PathVariable String quizCode, HttpServletRequest httpReq) {
+        return ResponseEntity.ok(liveQuizService.start(quizCode, (String) httpReq.getAttribute("firebaseUid")));
+    }
+
+    @PostMapping("/next")
+    public ResponseEntity<?> next(@PathVariable String quizCode, HttpServletRequest httpReq) {
+        return ResponseEntity.ok(liveQuizService.next(quizCode, (String) httpReq.getAttribute("firebaseUid")));
+    }
+
+    @PostMapping("/reveal")
+    public ResponseEntity<?> reveal(@PathVariable String quizCode, HttpServletRequest httpReq) {
+        return ResponseEntity.ok(liveQuizService.revealNow(quizCode, (String) httpReq.getAttribute("firebaseUid")));
+    }
+
+    @PostMapping("/end")
+    public ResponseEntity<?> end(@PathVariable String quizCode, HttpServletRequest httpReq) {
+        return ResponseEntity.ok(quizService.endLive(quizCode, (String) httpReq.getAttribute("firebaseUid")));
+    }
+
+    // Player endpoints (public, like /join)
+    public static class LiveAnswerRequest {
+        public String name;
+        public Long questionId;
+        public String selected; // A/B/C/D
+    }
+
+    @PostMapping("/answer")
+    public ResponseEntity<?> answer(@PathVariable String quizCode, @RequestBody LiveAnswerRequest req) {
+        if (req == null || req.name == null || req.name.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "name is required"));
+        }
+        var result = liveQuizService.answer(quizCode, req.name, req.questionId, req.selected);
+        if (!result.accepted()) {
+            return ResponseEntity.status(409).body(Map.of("error", result.reason()));
+        }
+        return ResponseEntity.accepted().body(result);
+    }
+
+    @GetMapping("/state")
+    public ResponseEntity<?> state(@PathVariable String quizCode) {
+        return ResponseEntity.ok(liveQuizService.state(quizCode));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String quizCode) {
+        return liveQuizService.subscribe(quizCode);
+    }
+}
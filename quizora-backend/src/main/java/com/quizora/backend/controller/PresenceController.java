@@ -0,0 +1,52 @@
+package com.quizora.backend.controller;
+
+import com.quizora.backend.service.PresenceService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/quizzes/{quizCode}/presence")
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    public PresenceController(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
+    // Player endpoints (public, like /join)
+    public static class PresenceRequest { public String name; }
+
+    /** Keeps the player online for app.presence.ttl-seconds; send again well within that. */
+    @PostMapping("/heartbeat")
+    public ResponseEntity<?> heartbeat(@PathVariable String quizCode, @RequestBody PresenceRequest req) {
+        if (req == null || req.name == null || req.name.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "name is required"));
+        }
+        int online = presenceService.heartbeat(quizCode, req.name);
+        return ResponseEntity.ok(Map.of("online", online, "ttlSeconds", presenceService.ttlSeconds()));
+    }
+
+    @PostMapping("/leave")
+    public ResponseEntity<?> leave(@PathVariable String quizCode, @RequestBody PresenceRequest req) {
+        if (req == null || req.name == null || req.name.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "name is required"));
+        }
+        presenceService.leave(quizCode, req.name);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public ResponseEntity<PresenceService.PresenceView> presence(@PathVariable String quizCode) {
+        return ResponseEntity.ok(presenceService.view(quizCode));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String quizCode) {
+        return presenceService.subscribe(quizCode);
+    }
+}
@@ -1,18 +1,26 @@
 package com.quizora.backend.controller;
 
+import com.quizora.backend.config.FirebaseClients;
 import com.quizora.backend.model.Quiz;
+import com.quizora.backend.service.IdempotencyService;
+import com.quizora.backend.service.QuizPayloadCache;
+import com.quizora.backend.service.QuizSearchIndex;
+import com.quizora.backend.service.TrendingService;
+import com.quizora.backend.service.RoomStandingsService;
 import com.quizora.backend.service.QuizService;
 import com.quizora.backend.repository.QuizRepository;
-import com.quizora.backend.repository.ParticipantRepository;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import com.google.firebase.cloud.FirestoreClient;
+import java.util.Set;
 import com.google.cloud.firestore.Firestore;
 
 @RestController
@@ -20,13 +28,26 @@ import com.google.cloud.firestore.Firestore;
 public class QuizController {
 
     private final QuizService quizService;
+    private final IdempotencyService idempotencyService;
     private final QuizRepository quizRepository;
-    private final ParticipantRepository participantRepository;
-
-    public QuizController(QuizService quizService, QuizRepository quizRepository, ParticipantRepository participantRepository) {
+    private final QuizPayloadCache quizPayloadCache;
+    private final RoomStandingsService roomStandingsService;
+    private final FirebaseClients firebase;
+    private final QuizSearchIndex quizSearchIndex;
+    private final TrendingService trendingService;
+
+    public QuizController(QuizService quizService, IdempotencyService idempotencyService,
+                          QuizRepository quizRepository, QuizPayloadCache quizPayloadCache,
+                          RoomStandingsService roomStandingsService, FirebaseClients firebase,
+                          QuizSearchIndex quizSearchIndex, TrendingService trendingService) {
         this.quizService = quizService;
+        this.idempotencyService = idempotencyService;
         this.quizRepository = quizRepository;
-        this.participantRepository = participantRepository;
+        this.quizPayloadCache = quizPayloadCache;
+        this.roomStandingsService = roomStandingsService;
+        this.firebase = firebase;
+        this.quizSearchIndex = quizSearchIndex;
+        this.trendingService = trendingService;
     }
 
     @PostMapping("/create")
@@ -38,23 +59,67 @@ public class QuizController {
         return ResponseEntity.ok(resp);
     }
 
+    /**
+     * JSON by default; application/cbor or application/x-jackson-smile on request. Bodies for hot
+     * quizzes come pre-encoded (and pre-gzipped when the client accepts gzip) from {@link QuizPayloadCache}.
+     */
     @GetMapping("/code/{quizCode}")
-    public ResponseEntity<Quiz> getByCode(@PathVariable String quizCode) {
-        return quizService.getQuizByCode(quizCode)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getByCode(@PathVariable String quizCode, HttpServletRequest httpReq) {
+        var format = QuizPayloadCache.negotiate(httpReq.getHeader(HttpHeaders.ACCEPT));
+        if (format.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        var body = quizPayloadCache.get(quizCode, format.get());
+        if (body.isEmpty()) return ResponseEntity.notFound().build();
+        boolean gzip = acceptsGzip(httpReq.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        var resp = ResponseEntity.ok()
+                .contentType(format.get().mediaType)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) resp.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return resp.body(gzip ? body.get().gzip() : body.get().identity());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(tokens[0].trim())) continue;
+            for (int i = 1; i < tokens.length; i++) {
+                String t = tokens[i].trim();
+                if (!t.startsWith("q=")) continue;
+                try {
+                    return Double.parseDouble(t.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Quiz>> getAll() {
+    public ResponseEntity<List<QuizService.QuizDetail>> getAll() {
         return ResponseEntity.ok(quizService.getAllQuizzes());
     }
 
+    /** Catalogue search over title, description and code; prefix and typo tolerant, best matches first. */
+    @GetMapping("/search")
+    public ResponseEntity<List<QuizSearchIndex.Hit>> search(@RequestParam(required = false) String q,
+                                                            @RequestParam(required = false) String difficulty,
+                                                            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(quizSearchIndex.search(q, difficulty, limit));
+    }
+
+    /** Quizzes with the most joins and submits in the recent window, busiest first. */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingService.TrendingQuiz>> trending(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trendingService.trendingQuizzes(limit));
+    }
+
     // Debug: fetch Firestore user stats with Authorization
     @GetMapping("/user-stats/{uid}")
     public ResponseEntity<?> userStats(@PathVariable String uid) {
         try {
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             var userSnap = db.collection("users").document(uid).get().get();
             Map<String, Object> result = new HashMap<>();
             result.put("user", userSnap.exists() ? userSnap.getData() : null);
@@ -77,22 +142,46 @@ public class QuizController {
         if (req == null || req.quizCode == null || req.quizCode.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error","quizCode is required"));
         }
+        if (req.name == null || req.name.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error","name is required"));
+        }
         return quizService.registerParticipant(req.quizCode, req.name)
                 .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(404).body(Map.of("error","Invalid quiz code")));
     }
 
+    // Only the quiz's creator may delete it
     @DeleteMapping("/delete/{id}")
-    public ResponseEntity<?> delete(@PathVariable Long id) {
-        quizService.deleteQuiz(id);
+    public ResponseEntity<?> delete(@PathVariable Long id, HttpServletRequest httpReq) {
+        List<Long> deleted = quizService.deleteOwnedQuizzes(List.of(id), (String) httpReq.getAttribute("firebaseUid"));
+        if (deleted.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error","Quiz not found or not yours"));
+        }
+        quizPayloadCache.evictById(id);
         return ResponseEntity.noContent().build();
     }
 
+    public static class DeleteRequest { public List<Long> ids; }
+
+    // Delete many of the caller's quizzes in one set-based transaction; ids of other users' quizzes
+    // (and unknown ids) are returned as notDeleted
+    @PostMapping("/delete")
+    public ResponseEntity<?> deleteMany(@RequestBody DeleteRequest req, HttpServletRequest httpReq) {
+        if (req == null || req.ids == null || req.ids.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error","ids is required"));
+        }
+        List<Long> deleted = quizService.deleteOwnedQuizzes(req.ids, (String) httpReq.getAttribute("firebaseUid"));
+        for (Long id : deleted) quizPayloadCache.evictById(id);
+        Set<Long> done = new HashSet<>(deleted);
+        List<Long> notDeleted = req.ids.stream().filter(id -> id != null && !done.contains(id)).distinct().toList();
+        return ResponseEntity.ok(Map.of("deleted", deleted.size(), "notDeleted", notDeleted));
+    }
+
     // Submit answers and compute results
     public static class SubmitRequest {
         public String quizCode;
         public String name;
-        public Integer durationSeconds;
+        public Integer durationSeconds; // ignored: measured server-side from /join
         public List<QuizService.AnswerDTO> answers;
     }
 
@@ -102,7 +191,9 @@ public class QuizController {
             return ResponseEntity.badRequest().body(Map.of("error","quizCode and name are required"));
         }
         String uid = (String) httpReq.getAttribute("firebaseUid");
-        return quizService.submitAnswers(req.quizCode, req.name, req.answers, req.durationSeconds, uid)
+        String idempotencyKey = httpReq.getHeader(IdempotencyService.HEADER);
+        return idempotencyService.submit(idempotencyKey, req.quizCode, req.name, req.answers, uid)
+                .map(QuizService.ResultRow::of)
                 .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(404).body(Map.of("error","Invalid quiz code")));
     }
@@ -117,41 +208,29 @@ public class QuizController {
         return ResponseEntity.ok(quizService.listResults(quizCode));
     }
 
-    public record LeaderboardRow(String name, int score, int durationSeconds, int rank) {}
-
+    /**
+     * Without ?since: the full standings as an array. With ?since=<version>: a delta object holding
+     * only the rows whose rank or score changed after that version (or the full list, flagged
+     * full=true, when the version is too old), plus the version to pass on the next poll.
+     */
     @GetMapping("/{quizCode}/leaderboard")
-    public ResponseEntity<?> leaderboard(@PathVariable String quizCode) {
-        var list = quizService.listResults(quizCode);
-        // Already sorted by score desc, duration asc in service
-        int[] rank = {0};
-        int[] lastScore = {Integer.MIN_VALUE};
-        int[] lastDuration = {Integer.MIN_VALUE};
-        int[] position = {0};
-        var dto = list.stream().map(sub -> {
-            position[0]++;
-            int currentScore = sub.getTotalScore();
-            int currentDuration = sub.getDurationSeconds();
-            if (currentScore != lastScore[0] || currentDuration != lastDuration[0]) {
-                rank[0] = position[0];
-                lastScore[0] = currentScore;
-                lastDuration[0] = currentDuration;
-            }
-            return new LeaderboardRow(sub.getParticipantName(), currentScore, currentDuration, rank[0]);
-        }).toList();
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<?> leaderboard(@PathVariable String quizCode, @RequestParam(required = false) Long since) {
+        if (since != null) return ResponseEntity.ok(roomStandingsService.since(quizCode, since));
+        return ResponseEntity.ok(roomStandingsService.standings(quizCode));
     }
 
     public record CreatedQuizRow(Long id, String title, String quizCode, String createdAt, long participants) {}
 
     @GetMapping("/users/{uid}/quizzes")
     public ResponseEntity<?> createdQuizzes(@PathVariable String uid) {
-        var list = quizRepository.findByCreatorUidOrderByCreatedAtDesc(uid);
+        // Participant counts come from the same grouped query, not one count per quiz
+        var list = quizRepository.findCreatedByCreatorUid(uid);
         var dto = list.stream().map(q -> new CreatedQuizRow(
                 q.getId(),
                 q.getTitle(),
                 q.getQuizCode(),
                 q.getCreatedAt() != null ? q.getCreatedAt().toString() : null,
-                participantRepository.countByQuizId(q.getId())
+                q.getParticipants() != null ? q.getParticipants() : 0L
         )).toList();
         return ResponseEntity.ok(dto);
     }
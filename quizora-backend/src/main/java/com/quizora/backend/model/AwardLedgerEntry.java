@@ -0,0 +1,92 @@
+package com.quizora.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Append-only XP/badge award. The unique (uid, quiz_code, kind) key makes awarding idempotent:
+ * a duplicate insert is simply ignored. Firestore users/{uid} and users/{uid}/awards are projected
+ * from these rows asynchronously ({@code projected} flips once the projection is written).
+ */
+@Entity
+@Table(name = "award_ledger", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_award_uid_quiz_kind", columnNames = {"uid", "quiz_code", "kind"})
+}, indexes = {
+        @Index(name = "idx_award_unprojected", columnList = "projected, awarded_at"),
+        @Index(name = "idx_award_awarded_at", columnList = "awarded_at")
+})
+public class AwardLedgerEntry {
+
+    /** QUIZ: one award per (uid, quizCode), Firestore doc id = quizCode. Other kinds are milestone badges (see BadgeRuleEngine), quizCode = "". */
+    public static final String KIND_QUIZ = "QUIZ";
+    public static final String KIND_XP_MASTER = "XP_MASTER";
+
+    public static final String SOURCE_RANK = "RANK";
+    public static final String SOURCE_PERFORMANCE = "PERFORMANCE";
+    public static final String SOURCE_MILESTONE = "MILESTONE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 128)
+    private String uid;
+
+    @Column(name = "quiz_code", nullable = false, length = 64)
+    private String quizCode;
+
+    @Column(nullable = false, length = 32)
+    private String kind;
+
+    @Column(nullable = false, length = 32)
+    private String source;
+
+    @Column(nullable = false)
+    private Long xp;
+
+    private String badge;
+
+    @Column(name = "award_rank")
+    private Integer rank;
+
+    private Double percent;
+
+    @Column(name = "awarded_at", nullable = false)
+    private Instant awardedAt;
+
+    @Column(nullable = false)
+    private boolean projected;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getUid() { return uid; }
+    public void setUid(String uid) { this.uid = uid; }
+
+    public String getQuizCode() { return quizCode; }
+    public void setQuizCode(String quizCode) { this.quizCode = quizCode; }
+
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public Long getXp() { return xp; }
+    public void setXp(Long xp) { this.xp = xp; }
+
+    public String getBadge() { return badge; }
+    public void setBadge(String badge) { this.badge = badge; }
+
+    public Integer getRank() { return rank; }
+    public void setRank(Integer rank) { this.rank = rank; }
+
+    public Double getPercent() { return percent; }
+    public void setPercent(Double percent) { this.percent = percent; }
+
+    public Instant getAwardedAt() { return awardedAt; }
+    public void setAwardedAt(Instant awardedAt) { this.awardedAt = awardedAt; }
+
+    public boolean isProjected() { return projected; }
+    public void setProjected(boolean projected) { this.projected = projected; }
+}
@@ -3,11 +3,18 @@ package com.quizora.backend.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "quiz")
+@NaturalIdCache(region = "quiz.natural-id")
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Table(name = "quizzes", indexes = {
         @Index(name = "idx_quiz_code_unique", columnList = "quizCode", unique = true),
@@ -25,6 +32,7 @@ public class Quiz {
     private String difficulty;
     private Integer sessionTimer; // minutes (optional)
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String quizCode;
 
@@ -35,6 +43,7 @@ public class Quiz {
     private String creatorName;
 
     @OneToMany(mappedBy = "quiz", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "quiz.questions")
     @JsonManagedReference
     private final List<Question> questions = new ArrayList<>();
 
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions", indexes = {
+        @Index(name = "idx_submission_quiz_participant", columnList = "quiz_id, participant_id"),
+        @Index(name = "idx_submission_participant_time", columnList = "participant_id, submittedAt")
+})
 public class Submission {
 
     @Id
@@ -15,7 +18,13 @@ public class Submission {
     @JoinColumn(name = "quiz_id")
     private Quiz quiz;
 
-    @Column(name = "participant_name", nullable = false)
+    // Left nullable in the DDL so it can be added to existing tables; ParticipantKeyMigration sets NOT NULL after the backfill
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "participant_id")
+    private Participant participant;
+
+    // Pre-participant_id key, read only: rows ParticipantKeyMigration has not keyed yet are named by it
+    @Column(name = "participant_name", insertable = false, updatable = false)
     private String participantName;
 
     @Column(nullable = false)
@@ -45,8 +54,10 @@ public class Submission {
     public Quiz getQuiz() { return quiz; }
     public void setQuiz(Quiz quiz) { this.quiz = quiz; }
 
-    public String getParticipantName() { return participantName; }
-    public void setParticipantName(String participantName) { this.participantName = participantName; }
+    public Participant getParticipant() { return participant; }
+    public void setParticipant(Participant participant) { this.participant = participant; }
+
+    public String getParticipantName() { return participant != null ? participant.getName() : participantName; }
 
     public Integer getTotalQuestions() { return totalQuestions; }
     public void setTotalQuestions(Integer totalQuestions) { this.totalQuestions = totalQuestions; }
@@ -0,0 +1,51 @@
+package com.quizora.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A quiz whose older submissions were moved to an immutable segment file (see SubmissionArchiveService).
+ * quizId is a plain column (no FK) so archives never block quiz deletes.
+ */
+@Entity
+@Table(name = "submission_archives")
+public class SubmissionArchive {
+
+    @Id
+    @Column(name = "quiz_id")
+    private Long quizId;
+
+    @Column(nullable = false, length = 1024)
+    private String segmentPath;
+
+    @Column(nullable = false)
+    private Integer recordCount;
+
+    /** Highest submission id contained in the segment. */
+    @Column(nullable = false)
+    private Long maxSubmissionId;
+
+    @Column(nullable = false)
+    private Long segmentBytes;
+
+    @Column(nullable = false)
+    private Instant archivedAt;
+
+    public Long getQuizId() { return quizId; }
+    public void setQuizId(Long quizId) { this.quizId = quizId; }
+
+    public String getSegmentPath() { return segmentPath; }
+    public void setSegmentPath(String segmentPath) { this.segmentPath = segmentPath; }
+
+    public Integer getRecordCount() { return recordCount; }
+    public void setRecordCount(Integer recordCount) { this.recordCount = recordCount; }
+
+    public Long getMaxSubmissionId() { return maxSubmissionId; }
+    public void setMaxSubmissionId(Long maxSubmissionId) { this.maxSubmissionId = maxSubmissionId; }
+
+    public Long getSegmentBytes() { return segmentBytes; }
+    public void setSegmentBytes(Long segmentBytes) { this.segmentBytes = segmentBytes; }
+
+    public Instant getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(Instant archivedAt) { this.archivedAt = archivedAt; }
+}
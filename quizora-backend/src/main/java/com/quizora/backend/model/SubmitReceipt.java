@@ -0,0 +1,53 @@
+package com.quizora.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Persisted outcome of an idempotent submit: maps a client Idempotency-Key to the submission it created.
+ * submissionId is a plain column (no FK) so receipts never block quiz/submission deletes.
+ * idempotencyKey is a SHA-256 of the scoped key and requestHash one of the answers it was first used
+ * with (null on receipts written before payloads were checked).
+ */
+@Entity
+@Table(name = "submit_receipts", indexes = {
+        @Index(name = "idx_receipt_created", columnList = "createdAt")
+})
+public class SubmitReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 512)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Long submissionId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void onCreate() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public Long getSubmissionId() { return submissionId; }
+    public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,43 @@
+package com.quizora.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/** Per-user totals rolled up periodically from award_ledger. */
+@Entity
+@Table(name = "user_xp_totals", indexes = {
+        @Index(name = "idx_user_xp_total", columnList = "total_xp")
+})
+public class UserXpTotal {
+
+    @Id
+    @Column(length = 128)
+    private String uid;
+
+    @Column(name = "total_xp", nullable = false)
+    private Long totalXp;
+
+    @Column(name = "badges_count", nullable = false)
+    private Long badgesCount;
+
+    @Column(name = "awards_count", nullable = false)
+    private Long awardsCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public String getUid() { return uid; }
+    public void setUid(String uid) { this.uid = uid; }
+
+    public Long getTotalXp() { return totalXp; }
+    public void setTotalXp(Long totalXp) { this.totalXp = totalXp; }
+
+    public Long getBadgesCount() { return badgesCount; }
+    public void setBadgesCount(Long badgesCount) { this.badgesCount = badgesCount; }
+
+    public Long getAwardsCount() { return awardsCount; }
+    public void setAwardsCount(Long awardsCount) { this.awardsCount = awardsCount; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,46 @@
+package com.quizora.backend.repository;
+
+import com.quizora.backend.model.AwardLedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AwardLedgerRepository extends JpaRepository<AwardLedgerEntry, Long> {
+
+    interface UserTotalsView {
+        Long getTotalXp();
+        Long getBadgesCount();
+        Long getAwardsCount();
+        Long getMaxId();
+    }
+
+    @Query("select coalesce(sum(a.xp), 0) as totalXp, count(a.badge) as badgesCount, count(a) as awardsCount, " +
+            "coalesce(max(a.id), 0) as maxId " +
+            "from AwardLedgerEntry a where a.uid = :uid")
+    UserTotalsView totalsFor(@Param("uid") String uid);
+
+    @Query("select coalesce(sum(a.xp), 0) as totalXp, count(a.badge) as badgesCount, count(a) as awardsCount, " +
+            "coalesce(max(a.id), 0) as maxId " +
+            "from AwardLedgerEntry a where a.uid = :uid and a.awardedAt < :before")
+    UserTotalsView totalsBefore(@Param("uid") String uid, @Param("before") Instant before);
+
+    @Query("select a from AwardLedgerEntry a where a.uid = :uid and a.awardedAt >= :since order by a.id")
+    List<AwardLedgerEntry> findRecent(@Param("uid") String uid, @Param("since") Instant since);
+
+    @Query("select distinct a.kind from AwardLedgerEntry a where a.uid = :uid and a.kind <> :quizKind")
+    List<String> findMilestoneKinds(@Param("uid") String uid, @Param("quizKind") String quizKind);
+
+    @Query("select a from AwardLedgerEntry a where a.projected = false and a.awardedAt < :before order by a.id")
+    List<AwardLedgerEntry> findUnprojected(@Param("before") Instant before, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("update AwardLedgerEntry a set a.projected = true where a.id = :id")
+    int markProjected(@Param("id") Long id);
+}
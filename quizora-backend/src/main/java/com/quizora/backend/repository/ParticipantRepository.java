@@ -2,12 +2,39 @@ package com.quizora.backend.repository;
 
 import com.quizora.backend.model.Participant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/** Like {@link SubmissionRepository}, every per-room query filters on quiz_id for partition pruning. */
 public interface ParticipantRepository extends JpaRepository<Participant, Long> {
     Optional<Participant> findByQuizIdAndName(Long quizId, String name);
+    boolean existsByQuizIdAndName(Long quizId, String name);
     List<Participant> findByQuizId(Long quizId);
     long countByQuizId(Long quizId);
+
+    interface ParticipantView {
+        Long getId();
+        String getName();
+        Instant getJoinedAt();
+    }
+
+    @Query("select p.id as id, p.name as name, p.joinedAt as joinedAt from Participant p " +
+            "where p.quiz.id = :quizId order by p.joinedAt")
+    List<ParticipantView> findViewsByQuizId(@Param("quizId") Long quizId);
+
+    @Transactional
+    @Modifying
+    @Query("update Participant p set p.joinedAt = :joinedAt where p.quiz.id = :quizId and p.id = :id")
+    int updateJoinedAt(@Param("quizId") Long quizId, @Param("id") Long id, @Param("joinedAt") Instant joinedAt);
+
+    @Modifying
+    @Query("delete from Participant p where p.quiz.id in :quizIds")
+    int deleteByQuizIdIn(@Param("quizIds") Collection<Long> quizIds);
 }
@@ -2,5 +2,15 @@ package com.quizora.backend.repository;
 
 import com.quizora.backend.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface QuestionRepository extends JpaRepository<Question, Long> { }
+import java.util.Collection;
+
+public interface QuestionRepository extends JpaRepository<Question, Long> {
+
+    @Modifying
+    @Query("delete from Question q where q.quiz.id in :quizIds")
+    int deleteByQuizIdIn(@Param("quizIds") Collection<Long> quizIds);
+}
@@ -1,13 +1,95 @@
 package com.quizora.backend.repository;
 
 import com.quizora.backend.model.Quiz;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface QuizRepository extends JpaRepository<Quiz, Long> {
-    Optional<Quiz> findByQuizCode(String quizCode);
+/** findByQuizCode is implemented in {@link QuizRepositoryCustomImpl} as a natural-id lookup. */
+public interface QuizRepository extends JpaRepository<Quiz, Long>, QuizRepositoryCustom {
     boolean existsByQuizCode(String quizCode);
-    List<Quiz> findByCreatorUidOrderByCreatedAtDesc(String creatorUid);
+
+    /** Quiz plus its questions in one statement, for endpoints that render the whole quiz. */
+    @EntityGraph(attributePaths = "questions")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select q from Quiz q where q.quizCode = :code")
+    Optional<Quiz> findWithQuestionsByQuizCode(@Param("code") String quizCode);
+
+    @EntityGraph(attributePaths = "questions")
+    @Query("select q from Quiz q order by q.id")
+    List<Quiz> findAllWithQuestions();
+
+    interface CreatedQuizView {
+        Long getId();
+        String getTitle();
+        String getQuizCode();
+        Instant getCreatedAt();
+        Long getParticipants();
+    }
+
+    // Not cacheable: participants are inserted with plain JDBC, which Hibernate cannot see
+    @Query("select q.id as id, q.title as title, q.quizCode as quizCode, q.createdAt as createdAt, count(p.id) as participants " +
+            "from Quiz q left join Participant p on p.quiz = q where q.creatorUid = :uid " +
+            "group by q.id, q.title, q.quizCode, q.createdAt order by q.createdAt desc")
+    List<CreatedQuizView> findCreatedByCreatorUid(@Param("uid") String creatorUid);
+
+    /** Minimal view of a quiz for hot paths that only need its id and time limit. */
+    interface QuizRefView {
+        Long getId();
+        Integer getSessionTimer();
+        Number getQuestionTimerSum();
+    }
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select q.id as id, q.sessionTimer as sessionTimer, " +
+            "coalesce(sum(case when qq.timer > 0 then qq.timer else 0 end), 0) as questionTimerSum " +
+            "from Quiz q left join q.questions qq where q.quizCode = :code group by q.id, q.sessionTimer")
+    Optional<QuizRefView> findRefByQuizCode(@Param("code") String quizCode);
+
+    interface QuizCodeView {
+        Long getId();
+        String getQuizCode();
+    }
+
+    @Query("select q.id as id, q.quizCode as quizCode from Quiz q where q.id in :ids")
+    List<QuizCodeView> findCodesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select q.id from Quiz q where q.id in :ids and q.creatorUid = :uid")
+    List<Long> findIdsByIdInAndCreatorUid(@Param("ids") Collection<Long> ids, @Param("uid") String creatorUid);
+
+    /** The fields the catalogue search indexes. */
+    interface QuizSearchView {
+        Long getId();
+        String getQuizCode();
+        String getTitle();
+        String getDescription();
+        String getDifficulty();
+        Instant getCreatedAt();
+    }
+
+    @Transactional(readOnly = true)
+    @Query("select q.id as id, q.quizCode as quizCode, q.title as title, q.description as description, " +
+            "q.difficulty as difficulty, q.createdAt as createdAt from Quiz q order by q.id")
+    List<QuizSearchView> findSearchViews();
+
+    @Transactional(readOnly = true)
+    @Query("select q.id as id, q.quizCode as quizCode, q.title as title, q.description as description, " +
+            "q.difficulty as difficulty, q.createdAt as createdAt from Quiz q where q.id = :id")
+    Optional<QuizSearchView> findSearchViewById(@Param("id") Long id);
+
+    /** Bulk delete; callers must delete questions, participants and submissions first. */
+    @Modifying
+    @Query("delete from Quiz q where q.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,9 @@
+package com.quizora.backend.repository;
+
+import com.quizora.backend.model.Quiz;
+
+import java.util.Optional;
+
+public interface QuizRepositoryCustom {
+    Optional<Quiz> findByQuizCode(String quizCode);
+}
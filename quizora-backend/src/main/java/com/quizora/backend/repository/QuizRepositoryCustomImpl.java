@@ -0,0 +1,40 @@
+package com.quizora.backend.repository;
+
+import com.quizora.backend.model.Quiz;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * quizCode lookup. With the second-level cache enabled this goes through Hibernate's natural-id API,
+ * so a warm lookup is served from the quiz.natural-id and quiz regions without touching Postgres.
+ * Without it, a plain query avoids the extra id-resolution round trip of an uncached natural-id load.
+ */
+public class QuizRepositoryCustomImpl implements QuizRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean secondLevelCache;
+
+    public QuizRepositoryCustomImpl(@Value("${app.l2-cache.enabled:false}") boolean secondLevelCache) {
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Quiz> findByQuizCode(String quizCode) {
+        if (quizCode == null) return Optional.empty();
+        if (secondLevelCache) {
+            return entityManager.unwrap(Session.class).bySimpleNaturalId(Quiz.class).loadOptional(quizCode);
+        }
+        return entityManager.createQuery("select q from Quiz q where q.quizCode = :code", Quiz.class)
+                .setParameter("code", quizCode)
+                .getResultStream()
+                .findFirst();
+    }
+}
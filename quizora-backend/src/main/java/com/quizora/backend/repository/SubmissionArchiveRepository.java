@@ -0,0 +1,6 @@
+package com.quizora.backend.repository;
+
+import com.quizora.backend.model.SubmissionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SubmissionArchiveRepository extends JpaRepository<SubmissionArchive, Long> { }
@@ -2,11 +2,69 @@ package com.quizora.backend.repository;
 
 import com.quizora.backend.model.Submission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Per-room queries filter on quiz_id itself (never through a join on quizzes.quiz_code) so that
+ * with partitioned tables Postgres prunes them to the one partition holding the quiz.
+ *
+ * Joins to participants repeat the quiz_id filter on the participant side, so that table is
+ * pruned as well. Names come from a left join on participants with the legacy participant_name as
+ * fallback, so rows ParticipantKeyMigration has not keyed yet still show up.
+ */
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     List<Submission> findByQuizId(Long quizId);
-    Optional<Submission> findByQuizIdAndParticipantName(Long quizId, String participantName);
+
+    /** Whether the participant submitted after the given time, counting legacy rows keyed only by name. */
+    @Query("select count(s) > 0 from Submission s where s.quiz.id = :quizId and s.submittedAt > :after and " +
+            "(s.participant.id = :participantId or (s.participant is null and s.participantName = :name))")
+    boolean existsAttemptAfter(@Param("quizId") Long quizId, @Param("participantId") Long participantId,
+                               @Param("name") String name, @Param("after") Instant after);
+
+    @Query("select s from Submission s join fetch s.participant p " +
+            "where s.quiz.id = :quizId and s.id = :id and p.quiz.id = :quizId")
+    Optional<Submission> findWithParticipantById(@Param("quizId") Long quizId, @Param("id") Long id);
+
+    interface ResultView {
+        Long getId();
+        String getParticipantName();
+        Integer getTotalQuestions();
+        Integer getTotalCorrect();
+        Integer getTotalScore();
+        Integer getDurationSeconds();
+        Instant getSubmittedAt();
+    }
+
+    @Query("select s.id as id, coalesce(p.name, s.participantName) as participantName, s.totalQuestions as totalQuestions, " +
+            "s.totalCorrect as totalCorrect, s.totalScore as totalScore, s.durationSeconds as durationSeconds, " +
+            "s.submittedAt as submittedAt from Submission s left join s.participant p on p.quiz.id = :quizId where s.quiz.id = :quizId")
+    List<ResultView> findResultViewsByQuizId(@Param("quizId") Long quizId);
+
+    @Query("select s.id as id, coalesce(p.name, s.participantName) as participantName, s.totalQuestions as totalQuestions, " +
+            "s.totalCorrect as totalCorrect, s.totalScore as totalScore, s.durationSeconds as durationSeconds, " +
+            "s.submittedAt as submittedAt from Submission s left join s.participant p on p.quiz.id = :quizId where s.quiz.id = :quizId and s.submittedAt >= :since")
+    List<ResultView> findResultViewsByQuizIdSince(@Param("quizId") Long quizId, @Param("since") Instant since);
+
+    /**
+     * Latest attempt per participant (by submittedAt, then id), resolved on the integer participant key;
+     * a legacy row is compared by name, since the same player's newer attempts may already be keyed.
+     */
+    @Query("select s.id as id, coalesce(p.name, s.participantName) as participantName, s.totalQuestions as totalQuestions, " +
+            "s.totalCorrect as totalCorrect, s.totalScore as totalScore, s.durationSeconds as durationSeconds, " +
+            "s.submittedAt as submittedAt from Submission s left join s.participant p on p.quiz.id = :quizId where s.quiz.id = :quizId and not exists (" +
+            "select 1 from Submission n left join n.participant np on np.quiz.id = :quizId where n.quiz.id = :quizId and (n.participant = s.participant " +
+            "or (s.participant is null and coalesce(np.name, n.participantName) = s.participantName)) and " +
+            "(n.submittedAt > s.submittedAt or (n.submittedAt = s.submittedAt and n.id > s.id)))")
+    List<ResultView> findLatestResultViewsByQuizId(@Param("quizId") Long quizId);
+
+    @Modifying
+    @Query("delete from Submission s where s.quiz.id in :quizIds")
+    int deleteByQuizIdIn(@Param("quizIds") Collection<Long> quizIds);
 }
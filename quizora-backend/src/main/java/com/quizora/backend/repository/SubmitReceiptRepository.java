@@ -0,0 +1,20 @@
+package com.quizora.backend.repository;
+
+import com.quizora.backend.model.SubmitReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface SubmitReceiptRepository extends JpaRepository<SubmitReceipt, Long> {
+    Optional<SubmitReceipt> findByIdempotencyKey(String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SubmitReceipt r where r.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
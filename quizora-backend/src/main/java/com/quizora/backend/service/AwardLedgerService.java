@@ -0,0 +1,295 @@
+package com.quizora.backend.service;
+
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.quizora.backend.config.FirebaseClients;
+import com.quizora.backend.model.AwardLedgerEntry;
+import com.quizora.backend.repository.AwardLedgerRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Postgres award ledger: the source of truth for XP and badges.
+ *
+ * Awards are conflict-free inserts (INSERT ... ON CONFLICT (uid, quiz_code, kind) DO NOTHING), so
+ * concurrent submits never read-modify-write a user document. Totals are one indexed aggregate
+ * over the ledger and are rolled up periodically into user_xp_totals.
+ *
+ * Firestore is only a projection: after commit, each new row is written as its award doc plus
+ * FieldValue increments in one WriteBatch guarded by create(), which fails if the award doc already
+ * exists, so a retried projection can never double-count.
+ *
+ * Every recorded award is also published as an XP change on the {@link CacheInvalidationBus}, so
+ * the other instances refresh their in-memory ranking and badge state for that user.
+ */
+@Service
+public class AwardLedgerService {
+
+    public record Award(String uid, String quizCode, String kind, String source, long xp,
+                        String badge, Integer rank, Double percent) {}
+
+    /** maxId is the highest ledger id included in the aggregate. */
+    public record Totals(long totalXp, long badgesCount, long awardsCount, long maxId) {}
+
+    /** Notified after commit for every award this instance recorded (not for legacy imports). */
+    public interface AwardListener {
+        void onRecorded(long id, Award award);
+    }
+
+    private static final String INSERT_SQL =
+            "INSERT INTO award_ledger (uid, quiz_code, kind, source, xp, badge, award_rank, percent, awarded_at, projected) " +
+            "VALUES (?,?,?,?,?,?,?,?,?,?) ON CONFLICT (uid, quiz_code, kind) DO NOTHING RETURNING id";
+
+    private static final String ROLLUP_SQL =
+            "INSERT INTO user_xp_totals (uid, total_xp, badges_count, awards_count, updated_at) " +
+            "SELECT uid, sum(xp), count(badge), count(*), now() FROM award_ledger " +
+            "WHERE uid IN (SELECT DISTINCT uid FROM award_ledger WHERE awarded_at >= ?) GROUP BY uid " +
+            "ON CONFLICT (uid) DO UPDATE SET total_xp = EXCLUDED.total_xp, badges_count = EXCLUDED.badges_count, " +
+            "awards_count = EXCLUDED.awards_count, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AwardLedgerRepository ledgerRepository;
+    private final GlobalRankingService globalRankingService;
+    private final LeaderElection leaderElection;
+    private final FirebaseClients firebase;
+    private final CacheInvalidationBus cacheBus;
+    // Nested: inside a caller's transaction the insert runs behind a savepoint
+    private final TransactionTemplate savepoint;
+    private final List<AwardListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService projector = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "award-projection");
+        t.setDaemon(true);
+        return t;
+    });
+    private final long rollupOverlapSeconds;
+    private final long projectionRetryAfterSeconds;
+    private volatile Instant lastRollupStart = Instant.EPOCH;
+
+    public AwardLedgerService(JdbcTemplate jdbcTemplate,
+                              AwardLedgerRepository ledgerRepository,
+                              GlobalRankingService globalRankingService,
+                              LeaderElection leaderElection,
+                              FirebaseClients firebase,
+                              CacheInvalidationBus cacheBus,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.awards.rollup-overlap-seconds:120}") long rollupOverlapSeconds,
+                              @Value("${app.awards.projection-retry-after-seconds:30}") long projectionRetryAfterSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledgerRepository = ledgerRepository;
+        this.globalRankingService = globalRankingService;
+        this.leaderElection = leaderElection;
+        this.firebase = firebase;
+        this.cacheBus = cacheBus;
+        this.savepoint = new TransactionTemplate(transactionManager);
+        this.savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.rollupOverlapSeconds = Math.max(0, rollupOverlapSeconds);
+        this.projectionRetryAfterSeconds = Math.max(1, projectionRetryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        projector.shutdown();
+    }
+
+    public void addListener(AwardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Append an award. Returns true when this call created it, false if the (uid, quizCode, kind)
+     * award already exists. Joins the caller's transaction when there is one, behind a savepoint:
+     * a failed insert is rolled back on its own and the caller's transaction stays usable (Postgres
+     * would otherwise abort it). Ranking updates and the Firestore projection run only after it
+     * commits.
+     */
+    public boolean record(Award a) {
+        List<Long> ids = savepoint.execute(status -> jdbcTemplate.queryForList(INSERT_SQL, Long.class,
+                a.uid(), a.quizCode(), a.kind(), a.source(), a.xp(), a.badge(), a.rank(), a.percent(),
+                Timestamp.from(Instant.now()), false));
+        if (ids == null || ids.isEmpty()) return false;
+        Long id = ids.get(0);
+        afterCommit(() -> {
+            globalRankingService.addXp(a.uid(), a.xp());
+            for (AwardListener l : listeners) {
+                try {
+                    l.onRecorded(id, a);
+                } catch (Exception e) {
+                    System.err.println("[Ledger] listener failed id=" + id + ": " + e.getMessage());
+                }
+            }
+            projector.execute(() -> project(id));
+        });
+        cacheBus.publish(CacheInvalidationBus.Change.XP, a.uid(), null);
+        return true;
+    }
+
+    /** Milestone badge kinds the user already holds. */
+    public Set<String> milestoneKindsOf(String uid) {
+        return new HashSet<>(ledgerRepository.findMilestoneKinds(uid, AwardLedgerEntry.KIND_QUIZ));
+    }
+
+    /** One indexed aggregate over the user's ledger rows. */
+    public Totals totalsFor(String uid) {
+        AwardLedgerRepository.UserTotalsView v = ledgerRepository.totalsFor(uid);
+        if (v == null) return new Totals(0, 0, 0, 0);
+        return new Totals(nz(v.getTotalXp()), nz(v.getBadgesCount()), nz(v.getAwardsCount()), nz(v.getMaxId()));
+    }
+
+    /** Totals over the user's rows awarded before the given instant. */
+    public Totals totalsBefore(String uid, Instant before) {
+        AwardLedgerRepository.UserTotalsView v = ledgerRepository.totalsBefore(uid, before);
+        if (v == null) return new Totals(0, 0, 0, 0);
+        return new Totals(nz(v.getTotalXp()), nz(v.getBadgesCount()), nz(v.getAwardsCount()), nz(v.getMaxId()));
+    }
+
+    /** The user's rows awarded at or after the given instant, in id order. */
+    public List<AwardLedgerEntry> entriesSince(String uid, Instant since) {
+        return ledgerRepository.findRecent(uid, since);
+    }
+
+    @Scheduled(fixedDelayString = "${app.awards.rollup-interval-ms:300000}", initialDelayString = "${app.awards.rollup-initial-delay-ms:30000}")
+    public void scheduledRollup() {
+        if (leaderElection.isLeader()) rollupTotals();
+    }
+
+    /**
+     * Roll up totals for users with awards since the previous run (plus an overlap for late commits).
+     * A newly elected leader starts with a full rollup, since the previous leader's progress is not shared.
+     */
+    public void rollupTotals() {
+        Instant started = Instant.now();
+        Instant since = lastRollupStart.equals(Instant.EPOCH) ? Instant.EPOCH : lastRollupStart.minusSeconds(rollupOverlapSeconds);
+        try {
+            int n = jdbcTemplate.update(ROLLUP_SQL, Timestamp.from(since));
+            lastRollupStart = started;
+            if (n > 0) System.out.println("[Ledger] rolled up totals for " + n + " users");
+        } catch (Exception e) {
+            System.err.println("[Ledger] rollup failed: " + e.getMessage());
+        }
+    }
+
+    /** Re-project rows whose projection failed or was lost (e.g. Firestore unavailable, restart). */
+    @Scheduled(fixedDelayString = "${app.awards.projection-retry-interval-ms:60000}", initialDelayString = "${app.awards.projection-retry-interval-ms:60000}")
+    public void projectPending() {
+        if (!leaderElection.isLeader() || !firebaseReady()) return;
+        List<AwardLedgerEntry> pending = ledgerRepository.findUnprojected(
+                Instant.now().minusSeconds(projectionRetryAfterSeconds), PageRequest.of(0, 500));
+        for (AwardLedgerEntry e : pending) project(e);
+    }
+
+    /** Write the user's Firestore totals from the ledger (absolute values). */
+    public void projectTotals(String uid, Totals totals) {
+        if (!firebaseReady()) return;
+        try {
+            Firestore db = firebase.firestore();
+            Map<String, Object> data = new HashMap<>();
+            data.put("xp", totals.totalXp());
+            data.put("totalXp", totals.totalXp());
+            data.put("badgesCount", totals.badgesCount());
+            db.collection("users").document(uid).set(data, SetOptions.merge()).get();
+        } catch (Exception e) {
+            System.err.println("[Ledger] totals projection failed uid=" + uid + ": " + e.getMessage());
+        }
+    }
+
+    /** Record an award that already exists in Firestore (legacy import); it is not projected again. */
+    public boolean importProjected(Award a, Instant awardedAt) {
+        List<Long> ids = jdbcTemplate.queryForList(INSERT_SQL, Long.class,
+                a.uid(), a.quizCode(), a.kind(), a.source(), a.xp(), a.badge(), a.rank(), a.percent(),
+                Timestamp.from(awardedAt != null ? awardedAt : Instant.now()), true);
+        return !ids.isEmpty();
+    }
+
+    private void project(Long id) {
+        ledgerRepository.findById(id).ifPresent(this::project);
+    }
+
+    private void project(AwardLedgerEntry e) {
+        if (e.isProjected() || !firebaseReady()) return;
+        try {
+            Firestore db = firebase.firestore();
+            DocumentReference userRef = db.collection("users").document(e.getUid());
+            DocumentReference awardRef = userRef.collection("awards").document(firestoreDocId(e));
+
+            Map<String, Object> award = new HashMap<>();
+            if (AwardLedgerEntry.KIND_QUIZ.equals(e.getKind())) award.put("quizCode", e.getQuizCode());
+            if (e.getRank() != null) award.put("rank", e.getRank());
+            if (e.getPercent() != null) award.put("percent", e.getPercent());
+            if (e.getBadge() != null) award.put("badge", e.getBadge());
+            award.put("xp", e.getXp());
+            award.put("awardedAt", e.getAwardedAt().toString());
+
+            Map<String, Object> inc = new HashMap<>();
+            inc.put("totalXp", FieldValue.increment(e.getXp()));
+            inc.put("xp", FieldValue.increment(e.getXp()));
+            if (e.getBadge() != null) inc.put("badgesCount", FieldValue.increment(1));
+
+            // Atomic: the increments only apply if the award doc did not exist yet
+            WriteBatch batch = db.batch();
+            batch.create(awardRef, award);
+            batch.set(userRef, inc, SetOptions.merge());
+            batch.commit().get();
+            ledgerRepository.markProjected(e.getId());
+        } catch (ExecutionException ex) {
+            if (String.valueOf(ex.getCause()).contains("ALREADY_EXISTS")) {
+                ledgerRepository.markProjected(e.getId());
+            } else {
+                System.err.println("[Ledger] projection failed id=" + e.getId() + ": " + ex.getMessage());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            System.err.println("[Ledger] projection failed id=" + e.getId() + ": " + ex.getMessage());
+        }
+    }
+
+    /** Quiz awards use the quizCode as doc id; milestone badges use "badge_" + lower-cased kind. */
+    static String firestoreDocId(AwardLedgerEntry e) {
+        return AwardLedgerEntry.KIND_QUIZ.equals(e.getKind()) ? e.getQuizCode() : "badge_" + e.getKind().toLowerCase();
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private boolean firebaseReady() {
+        return firebase.ready();
+    }
+
+    private static long nz(Long v) {
+        return v != null ? v : 0L;
+    }
+}
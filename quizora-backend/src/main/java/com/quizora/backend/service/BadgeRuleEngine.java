@@ -0,0 +1,244 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.AwardLedgerEntry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Declarative badge rules.
+ *
+ * Award rules pick the badge carried by a single quiz award (Gold/Silver/Bronze by rank, Speed Learner
+ * by percent); the first matching rule wins. Milestone rules grant a badge once per user (XP Master)
+ * and are evaluated against per-user aggregates kept in memory and updated from ledger events.
+ *
+ * Rules are indexed by the inputs they read, so an event only re-evaluates the rules whose inputs it
+ * changed. A user's aggregate is loaded from the ledger on first use. A local award carries
+ * everything the aggregate needs, so it is added in memory without touching the ledger. Awards made
+ * on other instances arrive over the {@link CacheInvalidationBus} as bare uids; ledger ids are not
+ * assigned in commit order, so instead of an id watermark the aggregate settles rows awarded more
+ * than app.badges.settle-seconds ago and, for a remote event, re-reads the newer rows and skips the
+ * ones it already counted. All aggregate state is confined to one evaluator thread.
+ */
+@Service
+public class BadgeRuleEngine implements AwardLedgerService.AwardListener, CacheInvalidationBus.Listener {
+
+    public enum Input { RANK, PERCENT, TOTAL_XP, AWARDS_COUNT, BADGES_COUNT }
+
+    public enum Scope { AWARD, MILESTONE }
+
+    /** What a rule can see: the award being made (rank/percent) and the user's running aggregates. */
+    public record Facts(Integer rank, Double percent, long totalXp, long awardsCount, long badgesCount) {}
+
+    /** For MILESTONE rules the id is also the ledger kind. */
+    public record Rule(String id, String badge, Scope scope, Set<Input> inputs, Predicate<Facts> when) {}
+
+    static final List<Rule> RULES = List.of(
+            award("GOLD", "Gold", Input.RANK, f -> f.rank() == 1),
+            award("SILVER", "Silver", Input.RANK, f -> f.rank() == 2),
+            award("BRONZE", "Bronze", Input.RANK, f -> f.rank() == 3),
+            award("PARTICIPANT", "Participant", Input.RANK, f -> f.rank() >= 1),
+            award("SPEED_LEARNER", "Speed Learner", Input.PERCENT, f -> f.percent() >= 0.9),
+            milestone(AwardLedgerEntry.KIND_XP_MASTER, "XP Master", Input.TOTAL_XP, f -> f.totalXp() >= 1000)
+    );
+
+    private static Rule award(String id, String badge, Input input, Predicate<Facts> when) {
+        return new Rule(id, badge, Scope.AWARD, EnumSet.of(input), when);
+    }
+
+    private static Rule milestone(String id, String badge, Input input, Predicate<Facts> when) {
+        return new Rule(id, badge, Scope.MILESTONE, EnumSet.of(input), when);
+    }
+
+    /**
+     * Running per-user totals: every row awarded before settledBefore, plus the newer rows in counted
+     * (id to awardedAt), which are re-read on each event until they settle.
+     */
+    private static final class Aggregate {
+        long totalXp;
+        long awardsCount;
+        long badgesCount;
+        Instant settledBefore;
+        final Map<Long, Instant> counted = new HashMap<>();
+        final Set<String> milestones = new HashSet<>();
+    }
+
+    private final AwardLedgerService awardLedgerService;
+    private final Map<Input, List<Rule>> awardRulesByInput = new EnumMap<>(Input.class);
+    private final Map<Input, List<Rule>> milestoneRulesByInput = new EnumMap<>(Input.class);
+    private final Map<String, Aggregate> aggregates;
+    private final long settleSeconds;
+    private final ExecutorService evaluator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "badge-rules");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BadgeRuleEngine(AwardLedgerService awardLedgerService,
+                           CacheInvalidationBus cacheBus,
+                           @Value("${app.badges.max-cached-users:50000}") int maxCachedUsers,
+                           @Value("${app.badges.settle-seconds:120}") long settleSeconds) {
+        this.awardLedgerService = awardLedgerService;
+        this.settleSeconds = Math.max(1, settleSeconds);
+        int cap = Math.max(16, maxCachedUsers);
+        this.aggregates = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Aggregate> eldest) {
+                return size() > cap;
+            }
+        };
+        for (Rule r : RULES) {
+            Map<Input, List<Rule>> index = r.scope() == Scope.AWARD ? awardRulesByInput : milestoneRulesByInput;
+            for (Input in : r.inputs()) index.computeIfAbsent(in, k -> new ArrayList<>()).add(r);
+        }
+        awardLedgerService.addListener(this);
+        cacheBus.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evaluator.shutdown();
+    }
+
+    /** Badge for a rank-based award, or null. */
+    public String badgeForRank(int rank) {
+        return firstMatch(Input.RANK, new Facts(rank, null, 0, 0, 0));
+    }
+
+    /** Badge for a performance-based award, or null. */
+    public String badgeForPercent(double percent) {
+        return firstMatch(Input.PERCENT, new Facts(null, percent, 0, 0, 0));
+    }
+
+    /** Drop the cached aggregate so the next event reloads it from the ledger. */
+    public void invalidate(String uid) {
+        if (uid != null) evaluator.execute(() -> aggregates.remove(uid));
+    }
+
+    @Override
+    public void onRecorded(long id, AwardLedgerService.Award award) {
+        // Off the committing thread: milestone awards are new ledger inserts in their own transaction
+        evaluator.execute(() -> applyLocal(id, award));
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.XP) return;
+        // Another instance awarded these users; catch up users we hold, the rest load on first use
+        for (CacheInvalidationBus.Key k : keys) evaluator.execute(() -> apply(k.quizCode(), false));
+    }
+
+    @Override
+    public void onResync() {
+        evaluator.execute(aggregates::clear);
+    }
+
+    private String firstMatch(Input input, Facts facts) {
+        for (Rule r : awardRulesByInput.getOrDefault(input, List.of())) {
+            if (r.when().test(facts)) return r.badge();
+        }
+        return null;
+    }
+
+    /** A local award: counted straight from the event; the ledger is read only to load a new user. */
+    private void applyLocal(long id, AwardLedgerService.Award award) {
+        String uid = award.uid();
+        if (!aggregates.containsKey(uid)) {
+            apply(uid, true);
+            return;
+        }
+        Aggregate agg = aggregates.get(uid);
+        EnumSet<Input> changed = EnumSet.noneOf(Input.class);
+        try {
+            // Stamped after the row's awardedAt, so it is kept until the row itself has settled
+            count(agg, id, Instant.now(), award.kind(), award.xp(), award.badge(), changed);
+            settle(agg);
+            evaluateMilestones(uid, agg, changed);
+        } catch (Exception e) {
+            aggregates.remove(uid);
+            System.err.println("[Badges] rule evaluation failed uid=" + uid + ": " + e.getMessage());
+        }
+    }
+
+    private void apply(String uid, boolean load) {
+        Aggregate agg = aggregates.get(uid);
+        if (agg == null && !load) return;
+        EnumSet<Input> changed = EnumSet.noneOf(Input.class);
+        try {
+            if (agg == null) {
+                agg = load(uid);
+                aggregates.put(uid, agg);
+                // Freshly loaded from the ledger, so every milestone input may have moved
+                changed.addAll(milestoneRulesByInput.keySet());
+            }
+            catchUp(uid, agg, changed);
+            evaluateMilestones(uid, agg, changed);
+        } catch (Exception e) {
+            aggregates.remove(uid);
+            System.err.println("[Badges] rule evaluation failed uid=" + uid + ": " + e.getMessage());
+        }
+    }
+
+    /** Count unsettled rows not seen yet, then settle the ones that left the window. */
+    private void catchUp(String uid, Aggregate agg, Set<Input> changed) {
+        for (AwardLedgerEntry e : awardLedgerService.entriesSince(uid, agg.settledBefore)) {
+            count(agg, e.getId(), e.getAwardedAt(), e.getKind(), e.getXp(), e.getBadge(), changed);
+        }
+        settle(agg);
+    }
+
+    private static void count(Aggregate agg, long id, Instant awardedAt, String kind, long xp, String badge, Set<Input> changed) {
+        if (agg.counted.putIfAbsent(id, awardedAt) != null) return;
+        agg.awardsCount++;
+        changed.add(Input.AWARDS_COUNT);
+        if (xp != 0) {
+            agg.totalXp += xp;
+            changed.add(Input.TOTAL_XP);
+        }
+        if (badge != null) {
+            agg.badgesCount++;
+            changed.add(Input.BADGES_COUNT);
+        }
+        if (!AwardLedgerEntry.KIND_QUIZ.equals(kind)) agg.milestones.add(kind);
+    }
+
+    private void settle(Aggregate agg) {
+        Instant settled = Instant.now().minusSeconds(settleSeconds);
+        if (settled.isAfter(agg.settledBefore)) {
+            agg.settledBefore = settled;
+            agg.counted.values().removeIf(at -> at.isBefore(settled));
+        }
+    }
+
+    private void evaluateMilestones(String uid, Aggregate agg, Set<Input> changed) {
+        if (changed.isEmpty()) return;
+        Facts facts = new Facts(null, null, agg.totalXp, agg.awardsCount, agg.badgesCount);
+        Set<Rule> candidates = new LinkedHashSet<>();
+        for (Input in : changed) candidates.addAll(milestoneRulesByInput.getOrDefault(in, List.of()));
+        for (Rule r : candidates) {
+            if (agg.milestones.contains(r.id()) || !r.when().test(facts)) continue;
+            agg.milestones.add(r.id());
+            boolean recorded = awardLedgerService.record(new AwardLedgerService.Award(
+                    uid, "", r.id(), AwardLedgerEntry.SOURCE_MILESTONE, 0, r.badge(), null, null));
+            if (recorded) System.out.println("[Badges] milestone " + r.badge() + " uid=" + uid);
+        }
+    }
+
+    private Aggregate load(String uid) {
+        Instant settled = Instant.now().minusSeconds(settleSeconds);
+        AwardLedgerService.Totals totals = awardLedgerService.totalsBefore(uid, settled);
+        Aggregate agg = new Aggregate();
+        agg.totalXp = totals.totalXp();
+        agg.awardsCount = totals.awardsCount();
+        agg.badgesCount = totals.badgesCount();
+        agg.settledBefore = settled;
+        agg.milestones.addAll(awardLedgerService.milestoneKindsOf(uid));
+        return agg;
+    }
+}
@@ -0,0 +1,247 @@
+package com.quizora.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-instance invalidation of local caches over Postgres LISTEN/NOTIFY.
+ *
+ * Writers call {@link #publish}; after the transaction commits the change is queued and a flusher
+ * sends everything queued within app.cache-bus.batch-window-ms as one NOTIFY per change type.
+ * Each instance keeps a dedicated connection LISTENing on the channel and hands other instances'
+ * events to the registered {@link Listener}s (its own events are skipped: local caches were
+ * already updated by the writer).
+ *
+ * NOTIFY is not durable, so whenever the listening connection is lost every listener gets
+ * {@link Listener#onResync()} after reconnecting and drops whatever may have gone stale meanwhile.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    /** XP: a user's award ledger changed; the key carries the uid in place of a quiz code. */
+    public enum Change { QUIZ, DELETED, RESULTS, ARCHIVED, XP }
+
+    /** quizId may be null when the publisher only knows the code. */
+    public record Key(String quizCode, Long quizId) {}
+
+    public interface Listener {
+        void onRemoteChange(Change change, List<Key> keys);
+
+        /** Notifications may have been missed; drop or revalidate everything. */
+        void onResync();
+    }
+
+    // Postgres caps a NOTIFY payload just below 8000 bytes
+    private static final int MAX_PAYLOAD = 7000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Change, Set<Key>> pending = new EnumMap<>(Change.class);
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final boolean enabled;
+    private final String channel;
+    private final long batchWindowMillis;
+    private final long reconnectDelayMillis;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-bus-notify");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+    private volatile Connection listenConnection;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                DataSourceProperties dataSourceProperties,
+                                @Value("${app.cache-bus.enabled:true}") boolean enabled,
+                                @Value("${app.cache-bus.channel:quizora_cache}") String channel,
+                                @Value("${app.cache-bus.batch-window-ms:20}") long batchWindowMillis,
+                                @Value("${app.cache-bus.reconnect-delay-ms:2000}") long reconnectDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        if (!channel.matches("[a-z_][a-z0-9_]*")) throw new IllegalArgumentException("Invalid cache bus channel: " + channel);
+        this.enabled = enabled;
+        this.channel = channel;
+        this.batchWindowMillis = Math.max(1, batchWindowMillis);
+        this.reconnectDelayMillis = Math.max(100, reconnectDelayMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        flusher.scheduleWithFixedDelay(this::flush, batchWindowMillis, batchWindowMillis, TimeUnit.MILLISECONDS);
+        Thread t = new Thread(this::listenLoop, "cache-bus-listen");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.shutdown();
+        flush();
+        closeQuietly(listenConnection);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Tell other instances a quiz changed; sent once the current transaction (if any) commits. */
+    public void publish(Change change, String quizCode, Long quizId) {
+        if (!enabled || quizCode == null) return;
+        Key key = new Key(quizCode, quizId);
+        afterCommit(() -> {
+            synchronized (pending) {
+                pending.computeIfAbsent(change, c -> new LinkedHashSet<>()).add(key);
+            }
+        });
+    }
+
+    private void flush() {
+        Map<Change, Set<Key>> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            batch = new EnumMap<>(pending);
+            pending.clear();
+        }
+        for (Map.Entry<Change, Set<Key>> e : batch.entrySet()) {
+            String prefix = instanceId + "|" + e.getKey() + "|";
+            StringBuilder sb = new StringBuilder(prefix);
+            for (Key k : e.getValue()) {
+                String item = k.quizCode() + (k.quizId() != null ? ":" + k.quizId() : "");
+                if (sb.length() > prefix.length() && sb.length() + 1 + item.length() > MAX_PAYLOAD) {
+                    send(sb.toString());
+                    sb.setLength(prefix.length());
+                }
+                if (sb.length() > prefix.length()) sb.append(',');
+                sb.append(item);
+            }
+            send(sb.toString());
+        }
+    }
+
+    private void send(String payload) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {}, channel, payload);
+        } catch (Exception e) {
+            System.err.println("[CacheBus] notify failed: " + e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        boolean firstAttempt = true;
+        while (running) {
+            Properties props = new Properties();
+            if (dataSourceProperties.determineUsername() != null) props.setProperty("user", dataSourceProperties.determineUsername());
+            if (dataSourceProperties.determinePassword() != null) props.setProperty("password", dataSourceProperties.determinePassword());
+            props.setProperty("socketTimeout", "30"); // seconds; bounds the keep-alive round trip below
+            try (Connection c = DriverManager.getConnection(dataSourceProperties.determineUrl(), props)) {
+                listenConnection = c;
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                // Anything published while we were not listening is lost
+                if (!firstAttempt) {
+                    System.out.println("[CacheBus] reconnected; flushing local caches");
+                    for (Listener l : listeners) safely(l::onResync);
+                }
+                firstAttempt = false;
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notes = pg.getNotifications(10_000);
+                    if (notes == null || notes.length == 0) {
+                        // A half-open socket never errors on its own; a round trip surfaces it
+                        try (Statement st = c.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification n : notes) dispatch(n.getParameter());
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                System.err.println("[CacheBus] listener connection lost: " + e.getMessage());
+                firstAttempt = false;
+            } finally {
+                listenConnection = null;
+            }
+            try {
+                Thread.sleep(reconnectDelayMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(instanceId)) return;
+        Change change;
+        try {
+            change = Change.valueOf(parts[1]);
+        } catch (IllegalArgumentException unknown) {
+            return;
+        }
+        List<Key> keys = new ArrayList<>();
+        for (String item : parts[2].split(",")) {
+            if (item.isEmpty()) continue;
+            int colon = item.indexOf(':');
+            Long id = null;
+            if (colon >= 0) {
+                try {
+                    id = Long.parseLong(item.substring(colon + 1));
+                } catch (NumberFormatException ignored) {}
+            }
+            keys.add(new Key(colon >= 0 ? item.substring(0, colon) : item, id));
+        }
+        if (keys.isEmpty()) return;
+        for (Listener l : listeners) safely(() -> l.onRemoteChange(change, keys));
+    }
+
+    private static void safely(Runnable r) {
+        try {
+            r.run();
+        } catch (RuntimeException e) {
+            System.err.println("[CacheBus] listener failed: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            if (c != null) c.close();
+        } catch (SQLException ignored) {}
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.quizora.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Room ownership for cluster mode (app.cluster.enabled).
+ *
+ * Members come from the static app.cluster.peers list; a peer counts as live while GET /api/health
+ * answers. Live members are placed on a consistent-hash ring with app.cluster.virtual-nodes points
+ * each, and a quizCode belongs to the first member clockwise from its hash. When a member joins or
+ * leaves, only the rooms on the arcs it gains or loses change owner; every other room stays put.
+ *
+ * With clustering off, or before any peer has answered, this node owns every room.
+ *
+ * The peers' host names are re-resolved on every probe, so a forwarded request can be checked
+ * against the addresses of the configured members ({@link #isPeerAddress}).
+ *
+ * Services holding per-room state listen for ring changes to drop the rooms they no longer own,
+ * and a new owner can {@link #claim} a room's in-memory state from the member that held it.
+ */
+@Service
+public class ClusterRing {
+
+    /** Called after the set of live members (and therefore room ownership) changed. */
+    public interface Listener {
+        void onRingChanged();
+    }
+
+    /** Marks requests sent by another member (forwards and claims). */
+    public static final String FORWARDED_HEADER = "X-Quizora-Forwarded";
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> peers;
+    private final int virtualNodes;
+    private final Duration probeTimeout;
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Set<String> live;
+    private volatile NavigableMap<Long, String> ring;
+    private volatile Set<String> peerAddresses = Set.of();
+
+    public ClusterRing(ObjectMapper objectMapper,
+                       @Value("${app.cluster.enabled:false}") boolean enabled,
+                       @Value("${app.cluster.self-url:http://localhost:${server.port:8080}}") String selfUrl,
+                       @Value("${app.cluster.peers:}") List<String> peerUrls,
+                       @Value("${app.cluster.virtual-nodes:128}") int virtualNodes,
+                       @Value("${app.cluster.probe-timeout-ms:1000}") long probeTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.self = normalize(selfUrl);
+        List<String> all = new ArrayList<>();
+        for (String p : peerUrls) {
+            if (p != null && !p.isBlank() && !all.contains(normalize(p))) all.add(normalize(p));
+        }
+        if (!all.contains(self)) all.add(self);
+        this.peers = List.copyOf(all);
+        this.virtualNodes = Math.max(1, virtualNodes);
+        this.probeTimeout = Duration.ofMillis(Math.max(100, probeTimeoutMillis));
+        this.http = HttpClient.newBuilder().connectTimeout(probeTimeout).version(HttpClient.Version.HTTP_1_1).build();
+        this.live = Set.of(self);
+        this.ring = build(live);
+        if (enabled) resolvePeers();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Base URL of the node that owns the room. */
+    public String ownerOf(String quizCode) {
+        if (!enabled || quizCode == null) return self;
+        NavigableMap<Long, String> r = ring;
+        Map.Entry<Long, String> e = r.ceilingEntry(hash(quizCode));
+        return (e != null ? e : r.firstEntry()).getValue();
+    }
+
+    public boolean isLocal(String quizCode) {
+        return self.equals(ownerOf(quizCode));
+    }
+
+    /** True when the address belongs to one of the configured members. */
+    public boolean isPeerAddress(String address) {
+        return address != null && peerAddresses.contains(address);
+    }
+
+    /** True when the request was sent by another member rather than a client. */
+    public boolean fromPeer(String forwardedHeader, String remoteAddress) {
+        return enabled && forwardedHeader != null && isPeerAddress(remoteAddress);
+    }
+
+    /**
+     * Ask the other live members, one at a time, to hand over state they hold at the given path
+     * (POST, answered with 200 and the state, or 204 when the member holds none). Returns the first
+     * state received; members that fail to answer are skipped.
+     */
+    public <T> Optional<T> claim(String path, Class<T> type) {
+        if (!enabled) return Optional.empty();
+        for (String p : live) {
+            if (p.equals(self)) continue;
+            try {
+                HttpRequest req = HttpRequest.newBuilder(URI.create(p + path))
+                        .timeout(probeTimeout)
+                        .header(FORWARDED_HEADER, self)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+                HttpResponse<byte[]> res = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                if (res.statusCode() == 200) return Optional.of(objectMapper.readValue(res.body(), type));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            } catch (Exception e) {
+                System.err.println("[Cluster] claim " + path + " from " + p + " failed: " + e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Probe every peer and rebuild the ring if membership changed. */
+    @Scheduled(fixedDelayString = "${app.cluster.probe-interval-ms:2000}", initialDelay = 0)
+    public void probe() {
+        if (!enabled) return;
+        resolvePeers();
+        Map<String, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+        for (String p : peers) {
+            if (p.equals(self)) continue;
+            HttpRequest req = HttpRequest.newBuilder(URI.create(p + "/api/health")).timeout(probeTimeout).GET().build();
+            checks.put(p, http.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(res -> res.statusCode() / 100 == 2)
+                    .exceptionally(e -> false));
+        }
+        Set<String> next = new TreeSet<>();
+        next.add(self);
+        checks.forEach((p, f) -> {
+            if (f.join()) next.add(p);
+        });
+        update(next);
+    }
+
+    /** A forward to this peer failed; take it out of the ring until a probe sees it again. */
+    public void markDown(String peer) {
+        if (!enabled || self.equals(peer) || !live.contains(peer)) return;
+        Set<String> next = new TreeSet<>(live);
+        next.remove(peer);
+        update(next);
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("self", self);
+        out.put("peers", peers);
+        out.put("live", live);
+        out.put("virtualNodes", virtualNodes);
+        return out;
+    }
+
+    private synchronized void update(Set<String> next) {
+        if (next.equals(live)) return;
+        Set<String> before = live;
+        live = Set.copyOf(next);
+        ring = build(live);
+        System.out.println("[Cluster] members " + new TreeSet<>(before) + " -> " + new TreeSet<>(live));
+        for (Listener l : listeners) {
+            try {
+                l.onRingChanged();
+            } catch (RuntimeException e) {
+                System.err.println("[Cluster] ring listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void resolvePeers() {
+        Set<String> addresses = new HashSet<>();
+        for (String p : peers) {
+            try {
+                for (InetAddress a : InetAddress.getAllByName(URI.create(p).getHost())) addresses.add(a.getHostAddress());
+            } catch (Exception e) {
+                // unresolvable right now; kept out until a later probe resolves it
+            }
+        }
+        peerAddresses = Set.copyOf(addresses);
+    }
+
+    private NavigableMap<Long, String> build(Set<String> members) {
+        NavigableMap<Long, String> r = new TreeMap<>();
+        for (String m : members) {
+            for (int i = 0; i < virtualNodes; i++) r.put(hash(m + "#" + i), m);
+        }
+        return r;
+    }
+
+    /** FNV-1a with a murmur3 finalizer: cheap and spreads short, similar keys across the ring. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String normalize(String url) {
+        String u = url.trim();
+        while (u.endsWith("/")) u = u.substring(0, u.length() - 1);
+        return u;
+    }
+}
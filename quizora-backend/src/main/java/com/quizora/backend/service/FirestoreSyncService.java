@@ -1,35 +1,71 @@
 package com.quizora.backend.service;
 
-import com.google.firebase.FirebaseApp;
 import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
-import com.google.firebase.cloud.FirestoreClient;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.quizora.backend.config.FirebaseClients;
 import com.quizora.backend.model.Quiz;
 import com.quizora.backend.repository.QuizRepository;
-import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Mirrors Firestore quizzes into Postgres. The snapshot listener runs only on the elected leader so
+ * each Firestore change is upserted once per cluster, not once per instance.
+ */
 @Service
-public class FirestoreSyncService {
+public class FirestoreSyncService implements LeaderElection.Listener {
 
     private final QuizRepository quizRepository;
+    private final QuizCodeCache quizCodeCache;
+    private final QuizEntityCache quizEntityCache;
+    private final QuizPayloadCache quizPayloadCache;
+    private final CacheInvalidationBus cacheBus;
+    private final LeaderElection leaderElection;
+    private final FirebaseClients firebase;
+    private final QuizSearchIndex quizSearchIndex;
+    private ListenerRegistration registration;
+    private boolean waitingForFirebase;
 
-    public FirestoreSyncService(QuizRepository quizRepository) {
+    public FirestoreSyncService(QuizRepository quizRepository, QuizCodeCache quizCodeCache, QuizEntityCache quizEntityCache,
+                                QuizPayloadCache quizPayloadCache, CacheInvalidationBus cacheBus,
+                                LeaderElection leaderElection, FirebaseClients firebase,
+                                QuizSearchIndex quizSearchIndex) {
         this.quizRepository = quizRepository;
+        this.quizCodeCache = quizCodeCache;
+        this.quizEntityCache = quizEntityCache;
+        this.quizPayloadCache = quizPayloadCache;
+        this.cacheBus = cacheBus;
+        this.leaderElection = leaderElection;
+        this.firebase = firebase;
+        this.quizSearchIndex = quizSearchIndex;
     }
 
-    @PostConstruct
-    public void start() {
-        try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return; // Admin not initialized
-        } catch (IllegalStateException ignored) { return; }
+    // After startup: opening the Firestore stream should not hold up readiness
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        leaderElection.addListener(this);
+    }
+
+    @Override
+    public synchronized void onElected() {
+        if (registration != null) return;
+        if (!firebase.ready()) {
+            // Admin not initialized yet: start once a retry succeeds, if this node still leads then
+            if (firebase.enabled() && !waitingForFirebase) {
+                waitingForFirebase = true;
+                firebase.whenReady(this::firebaseReady);
+            }
+            return;
+        }
         try {
-            Firestore db = FirestoreClient.getFirestore();
-            db.collection("quizzes").addSnapshotListener((snapshots, e) -> {
-                if (e != null || snapshots == null) return;
+            Firestore db = firebase.firestore();
+            registration = db.collection("quizzes").addSnapshotListener((snapshots, e) -> {
+                if (e != null || snapshots == null || !leaderElection.isLeader()) return;
                 for (DocumentSnapshot doc : snapshots.getDocuments()) {
                     try { upsertQuizFromDoc(doc); } catch (Exception ignored) {}
                 }
@@ -40,6 +76,19 @@ public class FirestoreSyncService {
         }
     }
 
+    private synchronized void firebaseReady() {
+        waitingForFirebase = false;
+        if (leaderElection.isLeader()) onElected();
+    }
+
+    @Override
+    public synchronized void onRevoked() {
+        if (registration == null) return;
+        registration.remove();
+        registration = null;
+        System.out.println("[Sync] Firestore->Postgres quiz sync listener stopped");
+    }
+
     private void upsertQuizFromDoc(DocumentSnapshot doc) {
         if (doc == null || !doc.exists()) return;
         Map<String, Object> m = doc.getData();
@@ -61,7 +110,12 @@ public class FirestoreSyncService {
         if (sessionTimer != null) q.setSessionTimer(sessionTimer);
         if (creatorUid != null) q.setCreatorUid(creatorUid);
         if (creatorName != null) q.setCreatorName(creatorName);
-        quizRepository.save(q);
+        Quiz saved = quizRepository.save(q);
+        quizCodeCache.evict(quizCode);
+        quizEntityCache.evictQuiz(saved.getId());
+        quizPayloadCache.evict(quizCode);
+        quizSearchIndex.index(saved);
+        cacheBus.publish(CacheInvalidationBus.Change.QUIZ, quizCode, saved.getId());
     }
 
     private String asString(Object o) { return o != null ? o.toString() : null; }
@@ -0,0 +1,418 @@
+package com.quizora.backend.service;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.quizora.backend.config.FirebaseClients;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Global cross-quiz XP ranking held in memory.
+ *
+ * Users are spread over N shards by uid hash; each shard is an order-statistic treap ordered by
+ * (xp desc, uid asc) with subtree sizes and its own lock. "My rank" is 1 + the number of users
+ * with strictly more XP, summed over shards (O(shards * log n)); top-K merges each shard's first K.
+ *
+ * The index is fed by award events from {@link AwardLedgerService} and snapshotted to disk so a
+ * restart does not have to re-aggregate the ledger. Awards recorded on other instances arrive as
+ * XP changes on the {@link CacheInvalidationBus}; the user's total is then re-read from the ledger,
+ * and after a bus resync every total is. The snapshot records when it was taken; after loading
+ * it, users with ledger rows awarded since then (less app.ranking.catch-up-overlap-seconds, as
+ * awarded_at is stamped before commit) are re-read, which covers awards made while this node was down.
+ */
+@Service
+public class GlobalRankingService implements CacheInvalidationBus.Listener {
+
+    public record RankRow(int rank, String uid, long xp) {}
+
+    private static final int SNAPSHOT_MAGIC = 0x51475258; // "QGRX"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String USER_TOTAL_SQL = "SELECT coalesce(sum(xp), 0) FROM award_ledger WHERE uid = ?";
+    private static final String TOTALS_SINCE_SQL =
+            "SELECT uid, sum(xp) FROM award_ledger WHERE uid IN (SELECT uid FROM award_ledger WHERE awarded_at >= ?) GROUP BY uid";
+
+    private final Map<String, Long> xpByUid = new ConcurrentHashMap<>();
+    private final Shard[] shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final FirebaseClients firebase;
+    private final Path snapshotPath;
+    private final boolean seedFromFirestore;
+    private final long catchUpOverlapSeconds;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public GlobalRankingService(JdbcTemplate jdbcTemplate,
+                                FirebaseClients firebase,
+                                CacheInvalidationBus cacheBus,
+                                @Value("${app.ranking.shards:16}") int shardCount,
+                                @Value("${app.ranking.snapshot-path:data/global-ranking.bin}") String snapshotPath,
+                                @Value("${app.ranking.seed-from-firestore:true}") boolean seedFromFirestore,
+                                @Value("${app.ranking.catch-up-overlap-seconds:120}") long catchUpOverlapSeconds) {
+        int n = Math.max(1, shardCount);
+        this.shards = new Shard[n];
+        for (int i = 0; i < n; i++) shards[i] = new Shard();
+        this.jdbcTemplate = jdbcTemplate;
+        this.firebase = firebase;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.seedFromFirestore = seedFromFirestore;
+        this.catchUpOverlapSeconds = Math.max(0, catchUpOverlapSeconds);
+        cacheBus.addListener(this);
+    }
+
+    @PostConstruct
+    public void load() {
+        Instant takenAt = loadSnapshot();
+        if (takenAt != null) {
+            Thread t = new Thread(() -> catchUp(takenAt), "global-ranking-catch-up");
+            t.setDaemon(true);
+            t.start();
+            return;
+        }
+        Thread t = new Thread(this::seed, "global-ranking-seed");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Cold start when no snapshot exists: aggregate the award ledger, or Firestore before any import. */
+    private void seed() {
+        if (seedFromLedger() || !seedFromFirestore) return;
+        seedFromFirestore();
+    }
+
+    private boolean seedFromLedger() {
+        try {
+            int[] n = {0};
+            jdbcTemplate.query("SELECT uid, sum(xp) FROM award_ledger GROUP BY uid", rs -> {
+                String uid = rs.getString(1);
+                long xp = rs.getLong(2);
+                xpByUid.computeIfAbsent(uid, k -> {
+                    shardOf(k).move(k, null, xp);
+                    return xp;
+                });
+                n[0]++;
+            });
+            if (n[0] == 0) return false;
+            dirty.set(true);
+            System.out.println("[Ranking] seeded " + n[0] + " users from the award ledger");
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Ranking] ledger seed failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Re-read the totals of users awarded since the snapshot was taken. */
+    private void catchUp(Instant takenAt) {
+        try {
+            int[] n = {0};
+            jdbcTemplate.query(TOTALS_SINCE_SQL, rs -> {
+                setXp(rs.getString(1), rs.getLong(2));
+                n[0]++;
+            }, Timestamp.from(takenAt.minusSeconds(catchUpOverlapSeconds)));
+            if (n[0] > 0) System.out.println("[Ranking] caught up " + n[0] + " users awarded since the snapshot");
+        } catch (Exception e) {
+            System.err.println("[Ranking] snapshot catch-up failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushSnapshot();
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.XP) return;
+        for (CacheInvalidationBus.Key k : keys) {
+            Long total = jdbcTemplate.queryForObject(USER_TOTAL_SQL, Long.class, k.quizCode());
+            setXp(k.quizCode(), total != null ? total : 0L);
+        }
+    }
+
+    /** XP changes may have been missed: re-read every total from the ledger. */
+    @Override
+    public void onResync() {
+        try {
+            int[] n = {0};
+            jdbcTemplate.query("SELECT uid, sum(xp) FROM award_ledger GROUP BY uid", rs -> {
+                setXp(rs.getString(1), rs.getLong(2));
+                n[0]++;
+            });
+            System.out.println("[Ranking] resynced " + n[0] + " users from the award ledger");
+        } catch (Exception e) {
+            System.err.println("[Ranking] ledger resync failed: " + e.getMessage());
+        }
+    }
+
+    /** Apply an XP delta from an award. */
+    public void addXp(String uid, long delta) {
+        if (uid == null || uid.isBlank() || delta == 0) return;
+        xpByUid.compute(uid, (k, old) -> {
+            long next = (old != null ? old : 0L) + delta;
+            shardOf(k).move(k, old, next);
+            return next;
+        });
+        dirty.set(true);
+    }
+
+    /** Overwrite a user's total (e.g. after recomputing aggregates). */
+    public void setXp(String uid, long total) {
+        if (uid == null || uid.isBlank()) return;
+        xpByUid.compute(uid, (k, old) -> {
+            if (old != null && old == total) return old;
+            shardOf(k).move(k, old, total);
+            return total;
+        });
+        dirty.set(true);
+    }
+
+    public OptionalLong xpOf(String uid) {
+        Long xp = uid != null ? xpByUid.get(uid) : null;
+        return xp != null ? OptionalLong.of(xp) : OptionalLong.empty();
+    }
+
+    /** 1-based competition rank (ties share a rank), or empty when the user has no XP yet. */
+    public Optional<RankRow> rankOf(String uid) {
+        Long xp = uid != null ? xpByUid.get(uid) : null;
+        if (xp == null) return Optional.empty();
+        long greater = 0;
+        for (Shard s : shards) greater += s.countGreater(xp);
+        return Optional.of(new RankRow((int) Math.min(Integer.MAX_VALUE, greater + 1), uid, xp));
+    }
+
+    public List<RankRow> top(int k) {
+        int limit = Math.max(0, k);
+        if (limit == 0) return List.of();
+        PriorityQueue<Shard.Entry> heap = new PriorityQueue<>(Shard.ORDER);
+        for (Shard s : shards) heap.addAll(s.firstK(limit));
+        List<RankRow> rows = new ArrayList<>(limit);
+        int rank = 0;
+        long lastXp = Long.MIN_VALUE;
+        int pos = 0;
+        while (!heap.isEmpty() && rows.size() < limit) {
+            Shard.Entry e = heap.poll();
+            pos++;
+            if (e.xp() != lastXp) {
+                rank = pos;
+                lastXp = e.xp();
+            }
+            rows.add(new RankRow(rank, e.uid(), e.xp()));
+        }
+        return rows;
+    }
+
+    public int size() {
+        return xpByUid.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ranking.snapshot-interval-ms:60000}", initialDelayString = "${app.ranking.snapshot-interval-ms:60000}")
+    public void flushSnapshot() {
+        if (!dirty.getAndSet(false)) return;
+        try {
+            Path dir = snapshotPath.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            // Taken before the copy: awards applied during it are re-read on the next load at worst
+            long takenAt = System.currentTimeMillis();
+            Map<String, Long> copy = new HashMap<>(xpByUid);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(takenAt);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, Long> e : copy.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue());
+                }
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            System.err.println("[Ranking] snapshot write failed: " + e.getMessage());
+        }
+    }
+
+    /** Load the snapshot into the index; returns when it was taken, or null when there is none to use. */
+    private Instant loadSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                System.err.println("[Ranking] ignoring snapshot with unknown format: " + snapshotPath);
+                return null;
+            }
+            Instant takenAt = Instant.ofEpochMilli(in.readLong());
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String uid = in.readUTF();
+                long xp = in.readLong();
+                setXp(uid, xp);
+            }
+            dirty.set(false);
+            System.out.println("[Ranking] loaded " + n + " users from snapshot " + snapshotPath + " taken " + takenAt);
+            return takenAt;
+        } catch (IOException e) {
+            System.err.println("[Ranking] snapshot read failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Fallback seed before any ledger import: read totalXp from Firestore users. */
+    private void seedFromFirestore() {
+        if (!firebase.ready()) return;
+        try {
+            Firestore db = firebase.firestore();
+            var snap = db.collection("users").select("totalXp").get().get();
+            int n = 0;
+            for (QueryDocumentSnapshot d : snap.getDocuments()) {
+                Object oxp = d.get("totalXp");
+                if (oxp instanceof Number num) {
+                    // Do not clobber totals that award events already updated during the scan
+                    xpByUid.computeIfAbsent(d.getId(), k -> {
+                        shardOf(k).move(k, null, num.longValue());
+                        return num.longValue();
+                    });
+                    n++;
+                }
+            }
+            dirty.set(true);
+            System.out.println("[Ranking] seeded " + n + " users from Firestore");
+        } catch (Exception e) {
+            System.err.println("[Ranking] Firestore seed failed: " + e.getMessage());
+        }
+    }
+
+    private Shard shardOf(String uid) {
+        return shards[Math.floorMod(uid.hashCode(), shards.length)];
+    }
+
+    /** Order-statistic treap ordered by (xp desc, uid asc); all access under the shard's monitor. */
+    private static final class Shard {
+
+        record Entry(String uid, long xp) {}
+
+        static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::xp).reversed().thenComparing(Entry::uid);
+
+        private static final class Node {
+            final String uid;
+            final long xp;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            int size = 1;
+            Node left;
+            Node right;
+
+            Node(String uid, long xp) {
+                this.uid = uid;
+                this.xp = xp;
+            }
+        }
+
+        private Node root;
+
+        synchronized void move(String uid, Long oldXp, long newXp) {
+            if (oldXp != null) root = remove(root, uid, oldXp);
+            root = insert(root, new Node(uid, newXp));
+        }
+
+        synchronized long countGreater(long xp) {
+            long count = 0;
+            Node n = root;
+            while (n != null) {
+                if (n.xp > xp) {
+                    count += size(n.left) + 1;
+                    n = n.right;
+                } else {
+                    n = n.left;
+                }
+            }
+            return count;
+        }
+
+        synchronized List<Entry> firstK(int k) {
+            List<Entry> out = new ArrayList<>(Math.min(k, size(root)));
+            Deque<Node> stack = new ArrayDeque<>();
+            Node n = root;
+            while ((n != null || !stack.isEmpty()) && out.size() < k) {
+                while (n != null) {
+                    stack.push(n);
+                    n = n.left;
+                }
+                n = stack.pop();
+                out.add(new Entry(n.uid, n.xp));
+                n = n.right;
+            }
+            return out;
+        }
+
+        private static int compare(String uidA, long xpA, String uidB, long xpB) {
+            if (xpA != xpB) return xpA > xpB ? -1 : 1;
+            return uidA.compareTo(uidB);
+        }
+
+        private static int size(Node n) {
+            return n == null ? 0 : n.size;
+        }
+
+        private static Node update(Node n) {
+            n.size = 1 + size(n.left) + size(n.right);
+            return n;
+        }
+
+        private static Node insert(Node t, Node x) {
+            if (t == null) return x;
+            if (x.priority > t.priority) {
+                Node[] parts = split(t, x.uid, x.xp);
+                x.left = parts[0];
+                x.right = parts[1];
+                return update(x);
+            }
+            if (compare(x.uid, x.xp, t.uid, t.xp) < 0) t.left = insert(t.left, x);
+            else t.right = insert(t.right, x);
+            return update(t);
+        }
+
+        private static Node remove(Node t, String uid, long xp) {
+            if (t == null) return null;
+            int c = compare(uid, xp, t.uid, t.xp);
+            if (c == 0) return merge(t.left, t.right);
+            if (c < 0) t.left = remove(t.left, uid, xp);
+            else t.right = remove(t.right, uid, xp);
+            return update(t);
+        }
+
+        /** Split into (< key, >= key). */
+        private static Node[] split(Node t, String uid, long xp) {
+            if (t == null) return new Node[]{null, null};
+            if (compare(t.uid, t.xp, uid, xp) < 0) {
+                Node[] r = split(t.right, uid, xp);
+                t.right = r[0];
+                return new Node[]{update(t), r[1]};
+            }
+            Node[] l = split(t.left, uid, xp);
+            t.left = l[1];
+            return new Node[]{l[0], update(t)};
+        }
+
+        private static Node merge(Node a, Node b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                return update(a);
+            }
+            b.left = merge(a, b.left);
+            return update(b);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.quizora.backend.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal hashed-wheel timer (in the spirit of Netty's HashedWheelTimer).
+ *
+ * A single worker thread advances a ring of buckets once per tick and fires every timeout whose
+ * deadline has passed. Scheduling and cancelling are O(1) and lock-free for callers: new timeouts
+ * are handed to the worker through a concurrent queue, so hundreds of thousands of pending
+ * deadlines cost one small object each instead of one scheduled executor task each.
+ *
+ * Tasks run on the worker thread and must be short; hand longer work off to another executor.
+ */
+public class HashedWheelTimer {
+
+    public interface Timeout {
+        /** Returns true if this call prevented the task from running. */
+        boolean cancel();
+        boolean isExpired();
+        boolean isCancelled();
+    }
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration must be > 0");
+        if (ticksPerWheel <= 0) throw new IllegalArgumentException("ticksPerWheel must be > 0");
+        int size = 1;
+        while (size < ticksPerWheel) size <<= 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) throw new NullPointerException("task");
+        if (!running) throw new IllegalStateException("timer stopped");
+        long deadline = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        Entry e = new Entry(task, deadline);
+        pending.add(e);
+        return e;
+    }
+
+    /** Approximate number of timeouts waiting to fire (for diagnostics). */
+    public int pendingCount() {
+        int n = pending.size();
+        for (Bucket b : wheel) n += b.size;
+        return n;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ie) {
+                    if (!running) return;
+                    continue;
+                }
+            }
+            removeCancelled();
+            transferPending();
+            Bucket bucket = wheel[(int) (tick & mask)];
+            bucket.expire();
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        // Bound the work per tick so a scheduling burst cannot starve expiry
+        for (int i = 0; i < 100_000; i++) {
+            Entry e = pending.poll();
+            if (e == null) return;
+            if (e.state.get() == ST_CANCELLED) continue;
+            long calculated = e.deadline / tickNanos;
+            e.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick); // never schedule into the past
+            wheel[(int) (ticks & mask)].add(e);
+        }
+    }
+
+    private void removeCancelled() {
+        Entry e;
+        while ((e = cancelled.poll()) != null) {
+            if (e.bucket != null) e.bucket.remove(e);
+        }
+    }
+
+    private final class Entry implements Timeout {
+        final Runnable task;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(ST_INIT);
+        long remainingRounds;
+        Bucket bucket;
+        Entry prev;
+        Entry next;
+
+        Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) return false;
+            cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isExpired() { return state.get() == ST_EXPIRED; }
+
+        @Override
+        public boolean isCancelled() { return state.get() == ST_CANCELLED; }
+
+        void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) return;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("[Timer] Task failed: " + t.getMessage());
+            }
+        }
+    }
+
+    /** Doubly linked list of entries; only touched by the worker thread. */
+    private static final class Bucket {
+        Entry head;
+        Entry tail;
+        int size;
+
+        void add(Entry e) {
+            e.bucket = this;
+            if (head == null) {
+                head = tail = e;
+            } else {
+                tail.next = e;
+                e.prev = tail;
+                tail = e;
+            }
+            size++;
+        }
+
+        void expire() {
+            Entry e = head;
+            while (e != null) {
+                Entry next = e.next;
+                if (e.remainingRounds <= 0) {
+                    remove(e);
+                    e.expire();
+                } else if (e.isCancelled()) {
+                    remove(e);
+                } else {
+                    e.remainingRounds--;
+                }
+                e = next;
+            }
+        }
+
+        void remove(Entry e) {
+            if (e.bucket != this) return;
+            if (e.prev != null) e.prev.next = e.next; else head = e.next;
+            if (e.next != null) e.next.prev = e.prev; else tail = e.prev;
+            e.prev = e.next = null;
+            e.bucket = null;
+            size--;
+        }
+    }
+}
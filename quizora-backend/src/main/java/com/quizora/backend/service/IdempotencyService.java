@@ -0,0 +1,223 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Submission;
+import com.quizora.backend.model.SubmitReceipt;
+import com.quizora.backend.repository.SubmissionRepository;
+import com.quizora.backend.repository.SubmitReceiptRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Duplicate suppression for POST /api/quizzes/submit keyed by the client's Idempotency-Key header.
+ *
+ * Lookups go to a bounded, time-expiring in-memory map first; in-flight duplicates wait for the
+ * original request instead of running the submit again. On a miss (restart, another instance)
+ * the persisted submit_receipts row is consulted, and its unique key settles races across nodes.
+ * A replay returns the original submission without touching the leaderboard or XP awards again.
+ *
+ * The stored key is a SHA-256 of quizCode|name|key, so it always fits the column, and each key is
+ * bound to a hash of the answers it was first sent with: reusing it for different answers is a
+ * client bug and gets 422 instead of the first response.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private static final class Slot {
+        final String requestHash;
+        final CompletableFuture<Long> submissionId = new CompletableFuture<>();
+
+        Slot(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    private final QuizService quizService;
+    private final SubmissionRepository submissionRepository;
+    private final QuizCodeCache quizCodeCache;
+    private final SubmitReceiptRepository receiptRepository;
+    private final HashedWheelTimer timer;
+    private final LeaderElection leaderElection;
+    private final Map<String, Slot> recent = new ConcurrentHashMap<>();
+    private final Queue<Map.Entry<String, Slot>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long ttlSeconds;
+    private final long waitMillis;
+    private final long retentionHours;
+
+    public IdempotencyService(QuizService quizService,
+                              SubmissionRepository submissionRepository,
+                              QuizCodeCache quizCodeCache,
+                              SubmitReceiptRepository receiptRepository,
+                              HashedWheelTimer roomTimer,
+                              LeaderElection leaderElection,
+                              @Value("${app.idempotency.max-entries:20000}") int maxEntries,
+                              @Value("${app.idempotency.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${app.idempotency.wait-millis:10000}") long waitMillis,
+                              @Value("${app.idempotency.retention-hours:48}") long retentionHours) {
+        this.quizService = quizService;
+        this.submissionRepository = submissionRepository;
+        this.quizCodeCache = quizCodeCache;
+        this.receiptRepository = receiptRepository;
+        this.timer = roomTimer;
+        this.leaderElection = leaderElection;
+        this.maxEntries = Math.max(100, maxEntries);
+        this.ttlSeconds = Math.max(1, ttlSeconds);
+        this.waitMillis = Math.max(0, waitMillis);
+        this.retentionHours = Math.max(1, retentionHours);
+    }
+
+    public Optional<Submission> submit(String idempotencyKey, String quizCode, String participantName,
+                                       List<QuizService.AnswerDTO> answers, String uid) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return quizService.submitAnswers(quizCode, participantName, answers, uid, null);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " is too long");
+        }
+        // Scope by room and participant so keys from different players can never collide
+        String key = sha256(quizCode + '|' + participantName + '|' + idempotencyKey.trim());
+        String requestHash = requestHash(answers);
+
+        Slot mine = new Slot(requestHash);
+        Slot existing = recent.putIfAbsent(key, mine);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash, requestHash);
+            return replay(quizCode, existing);
+        }
+        track(key, mine);
+
+        try {
+            Optional<SubmitReceipt> receipt = receiptRepository.findByIdempotencyKey(key);
+            if (receipt.isPresent()) {
+                checkSameRequest(receipt.get().getRequestHash(), requestHash);
+                Long id = receipt.get().getSubmissionId();
+                mine.submissionId.complete(id);
+                return load(quizCode, id);
+            }
+            SubmitReceipt fresh = new SubmitReceipt();
+            fresh.setIdempotencyKey(key);
+            fresh.setRequestHash(requestHash);
+            Optional<Submission> sub;
+            try {
+                sub = quizService.submitAnswers(quizCode, participantName, answers, uid, fresh);
+            } catch (DataIntegrityViolationException dup) {
+                // Same key committed concurrently (another instance); answer with its result
+                SubmitReceipt other = receiptRepository.findByIdempotencyKey(key).orElseThrow(() -> dup);
+                checkSameRequest(other.getRequestHash(), requestHash);
+                Long id = other.getSubmissionId();
+                mine.submissionId.complete(id);
+                return load(quizCode, id);
+            }
+            if (sub.isEmpty()) {
+                recent.remove(key, mine);
+                mine.submissionId.complete(null);
+                return Optional.empty();
+            }
+            mine.submissionId.complete(sub.get().getId());
+            return sub;
+        } catch (RuntimeException e) {
+            // Failed attempts are not remembered: a retry should run the submit again
+            recent.remove(key, mine);
+            mine.submissionId.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Optional<Submission> replay(String quizCode, Slot slot) {
+        Long id;
+        try {
+            id = slot.submissionId.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Original request is still in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+        return id == null ? Optional.empty() : load(quizCode, id);
+    }
+
+    private static void checkSameRequest(String original, String current) {
+        // Receipts from before payload binding carry no hash and are taken as matching
+        if (original != null && !original.equals(current)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used with a different request");
+        }
+    }
+
+    /** Answers in the order sent; a retry of the same request sends the same body. */
+    private static String requestHash(List<QuizService.AnswerDTO> answers) {
+        StringBuilder sb = new StringBuilder();
+        if (answers != null) {
+            for (QuizService.AnswerDTO a : answers) {
+                if (a == null) continue;
+                sb.append(a.questionId).append(':').append(a.selected).append(';');
+            }
+        }
+        return sha256(sb.toString());
+    }
+
+    private static String sha256(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** By quiz_id and id, so the lookup is pruned to the quiz's partition. */
+    private Optional<Submission> load(String quizCode, Long submissionId) {
+        return quizCodeCache.resolve(quizCode)
+                .flatMap(ref -> submissionRepository.findWithParticipantById(ref.id(), submissionId));
+    }
+
+    private void track(String key, Slot slot) {
+        insertionOrder.add(new AbstractMap.SimpleImmutableEntry<>(key, slot));
+        timer.schedule(() -> recent.remove(key, slot), ttlSeconds, TimeUnit.SECONDS);
+        // Size bound: drop the oldest entries first (the persisted receipt still answers them)
+        while (recent.size() > maxEntries) {
+            Map.Entry<String, Slot> oldest = insertionOrder.poll();
+            if (oldest == null) break;
+            recent.remove(oldest.getKey(), oldest.getValue());
+        }
+        // Keep the order queue from outgrowing the map when entries expire by TTL
+        while (insertionOrder.size() > maxEntries * 2) {
+            Map.Entry<String, Slot> stale = insertionOrder.poll();
+            if (stale == null) break;
+            recent.remove(stale.getKey(), stale.getValue());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}", initialDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredReceipts() {
+        if (!leaderElection.isLeader()) return;
+        try {
+            int n = receiptRepository.deleteOlderThan(Instant.now().minusSeconds(retentionHours * 3600));
+            if (n > 0) System.out.println("[Idempotency] purged " + n + " expired submit receipts");
+        } catch (Exception e) {
+            System.err.println("[Idempotency] receipt purge failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.quizora.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Picks one instance to run cluster-wide singleton work (the Firestore sync listener, scheduled
+ * maintenance jobs) using a Postgres session advisory lock.
+ *
+ * Each instance keeps a dedicated connection and tries pg_try_advisory_lock every
+ * app.leader.renew-interval-ms; whoever holds it is leader for as long as that session lives. The
+ * leader renews its lease with a round trip on the same connection; if a renewal fails, or none has
+ * succeeded within app.leader.lease-ms (network trouble, a long GC pause), it steps down and
+ * reconnects. The server side drops a dead leader's session via TCP keepalives set a little longer
+ * than the lease, so the lock is only free again after the old leader has already stopped.
+ *
+ * One-off admin tasks use {@link #runExclusive}, a per-task lock that any instance may take.
+ */
+@Service
+public class LeaderElection {
+
+    public interface Listener {
+        /** This instance became leader; start singleton work. */
+        void onElected();
+
+        /** Leadership was lost or given up; stop singleton work. */
+        void onRevoked();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final boolean enabled;
+    private final int lockNamespace;
+    private final long renewIntervalMillis;
+    private final long leaseMillis;
+    private volatile boolean running = true;
+    private volatile boolean leader;
+    private volatile long lastRenewed;
+    private volatile Connection lockConnection;
+
+    public LeaderElection(JdbcTemplate jdbcTemplate,
+                          DataSourceProperties dataSourceProperties,
+                          @Value("${app.leader.enabled:true}") boolean enabled,
+                          @Value("${app.leader.lock-namespace:51554c44}") String lockNamespaceHex,
+                          @Value("${app.leader.renew-interval-ms:2000}") long renewIntervalMillis,
+                          @Value("${app.leader.lease-ms:10000}") long leaseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.lockNamespace = Integer.parseUnsignedInt(lockNamespaceHex, 16);
+        this.renewIntervalMillis = Math.max(100, renewIntervalMillis);
+        this.leaseMillis = Math.max(3 * this.renewIntervalMillis, leaseMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            // Single-instance deployments: always leader, no lock
+            leader = true;
+            return;
+        }
+        Thread t = new Thread(this::electionLoop, "leader-election");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        // Closing the session releases the lock so another instance takes over right away
+        closeQuietly(lockConnection);
+        stepDown("shutting down");
+    }
+
+    /** Register for leadership changes; called immediately if this instance is already leader. */
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+        if (leader) safely(listener::onElected);
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Run a task unless another instance is running the same task. Returns empty if it is.
+     * The lock is held on a pooled connection for the task's duration.
+     */
+    public <T> Optional<T> runExclusive(String task, Supplier<T> work) {
+        if (!enabled) return Optional.ofNullable(work.get());
+        return jdbcTemplate.execute((ConnectionCallback<Optional<T>>) c -> {
+            if (!advisory(c, "SELECT pg_try_advisory_lock(?, hashtext(?))", task)) return Optional.empty();
+            try {
+                return Optional.ofNullable(work.get());
+            } finally {
+                advisory(c, "SELECT pg_advisory_unlock(?, hashtext(?))", task);
+            }
+        });
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("leader", leader);
+        out.put("lastRenewed", lastRenewed > 0 ? Instant.ofEpochMilli(lastRenewed) : null);
+        out.put("leaseMillis", leaseMillis);
+        return out;
+    }
+
+    private void electionLoop() {
+        while (running) {
+            try (Connection c = connect()) {
+                lockConnection = c;
+                while (running) {
+                    if (!leader) {
+                        if (advisory(c, "SELECT pg_try_advisory_lock(?, 0)", null)) elect();
+                    } else {
+                        try (Statement st = c.createStatement()) {
+                            st.execute("SELECT 1");
+                        }
+                        long now = System.currentTimeMillis();
+                        if (now - lastRenewed > leaseMillis) {
+                            // The round trip succeeded but too late; another instance may already hold the lock
+                            stepDown("lease expired before renewal");
+                            break;
+                        }
+                        lastRenewed = now;
+                    }
+                    Thread.sleep(renewIntervalMillis);
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                System.err.println("[Leader] lock connection lost: " + e.getMessage());
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lockConnection = null;
+                stepDown("lock connection closed");
+            }
+            try {
+                Thread.sleep(renewIntervalMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties props = new Properties();
+        if (dataSourceProperties.determineUsername() != null) props.setProperty("user", dataSourceProperties.determineUsername());
+        if (dataSourceProperties.determinePassword() != null) props.setProperty("password", dataSourceProperties.determinePassword());
+        long leaseSeconds = Math.max(1, leaseMillis / 1000);
+        // A renewal that cannot finish within the lease counts as lost
+        props.setProperty("socketTimeout", String.valueOf(leaseSeconds));
+        props.setProperty("tcpKeepAlive", "true");
+        Connection c = DriverManager.getConnection(dataSourceProperties.determineUrl(), props);
+        try (Statement st = c.createStatement()) {
+            // Server notices a vanished leader about 3s after its lease would have run out
+            st.execute("SET tcp_keepalives_idle = " + leaseSeconds);
+            st.execute("SET tcp_keepalives_interval = 1");
+            st.execute("SET tcp_keepalives_count = 3");
+        } catch (SQLException e) {
+            closeQuietly(c);
+            throw e;
+        }
+        return c;
+    }
+
+    private boolean advisory(Connection c, String sql, String task) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setInt(1, lockNamespace);
+            if (task != null) ps.setString(2, task);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private synchronized void elect() {
+        lastRenewed = System.currentTimeMillis();
+        leader = true;
+        System.out.println("[Leader] elected");
+        for (Listener l : listeners) safely(l::onElected);
+    }
+
+    private synchronized void stepDown(String reason) {
+        if (!leader || !enabled) return;
+        leader = false;
+        System.out.println("[Leader] stepped down: " + reason);
+        for (Listener l : listeners) safely(l::onRevoked);
+    }
+
+    private static void safely(Runnable r) {
+        try {
+            r.run();
+        } catch (RuntimeException e) {
+            System.err.println("[Leader] listener failed: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            if (c != null) c.close();
+        } catch (SQLException ignored) {}
+    }
+}
@@ -1,24 +1,54 @@
 package com.quizora.backend.service;
 
-import com.google.firebase.FirebaseApp;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.quizora.backend.config.FirebaseClients;
 import org.springframework.beans.factory.annotation.Value;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
-import com.google.firebase.cloud.FirestoreClient;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 public class LeaderboardService {
+    private final FirebaseClients firebase;
+
     @Value("${app.firebase.database-url:}")
     private String rtdbUrl;
+
+    // Firestore allows at most 500 writes per batch
+    @Value("${app.leaderboard.clear-batch-size:400}")
+    private int clearBatchSize;
+
+    private final ExecutorService cleaner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "leaderboard-cleanup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LeaderboardService(FirebaseClients firebase) {
+        this.firebase = firebase;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdown();
+    }
+
     public void updateScore(String quizCode, String username, int score, int durationSeconds, String uid) {
-        try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return; // Admin not initialized
-        } catch (IllegalStateException ignored) { return; }
+        if (!firebase.ready()) return; // Admin not initialized
 
         // Optional: push to Realtime Database (legacy). Only if a valid URL is configured.
         try {
@@ -34,7 +64,7 @@ public class LeaderboardService {
 
         // Firestore mirror for realtime leaderboard reads
         try {
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             Map<String, Object> data = new HashMap<>();
             data.put("name", username);
             data.put("score", score);
@@ -47,4 +77,58 @@ public class LeaderboardService {
                     .set(data);
         } catch (Throwable ignored) {}
     }
+
+    /**
+     * Remove the mirrored leaderboards of deleted quizzes. Runs in the background once the delete
+     * commits; entries are removed in batched writes, then the leaderboards/{code} doc itself.
+     */
+    public void clearAsync(Collection<String> quizCodes) {
+        if (quizCodes.isEmpty()) return;
+        List<String> codes = List.copyOf(quizCodes);
+        afterCommit(() -> cleaner.submit(() -> codes.forEach(this::clear)));
+    }
+
+    private void clear(String quizCode) {
+        if (!firebase.ready()) return; // Admin not initialized
+
+        try {
+            if (rtdbUrl != null && !rtdbUrl.isBlank()) {
+                FirebaseDatabase.getInstance().getReference("leaderboards").child(quizCode).removeValueAsync();
+            }
+        } catch (Throwable ignored) {}
+
+        try {
+            Firestore db = firebase.firestore();
+            DocumentReference board = db.collection("leaderboards").document(quizCode);
+            int limit = Math.max(1, Math.min(500, clearBatchSize));
+            int deleted = 0;
+            while (true) {
+                // Only document names are needed to delete
+                List<QueryDocumentSnapshot> page = board.collection("entries")
+                        .select(FieldPath.documentId()).limit(limit).get().get().getDocuments();
+                if (page.isEmpty()) break;
+                WriteBatch batch = db.batch();
+                for (QueryDocumentSnapshot d : page) batch.delete(d.getReference());
+                batch.commit().get();
+                deleted += page.size();
+            }
+            board.delete().get();
+            if (deleted > 0) System.out.println("[Leaderboard] cleared " + deleted + " entries for " + quizCode);
+        } catch (Exception e) {
+            System.err.println("[Leaderboard] clear failed for " + quizCode + ": " + e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
 }
@@ -0,0 +1,597 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Question;
+import com.quizora.backend.model.Quiz;
+import com.quizora.backend.repository.ParticipantRepository;
+import com.quizora.backend.repository.QuizRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Host-paced ("live") quiz rooms.
+ *
+ * The host opens one question at a time; every player answers it within Question.timer seconds.
+ * Answers are aggregated with striped counters (LongAdder per option, ConcurrentHashMap for
+ * per-player state), so a burst of thousands of answers in the final second never serializes on
+ * a room lock. When the window closes (host reveal or wheel-timer deadline) the option counts,
+ * the correct answer and the current standings are broadcast to all subscribers over SSE.
+ *
+ * Rooms live in memory only. When the host ends the game, QuizService saves the final standings
+ * through the regular submit path (submission, standings board, leaderboard mirror, XP awards) and
+ * only then closes the room. A room the host abandons is dropped after app.live.idle-minutes
+ * without host or player activity, and its SSE subscribers are completed with it.
+ *
+ * Ties on score go to the lower total response time. A question a player did not answer counts
+ * as its full timer, so skipping never beats answering.
+ *
+ * In cluster mode a room is served by its owner on the {@link ClusterRing}. When the ring changes,
+ * the first request for a room on its new owner claims the room from the member that held it: the
+ * state (roster, scores, the open question and its counts) is copied over, the old member drops the
+ * room and sends its subscribers a "moved" event before completing their streams, so they
+ * reconnect to the new owner.
+ */
+@Service
+public class LiveQuizService implements ClusterRing.Listener {
+
+    private static final String[] OPTIONS = {"A", "B", "C", "D"};
+
+    public record LiveQuestion(Long id, String questionText, String optionA, String optionB,
+                               String optionC, String optionD, String correctAnswer, int marks, int timerSeconds) {}
+
+    public record QuestionView(int index, int total, Long questionId, String questionText,
+                               String optionA, String optionB, String optionC, String optionD,
+                               long deadlineEpochMs, int timerSeconds) {}
+
+    public record StandingRow(String name, int score, int correct, long responseMillis, int rank) {}
+
+    public record RevealView(int index, Long questionId, String correctAnswer, Map<String, Long> counts,
+                             long answered, List<StandingRow> top) {}
+
+    public record StateView(String quizCode, String status, int playerCount, QuestionView question) {}
+
+    public record AnswerResult(boolean accepted, String reason) {}
+
+    public record FinalStandings(Long quizId, int totalQuestions, List<StandingRow> rows) {}
+
+    /** A room as handed from its previous owner to the new one; subscribers and timers stay behind. */
+    public record RoomSnapshot(String quizCode, Long quizId, String hostUid, List<LiveQuestion> questions,
+                               List<String> roster, List<PlayerSnapshot> scores, RoundSnapshot current,
+                               long revealedMillis, boolean ended) {}
+
+    public record PlayerSnapshot(String name, long score, long correct, long responseMillis) {}
+
+    public record RoundSnapshot(int index, long openedAtMs, long deadlineMs, List<Long> counts,
+                                List<String> answeredBy, boolean open) {}
+
+    private static final class PlayerScore {
+        final LongAdder score = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final LongAdder responseMillis = new LongAdder();
+    }
+
+    private static final class QuestionRound {
+        static final int CLOSED = 1 << 30;
+
+        final int index;
+        final LiveQuestion question;
+        final long openedAtMs;
+        final long deadlineMs;
+        final LongAdder[] counts = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+        final LongAdder answered = new LongAdder();
+        final Map<String, Boolean> answeredBy = new ConcurrentHashMap<>();
+        // CLOSED bit once revealed; the low bits count answers being recorded right now
+        final AtomicInteger state = new AtomicInteger(0);
+        volatile HashedWheelTimer.Timeout timeout;
+
+        QuestionRound(int index, LiveQuestion question, long openedAtMs, long deadlineMs) {
+            this.index = index;
+            this.question = question;
+            this.openedAtMs = openedAtMs;
+            this.deadlineMs = deadlineMs;
+        }
+
+        boolean isOpen() { return (state.get() & CLOSED) == 0; }
+
+        /** Register an answer in flight; false once the round has closed. */
+        boolean enter() {
+            while (true) {
+                int s = state.get();
+                if ((s & CLOSED) != 0) return false;
+                if (state.compareAndSet(s, s + 1)) return true;
+            }
+        }
+
+        void exit() {
+            state.decrementAndGet();
+        }
+
+        /**
+         * Close the round to new answers and wait for the ones in flight, so the reveal sees every
+         * accepted answer and no answer is accepted after it. Only the first caller gets true.
+         */
+        boolean close() {
+            while (true) {
+                int s = state.get();
+                if ((s & CLOSED) != 0) return false;
+                if (state.compareAndSet(s, s | CLOSED)) break;
+            }
+            while (state.get() != CLOSED) Thread.onSpinWait();
+            return true;
+        }
+    }
+
+    private static final class LiveRoom {
+        final String quizCode;
+        final Long quizId;
+        final String hostUid;
+        final List<LiveQuestion> questions;
+        final Instant startedAt = Instant.now();
+        final Set<String> roster = ConcurrentHashMap.newKeySet();
+        final Map<String, PlayerScore> scores = new ConcurrentHashMap<>();
+        final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        final AtomicReference<QuestionRound> current = new AtomicReference<>();
+        // Sum of the timers of revealed questions: what a player who answered none of them is charged
+        final LongAdder revealedMillis = new LongAdder();
+        final AtomicBoolean ending = new AtomicBoolean();
+        volatile boolean ended;
+        volatile long lastActivityNanos = System.nanoTime();
+
+        LiveRoom(String quizCode, Long quizId, String hostUid, List<LiveQuestion> questions) {
+            this.quizCode = quizCode;
+            this.quizId = quizId;
+            this.hostUid = hostUid;
+            this.questions = questions;
+        }
+    }
+
+    private final QuizRepository quizRepository;
+    private final ParticipantRepository participantRepository;
+    private final HashedWheelTimer timer;
+    private final ClusterRing clusterRing;
+    private final Map<String, LiveRoom> rooms = new ConcurrentHashMap<>();
+    // Rooms already claimed from peers (or found on none) since the last ring change
+    private final Map<String, CompletableFuture<Void>> claims = new ConcurrentHashMap<>();
+    // Single thread keeps question/reveal events in order for every subscriber
+    private final ExecutorService broadcaster = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "live-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
+    private final int defaultQuestionSeconds;
+    private final long answerGraceMillis;
+    private final int revealTopN;
+    private final long idleNanos;
+
+    public LiveQuizService(QuizRepository quizRepository,
+                           ParticipantRepository participantRepository,
+                           HashedWheelTimer roomTimer,
+                           ClusterRing clusterRing,
+                           @Value("${app.live.default-question-seconds:20}") int defaultQuestionSeconds,
+                           @Value("${app.live.answer-grace-millis:750}") long answerGraceMillis,
+                           @Value("${app.live.reveal-top:10}") int revealTopN,
+                           @Value("${app.live.idle-minutes:120}") long idleMinutes) {
+        this.quizRepository = quizRepository;
+        this.participantRepository = participantRepository;
+        this.timer = roomTimer;
+        this.clusterRing = clusterRing;
+        this.defaultQuestionSeconds = Math.max(1, defaultQuestionSeconds);
+        this.answerGraceMillis = Math.max(0, answerGraceMillis);
+        this.revealTopN = Math.max(1, revealTopN);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(Math.max(1, idleMinutes));
+        clusterRing.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.shutdownNow();
+    }
+
+    /** Open a live room for the quiz. Only the quiz creator may host when the creator is known. */
+    @Transactional(readOnly = true)
+    public StateView start(String quizCode, String uid) {
+        Quiz quiz = quizRepository.findByQuizCode(quizCode)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid quiz code"));
+        checkHost(quiz.getCreatorUid(), uid);
+        List<LiveQuestion> questions = new ArrayList<>();
+        for (Question q : quiz.getQuestions()) {
+            int marks = q.getMarks() != null ? q.getMarks() : 1;
+            int secs = q.getTimer() != null && q.getTimer() > 0 ? q.getTimer() : defaultQuestionSeconds;
+            questions.add(new LiveQuestion(q.getId(), q.getQuestionText(), q.getOptionA(), q.getOptionB(),
+                    q.getOptionC(), q.getOptionD(), q.getCorrectAnswer(), marks, secs));
+        }
+        if (questions.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quiz has no questions");
+        }
+        LiveRoom room = new LiveRoom(quizCode, quiz.getId(), uid, List.copyOf(questions));
+        participantRepository.findByQuizId(quiz.getId()).forEach(p -> room.roster.add(p.getName()));
+        room(quizCode); // a room still running on the previous owner counts as running
+        LiveRoom existing = rooms.putIfAbsent(quizCode, room);
+        // An ended room may be replaced, but only the one this call saw
+        if (existing != null && (!existing.ended || !rooms.replace(quizCode, existing, room))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Live session already running");
+        }
+        scheduleExpiry(room, idleNanos);
+        System.out.println("[Live] room started quizCode=" + quizCode + ", questions=" + questions.size() + ", roster=" + room.roster.size());
+        return state(quizCode);
+    }
+
+    /** Called from /join so players who arrive after the host started can answer. */
+    public void playerJoined(String quizCode, String name) {
+        LiveRoom room = rooms.get(quizCode);
+        if (room != null && name != null) {
+            room.roster.add(name);
+            room.lastActivityNanos = System.nanoTime();
+        }
+    }
+
+    public boolean isLive(String quizCode) {
+        LiveRoom room = rooms.get(quizCode);
+        return room != null && !room.ended;
+    }
+
+    /** Host advances to the next question; the previous one is revealed first if still open. */
+    public QuestionView next(String quizCode, String uid) {
+        LiveRoom room = requireRoom(quizCode);
+        checkHost(room.hostUid, uid);
+        if (room.ended) throw new ResponseStatusException(HttpStatus.CONFLICT, "Live session has ended");
+        room.lastActivityNanos = System.nanoTime();
+        QuestionRound prev = room.current.get();
+        if (prev != null) reveal(room, prev);
+        int nextIndex = prev == null ? 0 : prev.index + 1;
+        if (nextIndex >= room.questions.size()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "No more questions");
+        }
+        LiveQuestion q = room.questions.get(nextIndex);
+        long now = System.currentTimeMillis();
+        QuestionRound round = new QuestionRound(nextIndex, q, now, now + q.timerSeconds() * 1000L);
+        if (!room.current.compareAndSet(prev, round)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Question already advanced");
+        }
+        round.timeout = timer.schedule(() -> broadcaster.execute(() -> reveal(room, round)),
+                q.timerSeconds() * 1000L + answerGraceMillis, TimeUnit.MILLISECONDS);
+        QuestionView view = view(room, round);
+        broadcast(room, "question", view);
+        return view;
+    }
+
+    /** Host closes the current question early and broadcasts the reveal. */
+    public RevealView revealNow(String quizCode, String uid) {
+        LiveRoom room = requireRoom(quizCode);
+        checkHost(room.hostUid, uid);
+        QuestionRound round = room.current.get();
+        if (round == null) throw new ResponseStatusException(HttpStatus.CONFLICT, "No question is open");
+        RevealView rv = reveal(room, round);
+        return rv != null ? rv : revealView(room, round);
+    }
+
+    /**
+     * Hot path: record one player's answer for the open question.
+     * Lock-free apart from ConcurrentHashMap bin updates; duplicate and late answers are rejected.
+     * Acceptance and reveal exclude each other through the round's state: an answer is recorded
+     * entirely before the reveal counts it, or rejected as closed.
+     */
+    public AnswerResult answer(String quizCode, String name, Long questionId, String selected) {
+        long now = System.currentTimeMillis();
+        LiveRoom room = room(quizCode);
+        if (room == null || room.ended) return new AnswerResult(false, "not_live");
+        if (name == null || name.isBlank()) return new AnswerResult(false, "name_required");
+        if (!room.roster.contains(name)) return new AnswerResult(false, "not_joined");
+        QuestionRound round = room.current.get();
+        if (round == null || !round.isOpen()) return new AnswerResult(false, "closed");
+        if (questionId != null && !questionId.equals(round.question.id())) return new AnswerResult(false, "stale_question");
+        if (now > round.deadlineMs + answerGraceMillis) return new AnswerResult(false, "closed");
+        int opt = optionIndex(selected);
+        if (opt < 0) return new AnswerResult(false, "invalid_option");
+        if (!round.enter()) return new AnswerResult(false, "closed");
+        try {
+            if (round.answeredBy.putIfAbsent(name, Boolean.TRUE) != null) return new AnswerResult(false, "duplicate");
+            record(room, round, name, opt, now);
+        } finally {
+            round.exit();
+        }
+        return new AnswerResult(true, null);
+    }
+
+    private void record(LiveRoom room, QuestionRound round, String name, int opt, long now) {
+        round.counts[opt].increment();
+        round.answered.increment();
+        room.lastActivityNanos = System.nanoTime();
+        PlayerScore ps = room.scores.computeIfAbsent(name, k -> {
+            // First answer of the game: earlier questions were skipped and cost their full timer
+            PlayerScore fresh = new PlayerScore();
+            fresh.responseMillis.add(room.revealedMillis.sum());
+            return fresh;
+        });
+        ps.responseMillis.add(Math.max(0, Math.min(now, round.deadlineMs) - round.openedAtMs));
+        if (OPTIONS[opt].equalsIgnoreCase(round.question.correctAnswer())) {
+            ps.correct.increment();
+            ps.score.add(round.question.marks());
+        }
+    }
+
+    public SseEmitter subscribe(String quizCode) {
+        LiveRoom room = requireRoom(quizCode);
+        SseEmitter emitter = new SseEmitter(0L);
+        room.subscribers.add(emitter);
+        emitter.onCompletion(() -> room.subscribers.remove(emitter));
+        emitter.onTimeout(() -> room.subscribers.remove(emitter));
+        emitter.onError(e -> room.subscribers.remove(emitter));
+        try {
+            emitter.send(SseEmitter.event().name("state").data(state(quizCode)));
+        } catch (IOException e) {
+            room.subscribers.remove(emitter);
+        }
+        return emitter;
+    }
+
+    public StateView state(String quizCode) {
+        return state(requireRoom(quizCode));
+    }
+
+    private StateView state(LiveRoom room) {
+        String quizCode = room.quizCode;
+        QuestionRound round = room.current.get();
+        String status = room.ended ? "ended" : round == null ? "lobby" : round.isOpen() ? "question" : "reveal";
+        return new StateView(quizCode, status, room.roster.size(), round != null && round.isOpen() ? view(room, round) : null);
+    }
+
+    /**
+     * Host ends the game: the open question is revealed and no more answers are taken. The caller
+     * saves the returned standings and then calls {@link #closed} (or {@link #endFailed} so the
+     * host can retry).
+     */
+    public FinalStandings end(String quizCode, String uid) {
+        LiveRoom room = requireRoom(quizCode);
+        checkHost(room.hostUid, uid);
+        if (!room.ending.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Live session is already ending");
+        }
+        QuestionRound round = room.current.get();
+        if (round != null) reveal(room, round);
+        room.ended = true;
+        return new FinalStandings(room.quizId, room.questions.size(), standings(room, Integer.MAX_VALUE));
+    }
+
+    /** The final standings are saved: subscribers get the "ended" event and the room is dropped. */
+    public void closed(String quizCode, List<StandingRow> standings) {
+        LiveRoom room = rooms.get(quizCode);
+        if (room == null || !room.ended) return;
+        broadcast(room, "ended", standings);
+        close(room);
+        System.out.println("[Live] room ended quizCode=" + quizCode + ", players=" + standings.size());
+    }
+
+    /** Saving the standings failed; the room stays ended and the host may end it again. */
+    public void endFailed(String quizCode) {
+        LiveRoom room = rooms.get(quizCode);
+        if (room != null) room.ending.set(false);
+    }
+
+    /**
+     * Give the room up to the member that now owns it. Returns null when this node holds no such room
+     * or the host is ending it right now (the claim is then retried after the next ring change).
+     */
+    public RoomSnapshot release(String quizCode) {
+        LiveRoom room = rooms.get(quizCode);
+        // Taking the ending flag keeps a concurrent end() from saving standings of a room that left
+        if (room == null || !room.ending.compareAndSet(false, true)) return null;
+        if (!rooms.remove(quizCode, room)) return null;
+        RoomSnapshot snapshot = snapshot(room);
+        broadcast(room, "moved", state(room));
+        close(room);
+        System.out.println("[Live] room handed off quizCode=" + quizCode + ", players=" + snapshot.scores().size());
+        return snapshot;
+    }
+
+    @Override
+    public void onRingChanged() {
+        claims.clear();
+    }
+
+    /**
+     * The local room. After a ring change, the first lookup of a room this node now owns claims it
+     * from the member that held it; concurrent lookups wait for that claim.
+     */
+    private LiveRoom room(String quizCode) {
+        LiveRoom room = rooms.get(quizCode);
+        if (room != null || !clusterRing.enabled() || !clusterRing.isLocal(quizCode)) return room;
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = claims.putIfAbsent(quizCode, mine);
+        if (running != null) {
+            running.join();
+        } else {
+            try {
+                clusterRing.claim("/api/cluster/live/" + quizCode + "/release", RoomSnapshot.class).ifPresent(this::adopt);
+            } catch (RuntimeException e) {
+                System.err.println("[Live] claiming quizCode=" + quizCode + " failed: " + e.getMessage());
+            } finally {
+                mine.complete(null);
+            }
+        }
+        return rooms.get(quizCode);
+    }
+
+    private RoomSnapshot snapshot(LiveRoom room) {
+        QuestionRound r = room.current.get();
+        RoundSnapshot round = null;
+        if (r != null) {
+            List<Long> counts = new ArrayList<>(OPTIONS.length);
+            for (LongAdder c : r.counts) counts.add(c.sum());
+            round = new RoundSnapshot(r.index, r.openedAtMs, r.deadlineMs, counts, List.copyOf(r.answeredBy.keySet()), r.isOpen());
+        }
+        List<PlayerSnapshot> scores = new ArrayList<>(room.scores.size());
+        room.scores.forEach((name, ps) -> scores.add(new PlayerSnapshot(name, ps.score.sum(), ps.correct.sum(), ps.responseMillis.sum())));
+        return new RoomSnapshot(room.quizCode, room.quizId, room.hostUid, room.questions, List.copyOf(room.roster),
+                scores, round, room.revealedMillis.sum(), room.ended);
+    }
+
+    private void adopt(RoomSnapshot s) {
+        LiveRoom room = new LiveRoom(s.quizCode(), s.quizId(), s.hostUid(), List.copyOf(s.questions()));
+        room.roster.addAll(s.roster());
+        // Players who joined here before the claim are only in the database
+        participantRepository.findByQuizId(s.quizId()).forEach(p -> room.roster.add(p.getName()));
+        for (PlayerSnapshot p : s.scores()) {
+            PlayerScore ps = new PlayerScore();
+            ps.score.add(p.score());
+            ps.correct.add(p.correct());
+            ps.responseMillis.add(p.responseMillis());
+            room.scores.put(p.name(), ps);
+        }
+        room.revealedMillis.add(s.revealedMillis());
+        room.ended = s.ended();
+        RoundSnapshot r = s.current();
+        QuestionRound round = null;
+        if (r != null) {
+            round = new QuestionRound(r.index(), room.questions.get(r.index()), r.openedAtMs(), r.deadlineMs());
+            for (int i = 0; i < OPTIONS.length && i < r.counts().size(); i++) round.counts[i].add(r.counts().get(i));
+            for (String name : r.answeredBy()) round.answeredBy.put(name, Boolean.TRUE);
+            round.answered.add(r.answeredBy().size());
+            if (!r.open()) round.state.set(QuestionRound.CLOSED);
+            room.current.set(round);
+        }
+        if (rooms.putIfAbsent(s.quizCode(), room) != null) return;
+        if (round != null && round.isOpen()) {
+            QuestionRound open = round;
+            long delay = Math.max(0, open.deadlineMs + answerGraceMillis - System.currentTimeMillis());
+            open.timeout = timer.schedule(() -> broadcaster.execute(() -> reveal(room, open)), delay, TimeUnit.MILLISECONDS);
+        }
+        scheduleExpiry(room, idleNanos);
+        System.out.println("[Live] room claimed quizCode=" + s.quizCode() + ", players=" + s.scores().size());
+    }
+
+    private void close(LiveRoom room) {
+        rooms.remove(room.quizCode, room);
+        QuestionRound round = room.current.get();
+        HashedWheelTimer.Timeout t = round != null ? round.timeout : null;
+        if (t != null) t.cancel();
+        // Queued behind any final event so subscribers still receive it
+        broadcaster.execute(() -> {
+            for (SseEmitter e : room.subscribers) {
+                try { e.complete(); } catch (Exception ignored) {}
+            }
+            room.subscribers.clear();
+        });
+    }
+
+    private void scheduleExpiry(LiveRoom room, long delayNanos) {
+        timer.schedule(() -> {
+            if (rooms.get(room.quizCode) != room) return;
+            long idle = System.nanoTime() - room.lastActivityNanos;
+            if (idle < idleNanos || room.ending.get()) {
+                scheduleExpiry(room, Math.max(idleNanos - idle, TimeUnit.MINUTES.toNanos(1)));
+                return;
+            }
+            room.ended = true;
+            broadcast(room, "expired", state(room));
+            close(room);
+            System.out.println("[Live] room expired quizCode=" + room.quizCode + " after " + TimeUnit.NANOSECONDS.toMinutes(idle) + " idle minutes");
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private RevealView reveal(LiveRoom room, QuestionRound round) {
+        if (!round.close()) return null;
+        HashedWheelTimer.Timeout t = round.timeout;
+        if (t != null) t.cancel();
+        long window = round.question.timerSeconds() * 1000L;
+        room.scores.forEach((name, ps) -> {
+            if (!round.answeredBy.containsKey(name)) ps.responseMillis.add(window);
+        });
+        room.revealedMillis.add(window);
+        RevealView rv = revealView(room, round);
+        broadcast(room, "reveal", rv);
+        return rv;
+    }
+
+    private RevealView revealView(LiveRoom room, QuestionRound round) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < OPTIONS.length; i++) counts.put(OPTIONS[i], round.counts[i].sum());
+        return new RevealView(round.index, round.question.id(), round.question.correctAnswer(), counts,
+                round.answered.sum(), standings(room, revealTopN));
+    }
+
+    private List<StandingRow> standings(LiveRoom room, int limit) {
+        record Acc(String name, int score, int correct, long ms) {}
+        List<Acc> all = new ArrayList<>(room.scores.size());
+        room.scores.forEach((name, ps) -> all.add(new Acc(name, (int) ps.score.sum(), (int) ps.correct.sum(), ps.responseMillis.sum())));
+        all.sort(Comparator.comparingInt(Acc::score).reversed().thenComparingLong(Acc::ms));
+        List<StandingRow> rows = new ArrayList<>(Math.min(limit, all.size()));
+        int rank = 0;
+        int lastScore = Integer.MIN_VALUE;
+        long lastMs = Long.MIN_VALUE;
+        for (int i = 0; i < all.size() && rows.size() < limit; i++) {
+            Acc a = all.get(i);
+            if (a.score() != lastScore || a.ms() != lastMs) {
+                rank = i + 1;
+                lastScore = a.score();
+                lastMs = a.ms();
+            }
+            rows.add(new StandingRow(a.name(), a.score(), a.correct(), a.ms(), rank));
+        }
+        return rows;
+    }
+
+    private QuestionView view(LiveRoom room, QuestionRound round) {
+        LiveQuestion q = round.question;
+        return new QuestionView(round.index, room.questions.size(), q.id(), q.questionText(),
+                q.optionA(), q.optionB(), q.optionC(), q.optionD(), round.deadlineMs, q.timerSeconds());
+    }
+
+    private void broadcast(LiveRoom room, String event, Object payload) {
+        if (room.subscribers.isEmpty()) return;
+        broadcaster.execute(() -> {
+            for (SseEmitter e : room.subscribers) {
+                try {
+                    e.send(SseEmitter.event().name(event).data(payload));
+                } catch (Exception ex) {
+                    room.subscribers.remove(e);
+                }
+            }
+        });
+    }
+
+    private LiveRoom requireRoom(String quizCode) {
+        LiveRoom room = room(quizCode);
+        if (room == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No live session for this quiz");
+        return room;
+    }
+
+    private static void checkHost(String hostUid, String uid) {
+        // Host controls need a verified uid; without Firebase (dev) live mode cannot be hosted
+        if (uid == null || uid.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sign in to host a live session");
+        }
+        if (hostUid != null && !hostUid.isBlank() && !hostUid.equals(uid)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only the quiz host can control the live session");
+        }
+    }
+
+    private static int optionIndex(String selected) {
+        if (selected == null || selected.length() != 1) return -1;
+        switch (Character.toUpperCase(selected.charAt(0))) {
+            case 'A': return 0;
+            case 'B': return 1;
+            case 'C': return 2;
+            case 'D': return 3;
+            default: return -1;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.quizora.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Coalesces participant joins that arrive within a few milliseconds into one multi-row
+ * INSERT ... ON CONFLICT (quiz_id, name) DO NOTHING.
+ *
+ * Each caller gets back whether its row was newly inserted (true) or already existed (false).
+ * If a batch fails as a whole (e.g. one quiz was deleted mid-flight), its rows are retried
+ * one by one so a single bad row cannot fail the rest of the class.
+ */
+@Service
+public class ParticipantJoinBatcher {
+
+    private record Pending(Long quizId, String name, Instant joinedAt, CompletableFuture<Boolean> inserted) {}
+
+    private record Key(Long quizId, String name) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final long waitMillis;
+    private volatile boolean running = true;
+
+    public ParticipantJoinBatcher(JdbcTemplate jdbcTemplate,
+                                  @Value("${app.join.batch-window-millis:5}") long windowMillis,
+                                  @Value("${app.join.max-batch:500}") int maxBatch,
+                                  @Value("${app.join.wait-millis:5000}") long waitMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.waitMillis = Math.max(100, waitMillis);
+        this.worker = new Thread(this::run, "participant-join-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /** Insert the participant if absent. Returns true when this call created the row. */
+    public boolean insertIfAbsent(Long quizId, String name, Instant joinedAt) {
+        Pending p = new Pending(quizId, name, joinedAt, new CompletableFuture<>());
+        queue.add(p);
+        try {
+            return p.inserted().get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for participant insert");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for participant insert");
+        }
+    }
+
+    /**
+     * Insert on the caller's thread, joining its transaction's connection. For callers that are
+     * already inside a transaction: waiting on the batch would take a second pool connection
+     * while holding the first.
+     */
+    public boolean insertNow(Long quizId, String name, Instant joinedAt) {
+        return !insertBatch(List.of(new Pending(quizId, name, joinedAt, null))).isEmpty();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        queue.drainTo(batch, maxBatch - batch.size());
+                        break;
+                    }
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException ie) {
+                if (!running) break;
+            } catch (Throwable t) {
+                for (Pending p : batch) p.inserted().completeExceptionally(t);
+            } finally {
+                batch.clear();
+            }
+        }
+        Pending p;
+        while ((p = queue.poll()) != null) p.inserted().completeExceptionally(new IllegalStateException("shutting down"));
+    }
+
+    private void flush(List<Pending> batch) {
+        try {
+            Set<Key> inserted = insertBatch(batch);
+            Set<Key> claimed = new HashSet<>();
+            for (Pending p : batch) {
+                Key k = new Key(p.quizId(), p.name());
+                // A duplicate within the same batch only counts as inserted for its first caller
+                p.inserted().complete(inserted.contains(k) && claimed.add(k));
+            }
+        } catch (RuntimeException batchFailure) {
+            if (batch.size() == 1) {
+                batch.get(0).inserted().completeExceptionally(batchFailure);
+                return;
+            }
+            for (Pending p : batch) {
+                try {
+                    p.inserted().complete(!insertBatch(List.of(p)).isEmpty());
+                } catch (RuntimeException e) {
+                    p.inserted().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private Set<Key> insertBatch(List<Pending> rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO participants (quiz_id, name, joined_at) VALUES ");
+        Object[] args = new Object[rows.size() * 3];
+        for (int i = 0; i < rows.size(); i++) {
+            Pending p = rows.get(i);
+            if (i > 0) sql.append(',');
+            sql.append("(?,?,?)");
+            args[i * 3] = p.quizId();
+            args[i * 3 + 1] = p.name();
+            args[i * 3 + 2] = Timestamp.from(p.joinedAt());
+        }
+        sql.append(" ON CONFLICT (quiz_id, name) DO NOTHING RETURNING quiz_id, name");
+        Set<Key> inserted = new HashSet<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            inserted.add(new Key(rs.getLong(1), rs.getString(2)));
+        }, args);
+        return inserted;
+    }
+}
@@ -0,0 +1,110 @@
+package com.quizora.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * One-time move of submissions from the participant_name string to the participant_id key.
+ *
+ * Hibernate's schema update adds submissions.participant_id as a nullable column. Before the app
+ * serves traffic the legacy participant_name column loses its NOT NULL, since new rows no longer
+ * write it. Once the app is up, the backfill creates any missing participants rows for old
+ * submissions, fills participant_id in batches of app.migration.participant-key.batch-size (each
+ * its own short transaction) and finally makes participant_id NOT NULL. It runs under an exclusive
+ * task lock, so only one instance does the work, and each step is a no-op once done, so every start
+ * just re-checks. participant_name is kept for rollback and can be dropped by hand afterwards.
+ */
+@Service
+public class ParticipantKeyMigration {
+
+    private static final String NULLABILITY_SQL =
+            "SELECT is_nullable FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = 'submissions' AND column_name = ?";
+
+    private static final String MISSING_PARTICIPANTS_SQL =
+            "INSERT INTO participants (quiz_id, name, joined_at) " +
+            "SELECT quiz_id, participant_name, min(submitted_at) FROM submissions " +
+            "WHERE participant_id IS NULL AND participant_name IS NOT NULL GROUP BY quiz_id, participant_name " +
+            "ON CONFLICT (quiz_id, name) DO NOTHING";
+
+    // Last id of the next batch; paging on id > lastId walks the primary key instead of rescanning
+    // the rows already done (and does not stop at a batch where no row had a match)
+    private static final String BATCH_END_SQL =
+            "SELECT max(id) FROM (SELECT id FROM submissions WHERE id > ? AND participant_id IS NULL ORDER BY id LIMIT ?) b";
+
+    private static final String BACKFILL_SQL =
+            "UPDATE submissions s SET participant_id = p.id FROM participants p " +
+            "WHERE s.id > ? AND s.id <= ? AND s.participant_id IS NULL " +
+            "AND p.quiz_id = s.quiz_id AND p.name = s.participant_name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LeaderElection leaderElection;
+    private final int batchSize;
+
+    // The EntityManagerFactory is only a dependency so the schema update has run before init()
+    public ParticipantKeyMigration(JdbcTemplate jdbcTemplate,
+                                   LeaderElection leaderElection,
+                                   EntityManagerFactory entityManagerFactory,
+                                   @Value("${app.migration.participant-key.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaderElection = leaderElection;
+        this.batchSize = Math.max(100, batchSize);
+    }
+
+    @PostConstruct
+    public void init() {
+        if ("NO".equals(nullability("participant_name"))) {
+            jdbcTemplate.execute("ALTER TABLE submissions ALTER COLUMN participant_name DROP NOT NULL");
+            System.out.println("[Migration] submissions.participant_name is now nullable");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!"YES".equals(nullability("participant_id"))) return;
+        Thread t = new Thread(() -> {
+            try {
+                if (leaderElection.runExclusive("participant-key-migration", this::backfill).isEmpty()) {
+                    System.out.println("[Migration] participant_id backfill running on another instance");
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[Migration] participant_id backfill failed: " + e.getMessage());
+            }
+        }, "participant-key-migration");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private Integer backfill() {
+        long total = 0;
+        if (nullability("participant_name") != null) {
+            int created = jdbcTemplate.update(MISSING_PARTICIPANTS_SQL);
+            if (created > 0) System.out.println("[Migration] created " + created + " participants for existing submissions");
+            long lastId = 0;
+            Long batchEnd;
+            while ((batchEnd = jdbcTemplate.queryForObject(BATCH_END_SQL, Long.class, lastId, batchSize)) != null) {
+                total += jdbcTemplate.update(BACKFILL_SQL, lastId, batchEnd);
+                lastId = batchEnd;
+                System.out.println("[Migration] participant_id set on " + total + " submissions (up to id " + lastId + ")");
+            }
+        }
+        Long remaining = jdbcTemplate.queryForObject("SELECT count(*) FROM submissions WHERE participant_id IS NULL", Long.class);
+        if (remaining != null && remaining > 0) {
+            System.err.println("[Migration] " + remaining + " submissions have no matching participant; participant_id stays nullable");
+            return 0;
+        }
+        jdbcTemplate.execute("ALTER TABLE submissions ALTER COLUMN participant_id SET NOT NULL");
+        System.out.println("[Migration] submissions.participant_id is now NOT NULL");
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /** "YES"/"NO" from information_schema, or null when the column does not exist. */
+    private String nullability(String column) {
+        return jdbcTemplate.query(NULLABILITY_SQL, rs -> rs.next() ? rs.getString(1) : null, column);
+    }
+}
@@ -0,0 +1,283 @@
+package com.quizora.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative range partitioning of participants and submissions on quiz_id (app.partitioning.*).
+ *
+ * Quiz ids only grow, so each partition holds a contiguous block of
+ * app.partitioning.quizzes-per-partition quizzes: live rooms share small recent partitions while
+ * older quizzes sit in partitions that see no writes and no further vacuum work. Every per-room
+ * query filters on quiz_id and is pruned to a single partition.
+ *
+ * Converting an existing table (opt-in, app.partitioning.enabled) keeps its data where it is. The
+ * table is renamed to {table}_legacy and attached to a new partitioned parent as the partition for
+ * all quiz ids up to the next block boundary. Its unique (id, quiz_id) index is built concurrently
+ * first. The swap itself runs in one transaction holding both tables locked; it scans submissions
+ * once to validate the foreign key to participants. Ids continue from a new sequence on each parent.
+ *
+ * The leader then keeps app.partitioning.partitions-ahead empty partitions beyond the newest quiz,
+ * whenever an instance is elected and every app.partitioning.maintenance-interval-ms. Running on
+ * election matters: a new leader may find the previous one stopped short of the newest quizzes,
+ * and an insert for a quiz past the last partition fails.
+ */
+@Service
+public class PartitionMaintenance implements LeaderElection.Listener {
+
+    private static final List<String> TABLES = List.of("participants", "submissions");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('?(-?\\d+)'?\\)");
+    private static final Pattern ON_TABLE = Pattern.compile(" ON (ONLY )?\\S+ USING ");
+    private static final int MAX_IDENTIFIER = 63;
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bounds, c.reltuples::bigint AS estimated_rows " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname";
+
+    // Indexes and constraints of a table, captured before it becomes {table}_legacy
+    private static final String INDEXES_SQL =
+            "SELECT ic.relname AS index_name, pg_get_indexdef(i.indexrelid) AS index_def, " +
+            "con.conname AS constraint_name, con.contype AS constraint_type, pg_get_constraintdef(con.oid) AS constraint_def " +
+            "FROM pg_index i JOIN pg_class ic ON ic.oid = i.indexrelid " +
+            "LEFT JOIN pg_constraint con ON con.conindid = i.indexrelid AND con.conrelid = i.indrelid " +
+            "WHERE i.indrelid = to_regclass(?)";
+
+    private static final String FOREIGN_KEYS_SQL =
+            "SELECT conname AS constraint_name, pg_get_constraintdef(oid) AS constraint_def, confrelid::regclass::text AS referenced " +
+            "FROM pg_constraint " +
+            "WHERE conrelid = to_regclass(?) AND contype = 'f'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final LeaderElection leaderElection;
+    private final boolean enabled;
+    private final long span;
+    private final int ahead;
+    private final String lockTimeout;
+
+    public PartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                LeaderElection leaderElection,
+                                @Value("${app.partitioning.enabled:false}") boolean enabled,
+                                @Value("${app.partitioning.quizzes-per-partition:10000}") long span,
+                                @Value("${app.partitioning.partitions-ahead:2}") int ahead,
+                                @Value("${app.partitioning.lock-timeout-ms:5000}") long lockTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.leaderElection = leaderElection;
+        this.enabled = enabled;
+        this.span = Math.max(100, span);
+        this.ahead = Math.max(1, ahead);
+        this.lockTimeout = Math.max(100, lockTimeoutMillis) + "ms";
+    }
+
+    // After startup; the listener also fires right away if this instance already leads
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        leaderElection.addListener(this);
+    }
+
+    @Override
+    public void onElected() {
+        Thread t = new Thread(this::scheduledMaintain, "partition-maintenance");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void onRevoked() {
+        // Nothing runs between maintenance passes; the next pass checks leadership again
+    }
+
+    @Scheduled(fixedDelayString = "${app.partitioning.maintenance-interval-ms:3600000}",
+            initialDelayString = "${app.partitioning.maintenance-interval-ms:3600000}")
+    public void scheduledMaintain() {
+        if (!leaderElection.isLeader()) return;
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            System.err.println("[Partition] maintenance failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Convert unpartitioned tables (when enabled), then create missing partitions ahead of the newest
+     * quiz. Partitions keep being created for already converted tables even if app.partitioning.enabled
+     * is switched off again, since inserts for newer quizzes would fail without them. Returns the
+     * number of partitions created, or -1 if another instance is already at it.
+     */
+    public int maintain() {
+        return leaderElection.runExclusive("partition-maintenance", () -> {
+            if (enabled && TABLES.stream().anyMatch(t -> !isPartitioned(t))) convert();
+            int created = 0;
+            for (String table : TABLES) {
+                if (isPartitioned(table)) created += createAhead(table);
+            }
+            return created;
+        }).orElse(-1);
+    }
+
+    /** Partitions per table with their bounds and planner row estimates. */
+    public Map<String, Object> status() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("quizzesPerPartition", span);
+        for (String table : TABLES) {
+            List<Map<String, Object>> parts = new ArrayList<>();
+            jdbcTemplate.query(PARTITIONS_SQL, rs -> {
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("name", rs.getString("name"));
+                p.put("bounds", rs.getString("bounds"));
+                p.put("estimatedRows", Math.max(0, rs.getLong("estimated_rows")));
+                parts.add(p);
+            }, table);
+            out.put(table, parts);
+        }
+        return out;
+    }
+
+    private boolean isPartitioned(String table) {
+        String kind = jdbcTemplate.query("SELECT relkind FROM pg_class WHERE oid = to_regclass(?)",
+                rs -> rs.next() ? rs.getString(1) : null, table);
+        return "p".equals(kind);
+    }
+
+    private void convert() {
+        // Outside the swap transaction: build each table's (id, quiz_id) key without blocking writes
+        for (String table : TABLES) {
+            if (isPartitioned(table)) continue;
+            String key = identifier(table + "_legacy_id_quiz_key");
+            Boolean valid = jdbcTemplate.query("SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)",
+                    rs -> rs.next() ? rs.getBoolean(1) : null, key);
+            if (Boolean.FALSE.equals(valid)) jdbcTemplate.execute("DROP INDEX CONCURRENTLY " + key);
+            if (!Boolean.TRUE.equals(valid)) {
+                System.out.println("[Partition] building " + key);
+                jdbcTemplate.execute("CREATE UNIQUE INDEX CONCURRENTLY " + key + " ON " + table + " (id, quiz_id)");
+            }
+        }
+        tx.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout + "'");
+            jdbcTemplate.execute("LOCK TABLE participants, submissions IN ACCESS EXCLUSIVE MODE");
+            long boundary = (maxQuizId() / span + 1) * span;
+            boolean participantsConverted = false;
+            if (!isPartitioned("participants")) {
+                // The submissions -> participants key is recreated on the parents below
+                for (Map<String, Object> fk : jdbcTemplate.queryForList(FOREIGN_KEYS_SQL, "submissions")) {
+                    if ("participants".equals(fk.get("referenced"))) {
+                        jdbcTemplate.execute("ALTER TABLE submissions DROP CONSTRAINT " + quote((String) fk.get("constraint_name")));
+                    }
+                }
+                convertTable("participants", boundary);
+                participantsConverted = true;
+            }
+            if (!isPartitioned("submissions")) convertTable("submissions", boundary);
+            if (participantsConverted) {
+                jdbcTemplate.execute("ALTER TABLE submissions ADD CONSTRAINT fk_submission_participant " +
+                        "FOREIGN KEY (participant_id, quiz_id) REFERENCES participants (id, quiz_id)");
+            }
+            System.out.println("[Partition] participants and submissions partitioned by quiz_id; legacy partition below " + boundary);
+        });
+    }
+
+    /** Swap {@code table} for a partitioned parent with the old table attached as its first partition. */
+    private void convertTable(String table, long boundary) {
+        String legacy = table + "_legacy";
+        String legacyKey = identifier(legacy + "_id_quiz_key");
+        Long nextId = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) + 1 FROM " + table, Long.class);
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList(INDEXES_SQL, table);
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(FOREIGN_KEYS_SQL, table);
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + legacy);
+        // Free the names for the parent; the parent's copies adopt the legacy ones on attach
+        for (Map<String, Object> ix : indexes) {
+            String name = (String) ix.get("index_name");
+            if (name.equals(legacyKey)) continue;
+            String renamed = quote(identifier(name + "_legacy"));
+            if (ix.get("constraint_name") != null) {
+                jdbcTemplate.execute("ALTER TABLE " + legacy + " RENAME CONSTRAINT " + quote((String) ix.get("constraint_name")) + " TO " + renamed);
+            } else {
+                jdbcTemplate.execute("ALTER INDEX " + quote(name) + " RENAME TO " + renamed);
+            }
+        }
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " ADD CONSTRAINT " + legacyKey + " UNIQUE USING INDEX " + legacyKey);
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " ALTER COLUMN id DROP DEFAULT");
+
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE " + legacy + " INCLUDING DEFAULTS) PARTITION BY RANGE (quiz_id)");
+        String seq = identifier(table + "_part_id_seq");
+        jdbcTemplate.execute("CREATE SEQUENCE " + seq + " START WITH " + nextId + " OWNED BY " + table + ".id");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT nextval('" + seq + "')");
+        // A partitioned table's unique keys must include quiz_id, so (id, quiz_id) stands in for the primary key
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + identifier(table + "_id_quiz_key") + " UNIQUE (id, quiz_id)");
+        for (Map<String, Object> ix : indexes) {
+            String name = (String) ix.get("index_name");
+            String type = ix.get("constraint_type") != null ? ix.get("constraint_type").toString() : null;
+            if (name.equals(legacyKey) || "p".equals(type)) continue;
+            if (type != null) {
+                String def = (String) ix.get("constraint_def");
+                if (!def.contains("quiz_id")) {
+                    System.err.println("[Partition] " + table + "." + ix.get("constraint_name") + " does not include quiz_id; kept on the legacy partition only");
+                    continue;
+                }
+                jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + quote((String) ix.get("constraint_name")) + " " + def);
+            } else {
+                String def = (String) ix.get("index_def");
+                if (def.startsWith("CREATE UNIQUE") && !def.contains("quiz_id")) continue;
+                Matcher m = ON_TABLE.matcher(def);
+                if (m.find()) jdbcTemplate.execute(m.replaceFirst(" ON " + table + " USING "));
+            }
+        }
+        for (Map<String, Object> fk : foreignKeys) {
+            if ("participants".equals(fk.get("referenced"))) continue;
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + quote((String) fk.get("constraint_name")) + " " + fk.get("constraint_def"));
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + legacy + " FOR VALUES FROM (MINVALUE) TO (" + boundary + ")");
+    }
+
+    /** Create the partitions missing between the highest existing bound and {@link #ahead} blocks past the newest quiz. */
+    private int createAhead(String table) {
+        long upper = Long.MIN_VALUE;
+        for (Map<String, Object> p : jdbcTemplate.queryForList(PARTITIONS_SQL, table)) {
+            Matcher m = UPPER_BOUND.matcher(String.valueOf(p.get("bounds")));
+            if (m.find()) upper = Math.max(upper, Long.parseLong(m.group(1)));
+        }
+        if (upper == Long.MIN_VALUE) return 0;
+        long target = (maxQuizId() / span + 1 + ahead) * span;
+        int created = 0;
+        for (long from = upper; from < target; from += span) {
+            long start = from;
+            tx.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout + "'");
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + "_q" + start + " PARTITION OF " + table +
+                        " FOR VALUES FROM (" + start + ") TO (" + (start + span) + ")");
+            });
+            created++;
+        }
+        if (created > 0) System.out.println("[Partition] created " + created + " partitions of " + table + " up to quiz id " + target);
+        return created;
+    }
+
+    private long maxQuizId() {
+        Long max = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM quizzes", Long.class);
+        return max != null ? max : 0;
+    }
+
+    private static String identifier(String name) {
+        return name.length() <= MAX_IDENTIFIER ? name : name.substring(0, MAX_IDENTIFIER);
+    }
+
+    private static String quote(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+}
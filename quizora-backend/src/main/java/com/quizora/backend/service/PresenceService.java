@@ -0,0 +1,272 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.repository.ParticipantRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Who is currently online in each room, kept in memory only.
+ *
+ * Players send a heartbeat every few seconds (and /join counts as one); a player is online until
+ * app.presence.ttl-seconds pass without one. Only names that joined the room (an open attempt
+ * session or a participant row) are accepted by heartbeat and leave, so nobody can fill a room
+ * with made-up names; the check runs once per new member, not on every heartbeat. A heartbeat only stamps the member's last-seen time.
+ * Expiry runs on the shared room wheel timer: each member has one pending check, which either
+ * removes the member or re-arms itself for the time that is left, so steady heartbeats never touch
+ * the wheel. Nothing is written to the database; after a restart the next heartbeats rebuild the
+ * rooms. In cluster mode a room that moves to another member is dropped here and its watchers'
+ * streams are completed, so they reconnect to the new owner, where heartbeats (forwarded there by
+ * room affinity) rebuild it within one ttl.
+ *
+ * Hosts read the count with GET /api/quizzes/{code}/presence or subscribe to its SSE stream, which
+ * gets at most one "presence" event per app.presence.broadcast-millis however many players come
+ * and go in that time.
+ */
+@Service
+public class PresenceService implements ClusterRing.Listener {
+
+    public record PresenceView(String quizCode, int online, List<String> names) {}
+
+    private static final class Member {
+        volatile long lastSeenNanos = System.nanoTime();
+    }
+
+    private static final class Room {
+        final Map<String, Member> members = new ConcurrentHashMap<>();
+        final List<SseEmitter> watchers = new CopyOnWriteArrayList<>();
+        final AtomicBoolean broadcastPending = new AtomicBoolean();
+    }
+
+    private final QuizCodeCache quizCodeCache;
+    private final RoomSessionService roomSessionService;
+    private final ParticipantRepository participantRepository;
+    private final HashedWheelTimer timer;
+    private final ClusterRing clusterRing;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    // Single thread keeps presence events in order for every watcher
+    private final ExecutorService broadcaster = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "presence-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
+    private final long ttlNanos;
+    private final long broadcastMillis;
+    private final int maxMembersPerRoom;
+    private final int maxListed;
+
+    public PresenceService(QuizCodeCache quizCodeCache,
+                           RoomSessionService roomSessionService,
+                           ParticipantRepository participantRepository,
+                           HashedWheelTimer roomTimer,
+                           ClusterRing clusterRing,
+                           @Value("${app.presence.ttl-seconds:30}") long ttlSeconds,
+                           @Value("${app.presence.broadcast-millis:1000}") long broadcastMillis,
+                           @Value("${app.presence.max-members-per-room:5000}") int maxMembersPerRoom,
+                           @Value("${app.presence.max-listed:200}") int maxListed) {
+        this.quizCodeCache = quizCodeCache;
+        this.roomSessionService = roomSessionService;
+        this.participantRepository = participantRepository;
+        this.timer = roomTimer;
+        this.clusterRing = clusterRing;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(5, ttlSeconds));
+        this.broadcastMillis = Math.max(100, broadcastMillis);
+        this.maxMembersPerRoom = Math.max(1, maxMembersPerRoom);
+        this.maxListed = Math.max(0, maxListed);
+        clusterRing.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.shutdownNow();
+    }
+
+    @Override
+    public void onRingChanged() {
+        for (String quizCode : rooms.keySet()) {
+            if (clusterRing.isLocal(quizCode)) continue;
+            Room room = rooms.remove(quizCode);
+            if (room == null) continue;
+            broadcaster.execute(() -> {
+                for (SseEmitter e : room.watchers) {
+                    try { e.complete(); } catch (Exception ignored) {}
+                }
+                room.watchers.clear();
+            });
+        }
+    }
+
+    public long ttlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    /**
+     * Heartbeat from a player. A name not yet online is checked against the room's sessions and
+     * participants first.
+     *
+     * @throws ResponseStatusException 404 for an unknown quiz code, 409 when the name has not joined
+     *                                 the room or the room is full
+     */
+    public int heartbeat(String quizCode, String name) {
+        Room room = rooms.get(quizCode);
+        if (room == null || !room.members.containsKey(name)) requireJoined(quizCode, name);
+        if (!touch(quizCode, name)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Room is full");
+        }
+        return online(quizCode);
+    }
+
+    /** Mark the player online; the quiz code must already be known to exist. Returns false when the room is full. */
+    public boolean touch(String quizCode, String name) {
+        Room room = rooms.get(quizCode);
+        Member m = room != null ? room.members.get(name) : null;
+        if (m != null) {
+            m.lastSeenNanos = System.nanoTime();
+            return true;
+        }
+        // New member: added under the map's bin lock so it cannot race an empty room being dropped
+        Member fresh = new Member();
+        boolean[] added = {false};
+        Room r = rooms.compute(quizCode, (k, existing) -> {
+            Room target = existing != null ? existing : new Room();
+            Member current = target.members.get(name);
+            if (current != null) {
+                current.lastSeenNanos = System.nanoTime();
+            } else if (target.members.size() < maxMembersPerRoom) {
+                target.members.put(name, fresh);
+                added[0] = true;
+            } else if (existing == null) {
+                return null;
+            } else {
+                return existing;
+            }
+            return target;
+        });
+        if (r == null) return false;
+        if (added[0]) {
+            scheduleExpiry(quizCode, r, name, fresh, ttlNanos);
+            changed(quizCode, r);
+            return true;
+        }
+        return r.members.containsKey(name);
+    }
+
+    /** @throws ResponseStatusException 404 for an unknown quiz code, 409 when the name has not joined the room */
+    public void leave(String quizCode, String name) {
+        Room room = rooms.get(quizCode);
+        if (room == null || !room.members.containsKey(name)) return;
+        requireJoined(quizCode, name);
+        if (room.members.remove(name) != null) {
+            changed(quizCode, room);
+            dropIfEmpty(quizCode);
+        }
+    }
+
+    private void requireJoined(String quizCode, String name) {
+        QuizCodeCache.QuizRef ref = quizCodeCache.resolve(quizCode)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid quiz code"));
+        if (roomSessionService.openSince(quizCode, name) != null) return;
+        if (!participantRepository.existsByQuizIdAndName(ref.id(), name)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Join the quiz first");
+        }
+    }
+
+    public int online(String quizCode) {
+        Room room = rooms.get(quizCode);
+        return room != null ? room.members.size() : 0;
+    }
+
+    /** Online count plus up to app.presence.max-listed names in alphabetical order. */
+    public PresenceView view(String quizCode) {
+        Room room = rooms.get(quizCode);
+        if (room == null) return new PresenceView(quizCode, 0, List.of());
+        List<String> names = new ArrayList<>(room.members.keySet());
+        Collections.sort(names);
+        if (names.size() > maxListed) names = names.subList(0, maxListed);
+        return new PresenceView(quizCode, room.members.size(), List.copyOf(names));
+    }
+
+    public SseEmitter subscribe(String quizCode) {
+        if (!rooms.containsKey(quizCode) && quizCodeCache.resolve(quizCode).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid quiz code");
+        }
+        Room room = rooms.computeIfAbsent(quizCode, k -> new Room());
+        SseEmitter emitter = new SseEmitter(0L);
+        room.watchers.add(emitter);
+        emitter.onCompletion(() -> unwatch(quizCode, room, emitter));
+        emitter.onTimeout(() -> unwatch(quizCode, room, emitter));
+        emitter.onError(e -> unwatch(quizCode, room, emitter));
+        try {
+            emitter.send(SseEmitter.event().name("presence").data(view(quizCode)));
+        } catch (IOException e) {
+            unwatch(quizCode, room, emitter);
+        }
+        return emitter;
+    }
+
+    public Map<String, Object> stats() {
+        int members = 0;
+        int watchers = 0;
+        for (Room r : rooms.values()) {
+            members += r.members.size();
+            watchers += r.watchers.size();
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("rooms", rooms.size());
+        out.put("online", members);
+        out.put("watchers", watchers);
+        return out;
+    }
+
+    private void scheduleExpiry(String quizCode, Room room, String name, Member m, long delayNanos) {
+        timer.schedule(() -> {
+            long idle = System.nanoTime() - m.lastSeenNanos;
+            if (idle < ttlNanos) {
+                // Heard from since this check was armed: wait out the rest of the ttl
+                scheduleExpiry(quizCode, room, name, m, ttlNanos - idle);
+                return;
+            }
+            if (room.members.remove(name, m)) {
+                changed(quizCode, room);
+                dropIfEmpty(quizCode);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Coalesce changes into one broadcast per window; watchers see the state at send time. */
+    private void changed(String quizCode, Room room) {
+        if (room.watchers.isEmpty() || !room.broadcastPending.compareAndSet(false, true)) return;
+        timer.schedule(() -> broadcaster.execute(() -> {
+            room.broadcastPending.set(false);
+            PresenceView v = view(quizCode);
+            for (SseEmitter e : room.watchers) {
+                try {
+                    e.send(SseEmitter.event().name("presence").data(v));
+                } catch (Exception ex) {
+                    room.watchers.remove(e);
+                }
+            }
+        }), broadcastMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void unwatch(String quizCode, Room room, SseEmitter emitter) {
+        room.watchers.remove(emitter);
+        dropIfEmpty(quizCode);
+    }
+
+    private void dropIfEmpty(String quizCode) {
+        rooms.computeIfPresent(quizCode, (k, r) -> r.members.isEmpty() && r.watchers.isEmpty() ? null : r);
+    }
+}
@@ -0,0 +1,112 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * quizCode -> (quiz id, attempt time limit) cache for the join path, so a burst of joins to one room
+ * resolves the quiz once instead of loading the entity on every request.
+ * Entries are small and immutable; call {@link #evict(String)} when a quiz is deleted or changed.
+ * Inside a transaction the entry is dropped again after commit, since a concurrent resolve() may
+ * have re-read the old row in between.
+ * Trending quizzes ({@link TrendingService#isHot}) are kept when the cache is full.
+ */
+@Service
+public class QuizCodeCache implements CacheInvalidationBus.Listener {
+
+    public record QuizRef(Long id, String quizCode, long timeLimitSeconds) {}
+
+    // Hot entries are skipped when evicting; bounds the scan if most of the cache is hot
+    private static final int MAX_EVICTION_SCAN = 64;
+
+    private final QuizRepository quizRepository;
+    private final TrendingService trendingService;
+    private final Map<String, QuizRef> byCode = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public QuizCodeCache(QuizRepository quizRepository,
+                         CacheInvalidationBus cacheBus,
+                         TrendingService trendingService,
+                         @Value("${app.quiz-code-cache.max-entries:10000}") int maxEntries) {
+        this.quizRepository = quizRepository;
+        this.maxEntries = Math.max(16, maxEntries);
+        this.trendingService = trendingService;
+        cacheBus.addListener(this);
+    }
+
+    public Optional<QuizRef> resolve(String quizCode) {
+        if (quizCode == null || quizCode.isBlank()) return Optional.empty();
+        QuizRef cached = byCode.get(quizCode);
+        if (cached != null) return Optional.of(cached);
+        Optional<QuizRef> loaded = quizRepository.findRefByQuizCode(quizCode).map(v -> new QuizRef(
+                v.getId(),
+                quizCode,
+                RoomSessionService.timeLimitSeconds(v.getSessionTimer(),
+                        v.getQuestionTimerSum() != null ? v.getQuestionTimerSum().longValue() : 0L)));
+        loaded.ifPresent(ref -> {
+            if (byCode.size() >= maxEntries) evictOne();
+            byCode.put(quizCode, ref);
+        });
+        return loaded;
+    }
+
+    public void evict(String quizCode) {
+        if (quizCode == null) return;
+        byCode.remove(quizCode);
+        afterCommit(() -> byCode.remove(quizCode));
+    }
+
+    public void evictById(Long quizId) {
+        if (quizId == null) return;
+        byCode.values().removeIf(ref -> quizId.equals(ref.id()));
+        afterCommit(() -> byCode.values().removeIf(ref -> quizId.equals(ref.id())));
+    }
+
+    public void clear() {
+        byCode.clear();
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.QUIZ && change != CacheInvalidationBus.Change.DELETED) return;
+        for (CacheInvalidationBus.Key k : keys) evict(k.quizCode());
+    }
+
+    @Override
+    public void onResync() {
+        clear();
+    }
+
+    /** Evict the first entry that is not a trending quiz (or the first entry if all scanned are). */
+    private void evictOne() {
+        String victim = null;
+        int scanned = 0;
+        for (String code : byCode.keySet()) {
+            if (victim == null) victim = code;
+            if (!trendingService.isHot(code)) {
+                victim = code;
+                break;
+            }
+            if (++scanned >= MAX_EVICTION_SCAN) break;
+        }
+        if (victim != null) byCode.remove(victim);
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                r.run();
+            }
+        });
+    }
+}
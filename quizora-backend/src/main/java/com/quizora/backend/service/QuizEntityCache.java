@@ -0,0 +1,136 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Question;
+import com.quizora.backend.model.Quiz;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Explicit eviction and hit-rate stats for the Hibernate second-level cache regions holding quizzes
+ * (opt-in via app.l2-cache.enabled, regions configured in ehcache.xml).
+ *
+ * Hibernate keeps the regions in step with writes made through the session; evictions here cover
+ * paths where that is not enough: whole-quiz deletes and Firestore sync upserts. They run after the
+ * surrounding transaction commits so a concurrent reader cannot re-cache the old state.
+ */
+@Service
+public class QuizEntityCache implements CacheInvalidationBus.Listener {
+
+    static final String QUESTIONS_ROLE = Quiz.class.getName() + ".questions";
+    private static final List<String> REGIONS = List.of("quiz", "quiz.natural-id", "quiz.questions", "question");
+
+    private final SessionFactory sessionFactory;
+    private final boolean enabled;
+
+    public QuizEntityCache(EntityManagerFactory entityManagerFactory,
+                           CacheInvalidationBus cacheBus,
+                           @Value("${app.l2-cache.enabled:false}") boolean enabled) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.enabled = enabled;
+        cacheBus.addListener(this);
+    }
+
+    /** A quiz's scalar fields changed (e.g. Firestore sync). */
+    public void evictQuiz(Long quizId) {
+        if (!enabled || quizId == null) return;
+        afterCommit(() -> {
+            Cache cache = sessionFactory.getCache();
+            cache.evictEntityData(Quiz.class, quizId);
+            cache.evictQueryRegions();
+        });
+    }
+
+    /** Quizzes and their questions were deleted. */
+    public void evictDeleted(Collection<Long> quizIds) {
+        if (!enabled || quizIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(quizIds);
+        afterCommit(() -> {
+            Cache cache = sessionFactory.getCache();
+            for (Long id : ids) {
+                cache.evictEntityData(Quiz.class, id);
+                cache.evictCollectionData(QUESTIONS_ROLE, id);
+            }
+            // No per-key API for natural ids or for "all questions of a quiz"; deletes are rare
+            cache.evictNaturalIdData(Quiz.class);
+            cache.evictEntityData(Question.class);
+            cache.evictQueryRegions();
+        });
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.QUIZ && change != CacheInvalidationBus.Change.DELETED) return;
+        List<Long> ids = keys.stream().map(CacheInvalidationBus.Key::quizId).filter(Objects::nonNull).toList();
+        if (change == CacheInvalidationBus.Change.DELETED) {
+            evictDeleted(ids);
+        } else {
+            ids.forEach(this::evictQuiz);
+        }
+    }
+
+    @Override
+    public void onResync() {
+        if (enabled) sessionFactory.getCache().evictAllRegions();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        if (!enabled) return out;
+        Statistics s = sessionFactory.getStatistics();
+        out.put("secondLevel", counters(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount(), s.getSecondLevelCachePutCount()));
+        out.put("naturalId", counters(s.getNaturalIdCacheHitCount(), s.getNaturalIdCacheMissCount(), s.getNaturalIdCachePutCount()));
+        out.put("query", counters(s.getQueryCacheHitCount(), s.getQueryCacheMissCount(), s.getQueryCachePutCount()));
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics r;
+            try {
+                r = s.getCacheRegionStatistics(region);
+            } catch (IllegalArgumentException unknownRegion) {
+                continue;
+            }
+            if (r == null) continue;
+            Map<String, Object> m = counters(r.getHitCount(), r.getMissCount(), r.getPutCount());
+            m.put("elementsInMemory", r.getElementCountInMemory());
+            regions.put(region, m);
+        }
+        out.put("regions", regions);
+        out.put("since", s.getStart());
+        return out;
+    }
+
+    private static Map<String, Object> counters(long hits, long misses, long puts) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hits", hits);
+        m.put("misses", misses);
+        m.put("puts", puts);
+        m.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return m;
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
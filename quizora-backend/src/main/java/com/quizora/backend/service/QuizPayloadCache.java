@@ -0,0 +1,162 @@
+package com.quizora.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized (and pre-gzipped) GET /api/quizzes/code/{code} bodies for recently fetched quizzes.
+ *
+ * A room full of players fetches the same quiz within seconds; caching the encoded bytes per
+ * (quizCode, format) skips the query, the serialization and the compression for every request
+ * after the first. Entries are dropped on delete and Firestore sync, and expire after a TTL.
+ * Trending quizzes ({@link TrendingService#isHot}) are kept when the cache is full.
+ */
+@Service
+public class QuizPayloadCache implements CacheInvalidationBus.Listener {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON), CBOR(MediaType.APPLICATION_CBOR), SMILE(QuizPayloadCache.SMILE);
+
+        public final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+    }
+
+    public record Body(Long quizId, Format format, byte[] identity, byte[] gzip, long createdNanos) {}
+
+    private record Key(String quizCode, Format format) {}
+
+    // Hot entries are skipped when evicting; bounds the scan if most of the cache is hot
+    private static final int MAX_EVICTION_SCAN = 64;
+
+    private final QuizService quizService;
+    private final TrendingService trendingService;
+    private final Map<Format, ObjectMapper> mappers = new EnumMap<>(Format.class);
+    private final Map<Key, Body> bodies = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    public QuizPayloadCache(QuizService quizService,
+                            ObjectMapper objectMapper,
+                            MappingJackson2CborHttpMessageConverter cborConverter,
+                            MappingJackson2SmileHttpMessageConverter smileConverter,
+                            CacheInvalidationBus cacheBus,
+                            TrendingService trendingService,
+                            @Value("${app.wire.payload-cache.max-entries:256}") int maxEntries,
+                            @Value("${app.wire.payload-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.quizService = quizService;
+        mappers.put(Format.JSON, objectMapper);
+        mappers.put(Format.CBOR, cborConverter.getObjectMapper());
+        mappers.put(Format.SMILE, smileConverter.getObjectMapper());
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+        this.trendingService = trendingService;
+        cacheBus.addListener(this);
+    }
+
+    /**
+     * Picks the response format from an Accept header, honouring q-values. Missing or wildcard
+     * Accept means JSON; empty when none of the supported formats is acceptable.
+     */
+    public static Optional<Format> negotiate(String accept) {
+        if (accept == null || accept.isBlank()) return Optional.of(Format.JSON);
+        List<MediaType> requested;
+        try {
+            requested = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMimeTypeException e) {
+            return Optional.of(Format.JSON);
+        }
+        MimeTypeUtils.sortBySpecificity(requested);
+        requested.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType m : requested) {
+            if (m.getQualityValue() <= 0) continue;
+            for (Format f : Format.values()) {
+                if (m.includes(f.mediaType)) return Optional.of(f);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Body> get(String quizCode, Format format) {
+        if (quizCode == null || quizCode.isBlank()) return Optional.empty();
+        Key key = new Key(quizCode, format);
+        Body cached = bodies.get(key);
+        if (cached != null && System.nanoTime() - cached.createdNanos() < ttlNanos) return Optional.of(cached);
+
+        Optional<QuizService.QuizDetail> quiz = quizService.getQuizByCode(quizCode);
+        if (quiz.isEmpty()) {
+            bodies.remove(key);
+            return Optional.empty();
+        }
+        Body body = encode(quiz.get(), format);
+        if (bodies.size() >= maxEntries && !bodies.containsKey(key)) evictOne();
+        bodies.put(key, body);
+        return Optional.of(body);
+    }
+
+    public void evict(String quizCode) {
+        if (quizCode == null) return;
+        for (Format f : Format.values()) bodies.remove(new Key(quizCode, f));
+    }
+
+    public void evictById(Long quizId) {
+        if (quizId != null) bodies.values().removeIf(b -> quizId.equals(b.quizId()));
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.QUIZ && change != CacheInvalidationBus.Change.DELETED) return;
+        for (CacheInvalidationBus.Key k : keys) evict(k.quizCode());
+    }
+
+    @Override
+    public void onResync() {
+        bodies.clear();
+    }
+
+    private Body encode(QuizService.QuizDetail quiz, Format format) {
+        try {
+            byte[] identity = mappers.get(format).writeValueAsBytes(quiz);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, identity.length / 3));
+            try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                gz.write(identity);
+            }
+            return new Body(quiz.id(), format, identity, out.toByteArray(), System.nanoTime());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Evict the first entry that is not a trending quiz (or the first entry if all scanned are). */
+    private void evictOne() {
+        Key victim = null;
+        int scanned = 0;
+        for (Key k : bodies.keySet()) {
+            if (victim == null) victim = k;
+            if (!trendingService.isHot(k.quizCode())) {
+                victim = k;
+                break;
+            }
+            if (++scanned >= MAX_EVICTION_SCAN) break;
+        }
+        if (victim != null) bodies.remove(victim);
+    }
+}
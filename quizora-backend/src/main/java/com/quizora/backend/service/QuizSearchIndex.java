@@ -0,0 +1,333 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Quiz;
+import com.quizora.backend.repository.QuizRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over quiz title, description and code for the catalogue search.
+ *
+ * Terms are lower-cased, accent-folded words. Postings map a term to the quizzes containing it with
+ * a field weight (code > title > description); the term dictionary is sorted, so a query word also
+ * matches every term it prefixes, and words of four or more letters also match terms within one
+ * edit (two from eight letters; words longer than twenty letters skip the typo pass, whose cost
+ * grows with word length). A quiz's score is the sum over query words of its best match,
+ * scaled by the share of query words it matched; the top K are kept in a bounded heap. Queries are
+ * cut to app.search.max-query-chars characters and their first app.search.max-query-words distinct
+ * words, so one request cannot make the index scan the dictionary an unbounded number of times.
+ *
+ * Built from Postgres at startup, then kept current by quiz creates, deletes and Firestore sync
+ * upserts (after commit), and by other instances' changes over the cache bus.
+ */
+@Service
+public class QuizSearchIndex implements CacheInvalidationBus.Listener {
+
+    public record Hit(Long id, String quizCode, String title, String description, String difficulty,
+                      Instant createdAt, double score) {}
+
+    private static final int W_CODE = 8;
+    private static final int W_TITLE = 3;
+    private static final int W_DESCRIPTION = 1;
+    private static final double PREFIX_FACTOR = 0.6;
+    private static final double TYPO_FACTOR = 0.4;
+    private static final int MIN_TYPO_WORD = 4;
+    private static final int MAX_TYPO_WORD = 20;
+
+    private record Doc(Long id, String quizCode, String title, String description, String difficulty,
+                       Instant createdAt, Map<String, Integer> terms) {}
+
+    private final QuizRepository quizRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, Long> idByCode = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // Quizzes changed while a rebuild is reading Postgres; their live state wins over the snapshot
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+    private final int maxResults;
+    private final int maxPrefixTerms;
+    private final int maxQueryChars;
+    private final int maxQueryWords;
+    private boolean rebuilding;
+
+    public QuizSearchIndex(QuizRepository quizRepository,
+                           CacheInvalidationBus cacheBus,
+                           @Value("${app.search.max-results:100}") int maxResults,
+                           @Value("${app.search.max-prefix-terms:200}") int maxPrefixTerms,
+                           @Value("${app.search.max-query-chars:200}") int maxQueryChars,
+                           @Value("${app.search.max-query-words:8}") int maxQueryWords) {
+        this.quizRepository = quizRepository;
+        this.maxResults = Math.max(1, maxResults);
+        this.maxPrefixTerms = Math.max(1, maxPrefixTerms);
+        this.maxQueryChars = Math.max(1, maxQueryChars);
+        this.maxQueryWords = Math.max(1, maxQueryWords);
+        cacheBus.addListener(this);
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread t = new Thread(this::rebuild, "quiz-search-index");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Index (or re-index) a quiz once the current transaction commits. */
+    public void index(Quiz q) {
+        Doc d = doc(q.getId(), q.getQuizCode(), q.getTitle(), q.getDescription(), q.getDifficulty(), q.getCreatedAt());
+        afterCommit(() -> put(d));
+    }
+
+    /** Drop quizzes once the current transaction commits. */
+    public void remove(Collection<Long> quizIds) {
+        List<Long> ids = List.copyOf(quizIds);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                ids.forEach(this::unindex);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Best matches for {@code query}, optionally limited to one difficulty (case-insensitive). A blank
+     * query lists the newest quizzes.
+     */
+    public List<Hit> search(String query, String difficulty, int limit) {
+        int k = Math.max(1, Math.min(maxResults, limit));
+        String level = difficulty != null && !difficulty.isBlank() ? difficulty.trim() : null;
+        String q = query != null && query.length() > maxQueryChars ? query.substring(0, maxQueryChars) : query;
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(q)));
+        if (words.size() > maxQueryWords) words = words.subList(0, maxQueryWords);
+        lock.readLock().lock();
+        try {
+            if (words.isEmpty()) return newest(level, k);
+            Map<Long, double[]> acc = new HashMap<>(); // [score, words matched]
+            for (String w : words) {
+                Map<Long, Double> best = new HashMap<>();
+                Map<Long, Integer> exact = postings.get(w);
+                if (exact != null) exact.forEach((id, weight) -> best.merge(id, (double) weight, Math::max));
+                int seen = 0;
+                for (Map.Entry<String, Map<Long, Integer>> e : postings.subMap(w, false, w + Character.MAX_VALUE, false).entrySet()) {
+                    if (++seen > maxPrefixTerms) break;
+                    e.getValue().forEach((id, weight) -> best.merge(id, weight * PREFIX_FACTOR, Math::max));
+                }
+                int maxEdits = w.length() < MIN_TYPO_WORD || w.length() > MAX_TYPO_WORD ? 0 : w.length() >= 8 ? 2 : 1;
+                if (maxEdits > 0) {
+                    // Typos rarely hit the first letter; only compare terms that share it
+                    String first = w.substring(0, 1);
+                    for (Map.Entry<String, Map<Long, Integer>> e : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                        String term = e.getKey();
+                        if (term.equals(w) || Math.abs(term.length() - w.length()) > maxEdits) continue;
+                        if (editDistance(w, term, maxEdits) > maxEdits) continue;
+                        e.getValue().forEach((id, weight) -> best.merge(id, weight * TYPO_FACTOR, Math::max));
+                    }
+                }
+                best.forEach((id, score) -> {
+                    double[] a = acc.computeIfAbsent(id, x -> new double[2]);
+                    a[0] += score;
+                    a[1]++;
+                });
+            }
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+            for (Map.Entry<Long, double[]> e : acc.entrySet()) {
+                Doc d = docs.get(e.getKey());
+                if (d == null || (level != null && !level.equalsIgnoreCase(d.difficulty()))) continue;
+                double score = e.getValue()[0] * (e.getValue()[1] / words.size());
+                if (top.size() < k) top.add(hit(d, score));
+                else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(hit(d, score));
+                }
+            }
+            List<Hit> out = new ArrayList<>(top);
+            out.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::id, Comparator.reverseOrder()));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Catalogue entry for a quiz code (score 0), if the quiz is indexed. */
+    public Optional<Hit> find(String quizCode) {
+        lock.readLock().lock();
+        try {
+            Long id = idByCode.get(quizCode);
+            Doc d = id != null ? docs.get(id) : null;
+            return d != null ? Optional.of(hit(d, 0)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change == CacheInvalidationBus.Change.DELETED) {
+            List<Long> ids = keys.stream().map(CacheInvalidationBus.Key::quizId).filter(Objects::nonNull).toList();
+            remove(ids);
+        } else if (change == CacheInvalidationBus.Change.QUIZ) {
+            for (CacheInvalidationBus.Key k : keys) {
+                if (k.quizId() == null) continue;
+                quizRepository.findSearchViewById(k.quizId()).ifPresent(v -> put(doc(v)));
+            }
+        }
+    }
+
+    @Override
+    public void onResync() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Doc> all;
+        try {
+            all = quizRepository.findSearchViews().stream().map(QuizSearchIndex::doc).toList();
+        } catch (Exception e) {
+            System.err.println("[Search] index build failed: " + e.getMessage());
+            all = null;
+        }
+        lock.writeLock().lock();
+        try {
+            rebuilding = false;
+            if (all == null) return;
+            List<Doc> live = new ArrayList<>();
+            for (Long id : changedDuringRebuild) {
+                Doc d = docs.get(id);
+                if (d != null) live.add(d);
+            }
+            docs.clear();
+            idByCode.clear();
+            postings.clear();
+            for (Doc d : all) {
+                if (!changedDuringRebuild.contains(d.id())) add(d);
+            }
+            live.forEach(this::add);
+            changedDuringRebuild.clear();
+            System.out.println("[Search] indexed " + docs.size() + " quizzes, " + postings.size() + " terms");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Hit> newest(String level, int k) {
+        return docs.values().stream()
+                .filter(d -> level == null || level.equalsIgnoreCase(d.difficulty()))
+                .sorted(Comparator.comparing(Doc::id).reversed())
+                .limit(k)
+                .map(d -> hit(d, 0))
+                .toList();
+    }
+
+    private void put(Doc d) {
+        lock.writeLock().lock();
+        try {
+            unindex(d.id());
+            add(d);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Doc d) {
+        docs.put(d.id(), d);
+        if (d.quizCode() != null) idByCode.put(d.quizCode(), d.id());
+        d.terms().forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(d.id(), weight));
+    }
+
+    private void unindex(Long id) {
+        if (rebuilding) changedDuringRebuild.add(id);
+        Doc old = docs.remove(id);
+        if (old == null) return;
+        if (old.quizCode() != null) idByCode.remove(old.quizCode(), id);
+        for (String term : old.terms().keySet()) {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static Hit hit(Doc d, double score) {
+        return new Hit(d.id(), d.quizCode(), d.title(), d.description(), d.difficulty(), d.createdAt(), score);
+    }
+
+    private static Doc doc(QuizRepository.QuizSearchView v) {
+        return doc(v.getId(), v.getQuizCode(), v.getTitle(), v.getDescription(), v.getDifficulty(), v.getCreatedAt());
+    }
+
+    private static Doc doc(Long id, String code, String title, String description, String difficulty, Instant createdAt) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String t : tokenize(description)) terms.merge(t, W_DESCRIPTION, Math::max);
+        for (String t : tokenize(title)) terms.merge(t, W_TITLE, Math::max);
+        if (code != null && !code.isBlank()) terms.merge(code.toLowerCase(Locale.ROOT), W_CODE, Math::max);
+        return new Doc(id, code, title, description, difficulty, createdAt, terms);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        for (String t : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    /** Optimal string alignment distance, giving up (returning max + 1) once it must exceed {@code max}. */
+    static int editDistance(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        int[] prev2 = new int[m + 1], prev = new int[m + 1], cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m];
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
@@ -4,11 +4,18 @@ import com.quizora.backend.model.Participant;
 import com.quizora.backend.model.Question;
 import com.quizora.backend.model.Quiz;
 import com.quizora.backend.model.Submission;
+import com.quizora.backend.model.SubmitReceipt;
 import com.quizora.backend.repository.ParticipantRepository;
+import com.quizora.backend.repository.QuestionRepository;
 import com.quizora.backend.repository.QuizRepository;
 import com.quizora.backend.repository.SubmissionRepository;
+import com.quizora.backend.repository.SubmitReceiptRepository;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.security.SecureRandom;
 import java.time.Instant;
@@ -19,23 +26,63 @@ public class QuizService {
 
     private final QuizRepository quizRepository;
     private final ParticipantRepository participantRepository;
+    private final QuestionRepository questionRepository;
     private final SubmissionRepository submissionRepository;
+    private final SubmitReceiptRepository submitReceiptRepository;
     private final LeaderboardService leaderboardService;
     private final UserStatsService userStatsService;
+    private final RoomSessionService roomSessionService;
+    private final LiveQuizService liveQuizService;
+    private final QuizCodeCache quizCodeCache;
+    private final ParticipantJoinBatcher joinBatcher;
+    private final QuizEntityCache quizEntityCache;
+    private final RoomStandingsService roomStandingsService;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final CacheInvalidationBus cacheBus;
+    private final QuizSearchIndex quizSearchIndex;
+    private final TrendingService trendingService;
+    private final PresenceService presenceService;
 
     private static final char[] CODE_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
     private static final SecureRandom RAND = new SecureRandom();
+    private static final int DELETE_CHUNK = 1000;
 
     public QuizService(QuizRepository quizRepository,
                        ParticipantRepository participantRepository,
+                       QuestionRepository questionRepository,
                        SubmissionRepository submissionRepository,
+                       SubmitReceiptRepository submitReceiptRepository,
                        LeaderboardService leaderboardService,
-                       UserStatsService userStatsService) {
+                       UserStatsService userStatsService,
+                       RoomSessionService roomSessionService,
+                       LiveQuizService liveQuizService,
+                       QuizCodeCache quizCodeCache,
+                       ParticipantJoinBatcher joinBatcher,
+                       QuizEntityCache quizEntityCache,
+                       RoomStandingsService roomStandingsService,
+                       SubmissionArchiveService submissionArchiveService,
+                       CacheInvalidationBus cacheBus,
+                       QuizSearchIndex quizSearchIndex,
+                       TrendingService trendingService,
+                       PresenceService presenceService) {
         this.quizRepository = quizRepository;
         this.participantRepository = participantRepository;
+        this.questionRepository = questionRepository;
         this.submissionRepository = submissionRepository;
+        this.submitReceiptRepository = submitReceiptRepository;
         this.leaderboardService = leaderboardService;
         this.userStatsService = userStatsService;
+        this.roomSessionService = roomSessionService;
+        this.liveQuizService = liveQuizService;
+        this.quizCodeCache = quizCodeCache;
+        this.joinBatcher = joinBatcher;
+        this.quizEntityCache = quizEntityCache;
+        this.roomStandingsService = roomStandingsService;
+        this.submissionArchiveService = submissionArchiveService;
+        this.cacheBus = cacheBus;
+        this.quizSearchIndex = quizSearchIndex;
+        this.trendingService = trendingService;
+        this.presenceService = presenceService;
     }
 
     private String generateUniqueCode() {
@@ -58,33 +105,100 @@ public class QuizService {
             }
         }
         quiz.setQuizCode(generateUniqueCode());
-        return quizRepository.save(quiz);
+        Quiz saved = quizRepository.save(quiz);
+        quizSearchIndex.index(saved);
+        cacheBus.publish(CacheInvalidationBus.Change.QUIZ, saved.getQuizCode(), saved.getId());
+        return saved;
+    }
+
+    /*
+     * Read models for the public endpoints. They are built inside the read-only transaction from
+     * fetch-planned queries, so serialization never touches a lazy association.
+     */
+
+    public record QuestionDetail(Long id, String questionText, String optionA, String optionB, String optionC,
+                                 String optionD, String correctAnswer, Integer marks, Integer timer) {
+        static QuestionDetail of(Question q) {
+            return new QuestionDetail(q.getId(), q.getQuestionText(), q.getOptionA(), q.getOptionB(), q.getOptionC(),
+                    q.getOptionD(), q.getCorrectAnswer(), q.getMarks(), q.getTimer());
+        }
+    }
+
+    public record QuizDetail(Long id, String title, String description, String difficulty, Integer sessionTimer,
+                             String quizCode, Instant createdAt, String creatorUid, String creatorName,
+                             List<QuestionDetail> questions) {
+        static QuizDetail of(Quiz q) {
+            return new QuizDetail(q.getId(), q.getTitle(), q.getDescription(), q.getDifficulty(), q.getSessionTimer(),
+                    q.getQuizCode(), q.getCreatedAt(), q.getCreatorUid(), q.getCreatorName(),
+                    q.getQuestions().stream().map(QuestionDetail::of).toList());
+        }
+    }
+
+    public record ParticipantRow(Long id, String name, Instant joinedAt) {}
+
+    public record ResultRow(Long id, String participantName, int totalQuestions, int totalCorrect, int totalScore,
+                            int durationSeconds, Instant submittedAt) {
+        public static ResultRow of(Submission s) {
+            return new ResultRow(s.getId(), s.getParticipantName(), s.getTotalQuestions(), s.getTotalCorrect(),
+                    s.getTotalScore(), s.getDurationSeconds(), s.getSubmittedAt());
+        }
+
+        static ResultRow of(SubmissionRepository.ResultView v) {
+            return new ResultRow(v.getId(), v.getParticipantName(), v.getTotalQuestions(), v.getTotalCorrect(),
+                    v.getTotalScore(), v.getDurationSeconds(), v.getSubmittedAt());
+        }
     }
 
     @Transactional(readOnly = true)
-    public Optional<Quiz> getQuizByCode(String code) {
-        return quizRepository.findByQuizCode(code);
+    public Optional<QuizDetail> getQuizByCode(String code) {
+        return quizRepository.findWithQuestionsByQuizCode(code).map(QuizDetail::of);
     }
 
     @Transactional(readOnly = true)
-    public List<Quiz> getAllQuizzes() {
-        return quizRepository.findAll();
+    public List<QuizDetail> getAllQuizzes() {
+        return quizRepository.findAllWithQuestions().stream().map(QuizDetail::of).toList();
     }
 
-    @Transactional
-    public Optional<Quiz> registerParticipant(String code, String participantName) {
-        Optional<Quiz> quizOpt = quizRepository.findByQuizCode(code);
-        if (quizOpt.isEmpty()) return Optional.empty();
-        Quiz quiz = quizOpt.get();
-        participantRepository.findByQuizIdAndName(quiz.getId(), participantName)
-                .orElseGet(() -> {
-                    Participant p = new Participant();
-                    p.setQuiz(quiz);
-                    p.setName(participantName);
-                    p.setJoinedAt(Instant.now());
-                    return participantRepository.save(p);
-                });
-        return Optional.of(quiz);
+    public record JoinResult(Long quizId, String quizCode, String name, Instant joinedAt) {}
+
+    /**
+     * Join fast path: quiz id from the code cache, then a batched INSERT ... ON CONFLICT DO NOTHING.
+     * Deliberately not @Transactional so no connection is held while the batch is flushed.
+     */
+    public Optional<JoinResult> registerParticipant(String code, String participantName) {
+        Optional<QuizCodeCache.QuizRef> refOpt = quizCodeCache.resolve(code);
+        if (refOpt.isEmpty()) return Optional.empty();
+        QuizCodeCache.QuizRef ref = refOpt.get();
+
+        // Re-join while the attempt is open: nothing to write
+        Instant start = roomSessionService.openSince(code, participantName);
+        if (start == null) {
+            Instant now = Instant.now();
+            if (joinBatcher.insertIfAbsent(ref.id(), participantName, now)) {
+                start = roomSessionService.begin(code, participantName, ref.timeLimitSeconds(), null, now);
+                // Only first joins count; re-joins and retried requests would inflate a room's activity
+                trendingService.recordJoin(code);
+            } else {
+                start = rejoin(ref, participantName, now);
+            }
+        }
+        liveQuizService.playerJoined(code, participantName);
+        presenceService.touch(code, participantName);
+        return Optional.of(new JoinResult(ref.id(), code, participantName, start));
+    }
+
+    /** Existing participant without an in-memory session: resume an unfinished attempt or start a new one. */
+    private Instant rejoin(QuizCodeCache.QuizRef ref, String participantName, Instant now) {
+        Participant p = participantRepository.findByQuizIdAndName(ref.id(), participantName).orElse(null);
+        Instant previous = p != null ? p.getJoinedAt() : null;
+        if (previous != null && submissionRepository.existsAttemptAfter(ref.id(), p.getId(), participantName, previous)) {
+            previous = null; // a join after a submission starts a new attempt
+        }
+        Instant start = roomSessionService.begin(ref.quizCode(), participantName, ref.timeLimitSeconds(), previous, now);
+        if (p != null && !start.equals(p.getJoinedAt())) {
+            participantRepository.updateJoinedAt(ref.id(), p.getId(), start);
+        }
+        return start;
     }
 
     public static class AnswerDTO {
@@ -93,12 +207,17 @@ public class QuizService {
     }
 
     @Transactional
-    public Optional<Submission> submitAnswers(String quizCode, String participantName, List<AnswerDTO> answers, Integer durationSeconds, String uid) {
+    public Optional<Submission> submitAnswers(String quizCode, String participantName, List<AnswerDTO> answers, String uid, SubmitReceipt receipt) {
         System.out.println("[Submit] quizCode=" + quizCode + ", name=" + participantName + ", uid(token)=" + (uid==null?"null":uid));
         Optional<Quiz> quizOpt = quizRepository.findByQuizCode(quizCode);
         if (quizOpt.isEmpty()) return Optional.empty();
         Quiz quiz = quizOpt.get();
 
+        // Duration is measured from the server-side join; the client's claim is ignored
+        Participant participant = participantRepository.findByQuizIdAndName(quiz.getId(), participantName).orElse(null);
+        Instant joinedAt = participant != null ? participant.getJoinedAt() : null;
+        int serverDuration = roomSessionService.finish(quizCode, participantName, roomSessionService.timeLimitSeconds(quiz), joinedAt);
+
         Map<Long, String> selectedByQ = new HashMap<>();
         if (answers != null) {
             for (AnswerDTO a : answers) {
@@ -121,19 +240,69 @@ public class QuizService {
             }
         }
 
+        if (participant == null) {
+            // Open in-memory session whose row is gone (e.g. deleted and re-created quiz): re-create it
+            participant = ensureParticipant(quiz.getId(), participantName);
+        }
+        return Optional.of(recordAttempt(quiz, participant, totalQuestions, correct, score, serverDuration, uid, receipt));
+    }
+
+    /**
+     * Persist the final standings of a live game. Every player goes through the same path as a
+     * regular submit; the room is closed once the transaction commits.
+     */
+    @Transactional
+    public List<LiveQuizService.StandingRow> endLive(String quizCode, String uid) {
+        LiveQuizService.FinalStandings result = liveQuizService.end(quizCode, uid);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) liveQuizService.closed(quizCode, result.rows());
+                else liveQuizService.endFailed(quizCode);
+            }
+        });
+        Quiz quiz = quizRepository.getReferenceById(result.quizId());
+        for (LiveQuizService.StandingRow row : result.rows()) {
+            Participant participant = participantRepository.findByQuizIdAndName(result.quizId(), row.name()).orElse(null);
+            // Every player joins through /join, so this only covers a row deleted mid-game
+            if (participant == null) participant = ensureParticipant(result.quizId(), row.name());
+            recordAttempt(quiz, participant, result.totalQuestions(), row.correct(), row.score(),
+                    (int) (row.responseMillis() / 1000), null, null);
+        }
+        return result.rows();
+    }
+
+    /** Called inside the submit/endLive transaction, so the insert goes on that transaction's connection. */
+    private Participant ensureParticipant(Long quizId, String name) {
+        joinBatcher.insertNow(quizId, name, Instant.now());
+        return participantRepository.findByQuizIdAndName(quizId, name)
+                .orElseThrow(() -> new IllegalStateException("Participant row missing after insert"));
+    }
+
+    /** One attempt: submission row, standings board, leaderboard mirror, then stats and XP. */
+    private Submission recordAttempt(Quiz quiz, Participant participant, int totalQuestions, int correct, int score,
+                                     int durationSeconds, String uid, SubmitReceipt receipt) {
+        String quizCode = quiz.getQuizCode();
+        String participantName = participant.getName();
         // Create a new submission (multiple attempts allowed)
         Submission sub = new Submission();
         sub.setQuiz(quiz);
-        sub.setParticipantName(participantName);
+        sub.setParticipant(participant);
         sub.setTotalQuestions(totalQuestions);
         sub.setTotalCorrect(correct);
         sub.setTotalScore(score);
-        sub.setDurationSeconds(durationSeconds != null ? durationSeconds : 0);
+        sub.setDurationSeconds(durationSeconds);
         sub.setSubmittedAt(Instant.now());
         submissionRepository.save(sub);
+        roomStandingsService.submitted(quizCode, sub);
+        if (receipt != null) {
+            // Flush now so a concurrent duplicate fails here, before any leaderboard/XP side effects
+            receipt.setSubmissionId(sub.getId());
+            submitReceiptRepository.saveAndFlush(receipt);
+        }
 
         // push to leaderboard (also mirrors to Firestore for realtime reads)
-        leaderboardService.updateScore(quizCode, participantName, score, durationSeconds != null ? durationSeconds : 0, uid);
+        leaderboardService.updateScore(quizCode, participantName, score, durationSeconds, uid);
 
         // Resolve uid by display name if token missing (best-effort) then record attempt stats
         try {
@@ -153,37 +322,108 @@ public class QuizService {
                 userStatsService.awardPerformance(effectiveUid, quizCode, xpAward, percent);
             }
         } catch (Exception ignored) {}
-        return Optional.of(sub);
+        afterCommit(() -> trendingService.recordSubmit(quizCode));
+        return sub;
     }
 
     @Transactional(readOnly = true)
-    public List<Participant> listParticipants(String quizCode) {
-        Optional<Quiz> quizOpt = quizRepository.findByQuizCode(quizCode);
-        if (quizOpt.isEmpty()) return Collections.emptyList();
-        return participantRepository.findByQuizId(quizOpt.get().getId());
+    public List<ParticipantRow> listParticipants(String quizCode) {
+        Long quizId = quizCodeCache.resolve(quizCode).map(QuizCodeCache.QuizRef::id).orElse(null);
+        if (quizId == null) return List.of();
+        return participantRepository.findViewsByQuizId(quizId).stream()
+                .map(p -> new ParticipantRow(p.getId(), p.getName(), p.getJoinedAt()))
+                .toList();
     }
 
     @Transactional(readOnly = true)
-    public List<Submission> listResults(String quizCode) {
-        Optional<Quiz> quizOpt = quizRepository.findByQuizCode(quizCode);
-        if (quizOpt.isEmpty()) return Collections.emptyList();
-        List<Submission> list = submissionRepository.findByQuizId(quizOpt.get().getId());
-        // Keep only the latest attempt per participant
-        Map<String, Submission> latestByName = new HashMap<>();
-        for (Submission s : list) {
-            Submission cur = latestByName.get(s.getParticipantName());
-            if (cur == null || (s.getSubmittedAt() != null && s.getSubmittedAt().isAfter(cur.getSubmittedAt()))) {
-                latestByName.put(s.getParticipantName(), s);
+    public List<ResultRow> listResults(String quizCode) {
+        Long quizId = quizCodeCache.resolve(quizCode).map(QuizCodeCache.QuizRef::id).orElse(null);
+        if (quizId == null) return List.of();
+        // Latest attempt per participant, picked in the database on participant_id
+        List<ResultRow> uniqueLatest = new ArrayList<>();
+        for (SubmissionRepository.ResultView v : submissionRepository.findLatestResultViewsByQuizId(quizId)) uniqueLatest.add(ResultRow.of(v));
+        // Archived quizzes keep only each participant's latest attempt in Postgres; older ones live in the segment
+        if (submissionArchiveService.isArchived(quizId)) {
+            // Segment records carry names only (unique per quiz); merge on those
+            Map<String, ResultRow> latestByName = new HashMap<>();
+            for (ResultRow r : uniqueLatest) latestByName.put(r.participantName(), r);
+            for (ResultRow r : submissionArchiveService.latestResults(quizId)) {
+                ResultRow cur = latestByName.get(r.participantName());
+                if (cur == null || (r.submittedAt() != null && r.submittedAt().isAfter(cur.submittedAt()))) {
+                    latestByName.put(r.participantName(), r);
+                }
             }
+            uniqueLatest = new ArrayList<>(latestByName.values());
         }
-        List<Submission> uniqueLatest = new ArrayList<>(latestByName.values());
-        uniqueLatest.sort(Comparator.comparing(Submission::getTotalScore).reversed()
-                .thenComparing(Submission::getDurationSeconds));
+        uniqueLatest.sort(Comparator.comparingInt(ResultRow::totalScore).reversed()
+                .thenComparingInt(ResultRow::durationSeconds));
         return uniqueLatest;
     }
 
+    /**
+     * Delete the quizzes among {@code ids} that {@code uid} created; returns the ids deleted. Others'
+     * quizzes and unknown ids are left alone.
+     *
+     * @throws ResponseStatusException 401 without a verified uid
+     */
     @Transactional
-    public void deleteQuiz(Long id) {
-        quizRepository.deleteById(id);
+    public List<Long> deleteOwnedQuizzes(Collection<Long> ids, String uid) {
+        if (uid == null || uid.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sign in to delete quizzes");
+        }
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<Long> owned = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += DELETE_CHUNK) {
+            owned.addAll(quizRepository.findIdsByIdInAndCreatorUid(distinct.subList(from, Math.min(distinct.size(), from + DELETE_CHUNK)), uid));
+        }
+        if (!owned.isEmpty()) deleteQuizzes(owned);
+        return owned;
+    }
+
+    /**
+     * Set-based delete of quizzes and everything referencing them, children first (submissions,
+     * participants, questions, then quizzes), without loading any entity. Returns quizzes deleted.
+     */
+    @Transactional
+    public int deleteQuizzes(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        int deleted = 0;
+        List<QuizRepository.QuizCodeView> codes = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += DELETE_CHUNK) {
+            List<Long> chunk = distinct.subList(from, Math.min(distinct.size(), from + DELETE_CHUNK));
+            codes.addAll(quizRepository.findCodesByIdIn(chunk));
+            submissionRepository.deleteByQuizIdIn(chunk);
+            participantRepository.deleteByQuizIdIn(chunk);
+            questionRepository.deleteByQuizIdIn(chunk);
+            deleted += quizRepository.deleteByIdIn(chunk);
+        }
+        if (deleted == 0) return 0;
+        for (QuizRepository.QuizCodeView q : codes) {
+            cacheBus.publish(CacheInvalidationBus.Change.DELETED, q.getQuizCode(), q.getId());
+        }
+        // Each of these defers its work to after commit itself (a rollback keeps the caches); a
+        // synchronization registered from inside another one's afterCommit would never run
+        for (QuizRepository.QuizCodeView q : codes) {
+            roomStandingsService.evict(q.getQuizCode());
+            quizCodeCache.evict(q.getQuizCode());
+        }
+        for (Long id : distinct) submissionArchiveService.discard(id);
+        quizEntityCache.evictDeleted(distinct);
+        quizSearchIndex.remove(distinct);
+        leaderboardService.clearAsync(codes.stream().map(QuizRepository.QuizCodeView::getQuizCode).toList());
+        return deleted;
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
     }
 }
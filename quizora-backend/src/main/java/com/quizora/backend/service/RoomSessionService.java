@@ -0,0 +1,174 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Question;
+import com.quizora.backend.model.Quiz;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-authoritative attempt clock for quiz rooms.
+ *
+ * A session starts when a participant calls /join and ends when they submit or when the room's
+ * time limit (plus a small grace period) runs out. Deadlines live in a single hashed-wheel timer,
+ * so open sessions cost one map entry and one wheel slot each rather than a scheduled task.
+ *
+ * The in-memory map is only a fast path: after a restart or eviction the participant's persisted
+ * joinedAt is used as the start of the attempt, so the deadline still holds. The same holds in
+ * cluster mode: sessions of rooms that move to another member are dropped here, and the new owner
+ * resumes each attempt from joinedAt.
+ */
+@Service
+public class RoomSessionService implements ClusterRing.Listener {
+
+    public record SessionView(String quizCode, String name, Instant startedAt, Instant deadline) {}
+
+    private static final class Session {
+        final Instant startedAt;
+        final Instant deadline; // null when the quiz has no time limit
+        volatile HashedWheelTimer.Timeout timeout;
+
+        Session(Instant startedAt, Instant deadline) {
+            this.startedAt = startedAt;
+            this.deadline = deadline;
+        }
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer;
+    private final ClusterRing clusterRing;
+    private final long graceSeconds;
+    private final long idleTtlSeconds;
+
+    public RoomSessionService(HashedWheelTimer roomTimer,
+                              ClusterRing clusterRing,
+                              @Value("${app.session.grace-seconds:5}") long graceSeconds,
+                              @Value("${app.session.idle-ttl-minutes:180}") long idleTtlMinutes) {
+        this.timer = roomTimer;
+        this.clusterRing = clusterRing;
+        this.graceSeconds = Math.max(0, graceSeconds);
+        this.idleTtlSeconds = Math.max(60, idleTtlMinutes * 60);
+        clusterRing.addListener(this);
+    }
+
+    /** Drop sessions of rooms this node no longer owns; if a room comes back they resume from joinedAt. */
+    @Override
+    public void onRingChanged() {
+        sessions.entrySet().removeIf(e -> {
+            String key = e.getKey();
+            if (clusterRing.isLocal(key.substring(0, key.indexOf('\u0000')))) return false;
+            HashedWheelTimer.Timeout t = e.getValue().timeout;
+            if (t != null) t.cancel();
+            return true;
+        });
+    }
+
+    /**
+     * Time limit for one attempt in seconds: the quiz-wide sessionTimer (minutes) when set,
+     * otherwise the sum of per-question timers. Returns 0 when the quiz is untimed.
+     */
+    public long timeLimitSeconds(Quiz quiz) {
+        long sum = 0;
+        if (quiz.getSessionTimer() == null || quiz.getSessionTimer() <= 0) {
+            for (Question q : quiz.getQuestions()) {
+                Integer t = q.getTimer();
+                if (t != null && t > 0) sum += t;
+            }
+        }
+        return timeLimitSeconds(quiz.getSessionTimer(), sum);
+    }
+
+    public static long timeLimitSeconds(Integer sessionTimerMinutes, long questionTimerSumSeconds) {
+        if (sessionTimerMinutes != null && sessionTimerMinutes > 0) return sessionTimerMinutes * 60L;
+        return Math.max(0, questionTimerSumSeconds);
+    }
+
+    /**
+     * Start (or resume) the attempt clock for a participant.
+     *
+     * @param limit        attempt time limit in seconds, 0 when untimed
+     * @param previousJoin persisted joinedAt of an existing participant row, or null for a first join
+     * @param now          start to use when a fresh attempt begins
+     * @return the effective start of the attempt; callers persist it when it differs from previousJoin
+     */
+    public Instant begin(String quizCode, String name, long limit, Instant previousJoin, Instant now) {
+        String key = key(quizCode, name);
+        Session open = sessions.get(key);
+        if (open != null) return open.startedAt; // re-joining must not reset the clock
+
+        Instant start = now;
+        if (previousJoin != null && limit > 0 && previousJoin.plusSeconds(limit + graceSeconds).isAfter(now)) {
+            start = previousJoin; // attempt still running from before a restart/eviction
+        }
+        Instant deadline = limit > 0 ? start.plusSeconds(limit) : null;
+        Session s = new Session(start, deadline);
+        Session raced = sessions.putIfAbsent(key, s);
+        if (raced != null) return raced.startedAt;
+
+        long expiresIn = deadline != null
+                ? Duration.between(now, deadline).getSeconds() + graceSeconds
+                : idleTtlSeconds;
+        s.timeout = timer.schedule(() -> sessions.remove(key, s), Math.max(0, expiresIn), TimeUnit.SECONDS);
+        return start;
+    }
+
+    /**
+     * Close the participant's attempt and return its server-measured duration in seconds.
+     *
+     * @param persistedJoin joinedAt from the participants table, used when no in-memory session exists
+     * @throws ResponseStatusException 409 when the participant never joined or the deadline has passed
+     */
+    public int finish(String quizCode, String name, long limit, Instant persistedJoin) {
+        Instant now = Instant.now();
+        Session s = sessions.remove(key(quizCode, name));
+        Instant start;
+        Instant deadline;
+        if (s != null) {
+            HashedWheelTimer.Timeout t = s.timeout;
+            if (t != null) t.cancel();
+            start = s.startedAt;
+            deadline = s.deadline;
+        } else {
+            if (persistedJoin == null) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Join the quiz before submitting");
+            }
+            start = persistedJoin;
+            deadline = limit > 0 ? start.plusSeconds(limit) : null;
+        }
+        if (deadline != null && now.isAfter(deadline.plusSeconds(graceSeconds))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Submission window closed");
+        }
+        long seconds = Math.max(0, Duration.between(start, now).getSeconds());
+        if (deadline != null) {
+            seconds = Math.min(seconds, Duration.between(start, deadline).getSeconds());
+        }
+        return (int) Math.min(seconds, Integer.MAX_VALUE);
+    }
+
+    /** Start of the participant's open attempt, or null when none is tracked in memory. */
+    public Instant openSince(String quizCode, String name) {
+        Session s = sessions.get(key(quizCode, name));
+        return s != null ? s.startedAt : null;
+    }
+
+    public SessionView view(String quizCode, String name) {
+        Session s = sessions.get(key(quizCode, name));
+        if (s == null) return null;
+        return new SessionView(quizCode, name, s.startedAt, s.deadline);
+    }
+
+    public int openSessions() {
+        return sessions.size();
+    }
+
+    private static String key(String quizCode, String name) {
+        return quizCode + '\u0000' + name;
+    }
+}
@@ -0,0 +1,498 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Submission;
+import com.quizora.backend.repository.SubmissionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * In-memory per-quiz standings (latest attempt per participant) with versioned deltas.
+ *
+ * Each board keeps its rows sorted by (score desc, duration asc, name) and a monotonically
+ * increasing version. Every change bumps the version and appends the names whose rank or score
+ * changed to a bounded ring buffer, so a poller that passes ?since=<version> gets only those rows.
+ * When the requested version has fallen out of the buffer (or predates a restart) the answer is a
+ * full snapshot instead.
+ *
+ * Boards are loaded from Postgres on first read and then follow committed submits; idle boards are
+ * dropped and simply reloaded on the next read.
+ *
+ * Active boards are periodically written to a compact binary snapshot. At boot the snapshot is
+ * memory-mapped and restored, and each restored board then only reads submissions newer than the
+ * snapshot (minus an overlap for transactions that were still committing), so a restart mid-exam
+ * does not reload every room from Postgres at once.
+ */
+@Service
+public class RoomStandingsService implements CacheInvalidationBus.Listener, ClusterRing.Listener {
+
+    public record Row(String name, int score, int durationSeconds, int rank) {}
+
+    /** full=true means rows is the whole leaderboard; otherwise only rows changed after "since". */
+    public record Delta(long version, boolean full, List<Row> rows) {}
+
+    private static final int SNAPSHOT_MAGIC = 0x51535444; // "QSTD"
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final SubmissionRepository submissionRepository;
+    private final QuizCodeCache quizCodeCache;
+    private final CacheInvalidationBus cacheBus;
+    private final ClusterRing clusterRing;
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final int historySize;
+    private final long idleNanos;
+    private final Path snapshotPath;
+    private final long catchUpOverlapSeconds;
+
+    public RoomStandingsService(SubmissionRepository submissionRepository,
+                                QuizCodeCache quizCodeCache,
+                                CacheInvalidationBus cacheBus,
+                                ClusterRing clusterRing,
+                                @Value("${app.standings.history-size:256}") int historySize,
+                                @Value("${app.standings.idle-minutes:30}") long idleMinutes,
+                                @Value("${app.standings.snapshot-path:data/standings.bin}") String snapshotPath,
+                                @Value("${app.standings.catch-up-overlap-seconds:60}") long catchUpOverlapSeconds) {
+        this.submissionRepository = submissionRepository;
+        this.quizCodeCache = quizCodeCache;
+        this.cacheBus = cacheBus;
+        this.clusterRing = clusterRing;
+        this.historySize = Math.max(8, historySize);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(Math.max(1, idleMinutes));
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.catchUpOverlapSeconds = Math.max(0, catchUpOverlapSeconds);
+        cacheBus.addListener(this);
+        clusterRing.addListener(this);
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!loadSnapshot()) return;
+        // Catch restored boards up in the background; a read that gets there first does it inline
+        Thread t = new Thread(() -> boards.forEach(this::catchUp), "standings-catch-up");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushSnapshot();
+    }
+
+    /** Full standings, in rank order. */
+    public List<Row> standings(String quizCode) {
+        return board(quizCode).snapshot();
+    }
+
+    /** Rows changed after {@code since}, or the full standings if that version is no longer retained. */
+    public Delta since(String quizCode, long since) {
+        return board(quizCode).since(since);
+    }
+
+    /** Apply a submission once its transaction commits. */
+    public void submitted(String quizCode, Submission s) {
+        submitted(quizCode, List.of(s));
+    }
+
+    public void submitted(String quizCode, List<Submission> subs) {
+        List<Attempt> attempts = new ArrayList<>(subs.size());
+        for (Submission s : subs) {
+            attempts.add(new Attempt(s.getParticipantName(), s.getTotalScore(), s.getDurationSeconds(), s.getSubmittedAt()));
+        }
+        afterCommit(() -> boards.computeIfPresent(quizCode, (k, b) -> {
+            if (b.apply(attempts)) dirty.set(true);
+            return b;
+        }));
+        cacheBus.publish(CacheInvalidationBus.Change.RESULTS, quizCode, null);
+    }
+
+    /**
+     * Another instance changed results: the board catches up from Postgres on its next read instead
+     * of being reloaded, so a busy room is not re-read in full on every remote submit.
+     */
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.RESULTS && change != CacheInvalidationBus.Change.DELETED) return;
+        Instant from = Instant.now().minusSeconds(catchUpOverlapSeconds);
+        for (CacheInvalidationBus.Key k : keys) {
+            if (change == CacheInvalidationBus.Change.DELETED) {
+                evict(k.quizCode());
+            } else {
+                Board b = boards.get(k.quizCode());
+                if (b != null) b.markStale(from);
+            }
+        }
+    }
+
+    @Override
+    public void onResync() {
+        // Notifications were missed for an unknown period; a full reload is the only safe catch-up
+        if (!boards.isEmpty()) dirty.set(true);
+        boards.clear();
+    }
+
+    /** Rooms that moved to another node are served there now; only moved rooms are dropped. */
+    @Override
+    public void onRingChanged() {
+        if (boards.keySet().removeIf(code -> !clusterRing.isLocal(code))) dirty.set(true);
+    }
+
+    /** Drop a quiz's board (after commit when called inside a transaction). */
+    public void evict(String quizCode) {
+        if (quizCode != null) afterCommit(() -> {
+            if (boards.remove(quizCode) != null) dirty.set(true);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.standings.sweep-interval-ms:60000}")
+    public void sweepIdle() {
+        long now = System.nanoTime();
+        if (boards.values().removeIf(b -> now - b.lastAccess > idleNanos)) dirty.set(true);
+    }
+
+    private Board board(String quizCode) {
+        // Loading inside computeIfAbsent makes a concurrent submit for this quiz wait for the load
+        Board b = boards.computeIfAbsent(quizCode, this::load);
+        if (b.catchUpFrom != null && !catchUp(quizCode, b)) return board(quizCode);
+        b.lastAccess = System.nanoTime();
+        return b;
+    }
+
+    /**
+     * Apply submissions made since a restored board's snapshot. Re-applying an attempt the board
+     * already has is a no-op, so overlapping with live submits is harmless. Returns false if the
+     * quiz no longer exists and the board was dropped.
+     */
+    private boolean catchUp(String quizCode, Board b) {
+        synchronized (b) {
+            if (b.catchUpFrom == null) return true;
+            try {
+                // The quiz may have been deleted while we were not watching
+                Long quizId = quizCodeCache.resolve(quizCode).map(QuizCodeCache.QuizRef::id).orElse(null);
+                if (quizId == null) {
+                    boards.remove(quizCode, b);
+                    dirty.set(true);
+                    return false;
+                }
+                List<Attempt> attempts = new ArrayList<>();
+                for (SubmissionRepository.ResultView v : submissionRepository.findResultViewsByQuizIdSince(quizId, b.catchUpFrom)) {
+                    attempts.add(new Attempt(v.getParticipantName(), v.getTotalScore(), v.getDurationSeconds(), v.getSubmittedAt()));
+                }
+                if (b.apply(attempts)) dirty.set(true);
+                b.catchUpFrom = null;
+            } catch (Exception e) {
+                // Fall back to a full reload rather than serve a board that may be missing submits
+                System.err.println("[Standings] catch-up failed for " + quizCode + ": " + e.getMessage());
+                boards.remove(quizCode, b);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private Board load(String quizCode) {
+        Board b = new Board(historySize);
+        List<Attempt> attempts = new ArrayList<>();
+        Long quizId = quizCodeCache.resolve(quizCode).map(QuizCodeCache.QuizRef::id).orElse(null);
+        if (quizId != null) {
+            for (SubmissionRepository.ResultView v : submissionRepository.findLatestResultViewsByQuizId(quizId)) {
+                attempts.add(new Attempt(v.getParticipantName(), v.getTotalScore(), v.getDurationSeconds(), v.getSubmittedAt()));
+            }
+        }
+        b.load(attempts);
+        dirty.set(true);
+        return b;
+    }
+
+    @Scheduled(fixedDelayString = "${app.standings.snapshot-interval-ms:15000}", initialDelayString = "${app.standings.snapshot-interval-ms:15000}")
+    public void flushSnapshot() {
+        if (!dirty.getAndSet(false)) return;
+        // Taken before copying so anything missing from a copy is newer than its watermark
+        Instant watermark = Instant.now().minusSeconds(catchUpOverlapSeconds);
+        List<byte[]> codes = new ArrayList<>();
+        List<Instant> watermarks = new ArrayList<>();
+        List<List<Attempt>> rows = new ArrayList<>();
+        int size = 4 + 4 + 4 + 8;
+        for (Map.Entry<String, Board> e : boards.entrySet()) {
+            Board b = e.getValue();
+            byte[] code = e.getKey().getBytes(StandardCharsets.UTF_8);
+            // A board still waiting to catch up is only complete up to its own catch-up point
+            Instant pending = b.catchUpFrom;
+            List<Attempt> attempts = b.attempts();
+            watermarks.add(pending != null && pending.isBefore(watermark) ? pending : watermark);
+            size += 2 + code.length + 8 + 4 + 4;
+            for (Attempt a : attempts) size += 2 + Math.min(65535, a.name().getBytes(StandardCharsets.UTF_8).length) + 4 + 4 + 8 + 4;
+            codes.add(code);
+            rows.add(attempts);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(codes.size());
+        for (int i = 0; i < codes.size(); i++) {
+            putString(buf, codes.get(i));
+            buf.putLong(watermarks.get(i).getEpochSecond()).putInt(watermarks.get(i).getNano());
+            buf.putInt(rows.get(i).size());
+            for (Attempt a : rows.get(i)) {
+                putString(buf, a.name().getBytes(StandardCharsets.UTF_8));
+                buf.putInt(a.score()).putInt(a.durationSeconds());
+                Instant at = a.submittedAt() != null ? a.submittedAt() : Instant.EPOCH;
+                buf.putLong(at.getEpochSecond()).putInt(at.getNano());
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putLong(crc.getValue());
+        buf.flip();
+        try {
+            Path dir = snapshotPath.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            System.err.println("[Standings] snapshot write failed: " + e.getMessage());
+        }
+    }
+
+    private boolean loadSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) return false;
+        try (FileChannel ch = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (in.capacity() < 20 || in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+                System.err.println("[Standings] ignoring snapshot with unknown format: " + snapshotPath);
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, in.capacity() - 8));
+            if (crc.getValue() != in.getLong(in.capacity() - 8)) {
+                System.err.println("[Standings] ignoring corrupt snapshot: " + snapshotPath);
+                return false;
+            }
+            int boardCount = in.getInt();
+            int rowCount = 0;
+            for (int i = 0; i < boardCount; i++) {
+                String code = getString(in);
+                Instant catchUpFrom = Instant.ofEpochSecond(in.getLong(), in.getInt());
+                int n = in.getInt();
+                List<Attempt> attempts = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) {
+                    String name = getString(in);
+                    int score = in.getInt();
+                    int duration = in.getInt();
+                    attempts.add(new Attempt(name, score, duration, Instant.ofEpochSecond(in.getLong(), in.getInt())));
+                }
+                Board b = new Board(historySize);
+                b.load(attempts);
+                b.catchUpFrom = catchUpFrom;
+                boards.put(code, b);
+                rowCount += n;
+            }
+            System.out.println("[Standings] restored " + boardCount + " boards (" + rowCount + " rows) from snapshot " + snapshotPath);
+            return boardCount > 0;
+        } catch (IOException | RuntimeException e) {
+            boards.clear();
+            System.err.println("[Standings] snapshot read failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void putString(ByteBuffer buf, byte[] utf8) {
+        int len = Math.min(65535, utf8.length);
+        buf.putShort((short) len).put(utf8, 0, len);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] b = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private record Attempt(String name, int score, int durationSeconds, Instant submittedAt) {}
+
+    private static final class Entry {
+        final String name;
+        int score;
+        int durationSeconds;
+        Instant submittedAt;
+        int rank;
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        Row row() {
+            return new Row(name, score, durationSeconds, rank);
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> -e.score)
+            .thenComparingInt(e -> e.durationSeconds)
+            .thenComparing(e -> e.name);
+
+    /** One quiz's standings; every method runs under the board's monitor. */
+    private static final class Board {
+        private final Map<String, Entry> byName = new HashMap<>();
+        private final List<Entry> sorted = new ArrayList<>();
+        private final long[] versions;
+        private final String[][] changes;
+        private int head;   // next slot to write
+        private int count;  // retained versions
+        private long version;
+        volatile long lastAccess = System.nanoTime();
+        /** Set on boards restored from a snapshot (or changed elsewhere) until submissions after this instant are applied. */
+        volatile Instant catchUpFrom;
+
+        synchronized void markStale(Instant from) {
+            if (catchUpFrom == null || from.isBefore(catchUpFrom)) catchUpFrom = from;
+        }
+
+        Board(int historySize) {
+            this.versions = new long[historySize];
+            this.changes = new String[historySize][];
+            // Start from the wall clock so versions handed out before a restart are never reused
+            this.version = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        }
+
+        synchronized void load(List<Attempt> attempts) {
+            for (Attempt a : attempts) {
+                Entry e = byName.computeIfAbsent(a.name(), Entry::new);
+                if (e.submittedAt == null || (a.submittedAt() != null && a.submittedAt().isAfter(e.submittedAt))) {
+                    e.score = a.score();
+                    e.durationSeconds = a.durationSeconds();
+                    e.submittedAt = a.submittedAt();
+                }
+            }
+            sorted.addAll(byName.values());
+            sorted.sort(ORDER);
+            for (int i = 0; i < sorted.size(); i++) sorted.get(i).rank = rankAt(i);
+        }
+
+        /** Returns whether any row changed. */
+        synchronized boolean apply(List<Attempt> attempts) {
+            Set<String> changed = new LinkedHashSet<>();
+            for (Attempt a : attempts) applyOne(a, changed);
+            if (changed.isEmpty()) return false;
+            version++;
+            versions[head] = version;
+            changes[head] = changed.toArray(new String[0]);
+            head = (head + 1) % versions.length;
+            if (count < versions.length) count++;
+            return true;
+        }
+
+        synchronized List<Attempt> attempts() {
+            List<Attempt> out = new ArrayList<>(sorted.size());
+            for (Entry e : sorted) out.add(new Attempt(e.name, e.score, e.durationSeconds, e.submittedAt));
+            return out;
+        }
+
+        /** Latest attempt replaces the previous one; only rows between the old and new positions can change rank. */
+        private void applyOne(Attempt a, Set<String> changed) {
+            Entry e = byName.get(a.name());
+            int oldPos = -1;
+            if (e != null) {
+                if (e.submittedAt != null && a.submittedAt() != null && a.submittedAt().isBefore(e.submittedAt)) return;
+                if (e.score == a.score() && e.durationSeconds == a.durationSeconds()) {
+                    e.submittedAt = a.submittedAt();
+                    return;
+                }
+                oldPos = Collections.binarySearch(sorted, e, ORDER);
+                sorted.remove(oldPos);
+            } else {
+                e = new Entry(a.name());
+                byName.put(a.name(), e);
+            }
+            e.score = a.score();
+            e.durationSeconds = a.durationSeconds();
+            e.submittedAt = a.submittedAt();
+            int newPos = -(Collections.binarySearch(sorted, e, ORDER) + 1);
+            sorted.add(newPos, e);
+            changed.add(e.name);
+
+            int lo = Math.min(newPos, oldPos < 0 ? newPos : oldPos);
+            int hi = oldPos < 0 ? sorted.size() - 1 : Math.max(newPos, oldPos);
+            // Back up to the start of lo's tie group, then re-rank until past hi and ranks settle
+            while (lo > 0 && sameKey(sorted.get(lo - 1), sorted.get(lo))) lo--;
+            for (int i = lo; i < sorted.size(); i++) {
+                Entry x = sorted.get(i);
+                int r = rankAt(i);
+                if (x.rank == r && i > hi) break;
+                if (x.rank != r) {
+                    x.rank = r;
+                    changed.add(x.name);
+                }
+            }
+        }
+
+        private int rankAt(int i) {
+            if (i > 0 && sameKey(sorted.get(i - 1), sorted.get(i))) return sorted.get(i - 1).rank;
+            return i + 1;
+        }
+
+        private static boolean sameKey(Entry a, Entry b) {
+            return a.score == b.score && a.durationSeconds == b.durationSeconds;
+        }
+
+        synchronized List<Row> snapshot() {
+            List<Row> rows = new ArrayList<>(sorted.size());
+            for (Entry e : sorted) rows.add(e.row());
+            return rows;
+        }
+
+        synchronized Delta since(long since) {
+            if (since == version) return new Delta(version, false, List.of());
+            if (since > version) return new Delta(version, true, snapshot()); // version from another instance/board
+            int oldest = (head - count + versions.length) % versions.length;
+            // Need every version in (since, version]; the oldest retained one must be since + 1 or earlier
+            if (count == 0 || versions[oldest] > since + 1) return new Delta(version, true, snapshot());
+            Set<String> names = new LinkedHashSet<>();
+            for (int i = 0; i < count; i++) {
+                int slot = (oldest + i) % versions.length;
+                if (versions[slot] > since) names.addAll(Arrays.asList(changes[slot]));
+            }
+            // Past half the board a full snapshot is no larger and simpler for the client
+            if (names.size() * 2 > sorted.size()) return new Delta(version, true, snapshot());
+            List<Row> rows = new ArrayList<>(names.size());
+            for (String n : names) {
+                Entry e = byName.get(n);
+                if (e != null) rows.add(e.row());
+            }
+            rows.sort(Comparator.comparingInt(Row::rank).thenComparing(Row::name));
+            return new Delta(version, false, rows);
+        }
+    }
+}
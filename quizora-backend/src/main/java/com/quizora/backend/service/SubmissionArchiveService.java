@@ -0,0 +1,281 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.SubmissionArchive;
+import com.quizora.backend.repository.SubmissionArchiveRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tiered retention for submissions.
+ *
+ * Quizzes with no joins or submits for app.archive.inactive-days have their full attempt history
+ * written to an immutable compressed segment file ({@link SubmissionSegment}); Postgres then keeps
+ * only the latest attempt per participant, which is all that rankings, rejoins and awards need.
+ * {@link #latestResults(Long)} reads archived attempts back through a memory-mapped reader so
+ * listResults stays correct for archived quizzes.
+ *
+ * The segment is written and verified before any row is deleted; a quiz that becomes active again
+ * and later goes cold is re-archived into a new segment that includes the old one.
+ *
+ * Archiving runs on the elected leader only; other instances pick up new archives from the cache
+ * bus, so app.archive.directory has to be shared by all instances.
+ */
+@Service
+public class SubmissionArchiveService implements CacheInvalidationBus.Listener {
+
+    private static final String CANDIDATES_SQL =
+            "SELECT s.quiz_id FROM submissions s GROUP BY s.quiz_id " +
+            "HAVING max(s.submitted_at) < ? AND count(*) > count(DISTINCT s.participant_id) " +
+            // Rows not yet keyed by ParticipantKeyMigration would be lost to the join and trim below
+            "AND count(s.participant_id) = count(*) " +
+            "AND NOT EXISTS (SELECT 1 FROM participants p WHERE p.quiz_id = s.quiz_id AND p.joined_at >= ?) " +
+            "ORDER BY s.quiz_id LIMIT ?";
+
+    private static final String ROWS_SQL =
+            "SELECT s.id, p.name, s.total_questions, s.total_correct, s.total_score, s.duration_seconds, s.submitted_at " +
+            "FROM submissions s JOIN participants p ON p.id = s.participant_id WHERE s.quiz_id = ? ORDER BY s.id";
+
+    // Keep the latest attempt per participant (same rule as the segment's latest index)
+    private static final String TRIM_SQL =
+            "DELETE FROM submissions WHERE quiz_id = ? AND id <= ? AND id NOT IN (" +
+            "SELECT DISTINCT ON (participant_id) id FROM submissions WHERE quiz_id = ? AND id <= ? " +
+            "ORDER BY participant_id, submitted_at DESC, id DESC)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SubmissionArchiveRepository archiveRepository;
+    private final TransactionTemplate tx;
+    // discard() runs after the caller's commit, where a joined transaction would never commit again
+    private final TransactionTemplate newTx;
+    private final CacheInvalidationBus cacheBus;
+    private final LeaderElection leaderElection;
+    private final Map<Long, SubmissionArchive> archives = new ConcurrentHashMap<>();
+    private final Map<Long, SubmissionSegment> mapped = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Path directory;
+    private final int inactiveDays;
+    private final int batchSize;
+    private final int maxMapped;
+
+    public SubmissionArchiveService(JdbcTemplate jdbcTemplate,
+                                    SubmissionArchiveRepository archiveRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    CacheInvalidationBus cacheBus,
+                                    LeaderElection leaderElection,
+                                    @Value("${app.archive.enabled:true}") boolean enabled,
+                                    @Value("${app.archive.directory:data/archive}") String directory,
+                                    @Value("${app.archive.inactive-days:30}") int inactiveDays,
+                                    @Value("${app.archive.batch-size:20}") int batchSize,
+                                    @Value("${app.archive.max-mapped-segments:64}") int maxMapped) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveRepository = archiveRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.newTx = new TransactionTemplate(transactionManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheBus = cacheBus;
+        this.leaderElection = leaderElection;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.inactiveDays = Math.max(1, inactiveDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxMapped = Math.max(1, maxMapped);
+        cacheBus.addListener(this);
+    }
+
+    @PostConstruct
+    public void load() {
+        for (SubmissionArchive a : archiveRepository.findAll()) archives.put(a.getQuizId(), a);
+    }
+
+    public boolean isArchived(Long quizId) {
+        return quizId != null && archives.containsKey(quizId);
+    }
+
+    /** Latest archived attempt per participant; empty if the quiz has no archive. */
+    public List<QuizService.ResultRow> latestResults(Long quizId) {
+        SubmissionArchive a = quizId != null ? archives.get(quizId) : null;
+        if (a == null) return List.of();
+        try {
+            List<QuizService.ResultRow> rows = new ArrayList<>();
+            for (SubmissionSegment.Record r : segment(a).latest()) {
+                rows.add(new QuizService.ResultRow(r.id(), r.participantName(), r.totalQuestions(), r.totalCorrect(),
+                        r.totalScore(), r.durationSeconds(), r.submittedAt()));
+            }
+            return rows;
+        } catch (IOException e) {
+            System.err.println("[Archive] read failed quizId=" + quizId + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:3600000}", initialDelayString = "${app.archive.initial-delay-ms:600000}")
+    public void scheduledArchive() {
+        if (leaderElection.isLeader()) archiveInactive();
+    }
+
+    /**
+     * Archive cold quizzes, a batch per run. Returns the number of quizzes archived, or -1 if a run is
+     * already in progress on some instance.
+     */
+    public int archiveInactive() {
+        if (!enabled) return 0;
+        return leaderElection.runExclusive("submission-archive", this::archiveBatch).orElse(-1);
+    }
+
+    @Override
+    public void onRemoteChange(CacheInvalidationBus.Change change, List<CacheInvalidationBus.Key> keys) {
+        if (change != CacheInvalidationBus.Change.ARCHIVED && change != CacheInvalidationBus.Change.DELETED) return;
+        for (CacheInvalidationBus.Key k : keys) {
+            if (k.quizId() == null) continue;
+            mapped.remove(k.quizId());
+            // The writer already deleted the row and file; only the local view changes here
+            Optional<SubmissionArchive> a = change == CacheInvalidationBus.Change.ARCHIVED
+                    ? archiveRepository.findById(k.quizId()) : Optional.empty();
+            if (a.isPresent()) archives.put(k.quizId(), a.get());
+            else archives.remove(k.quizId());
+        }
+    }
+
+    @Override
+    public void onResync() {
+        mapped.clear();
+        archives.clear();
+        load();
+    }
+
+    private int archiveBatch() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minusSeconds(inactiveDays * 86400L));
+        List<Long> quizIds;
+        try {
+            quizIds = jdbcTemplate.queryForList(CANDIDATES_SQL, Long.class, cutoff, cutoff, batchSize);
+        } catch (Exception e) {
+            System.err.println("[Archive] candidate query failed: " + e.getMessage());
+            return 0;
+        }
+        int done = 0;
+        for (Long quizId : quizIds) {
+            try {
+                if (archive(quizId)) done++;
+            } catch (Exception e) {
+                System.err.println("[Archive] quizId=" + quizId + " failed: " + e.getMessage());
+            }
+        }
+        if (done > 0) System.out.println("[Archive] archived " + done + " quizzes");
+        return done;
+    }
+
+    /** Remove a deleted quiz's archive (after commit when called inside a transaction). */
+    public void discard(Long quizId) {
+        if (quizId == null) return;
+        afterCommit(() -> {
+            SubmissionArchive a = archives.remove(quizId);
+            if (a == null) return;
+            mapped.remove(quizId);
+            try {
+                newTx.executeWithoutResult(status -> archiveRepository.deleteById(quizId));
+                Files.deleteIfExists(Paths.get(a.getSegmentPath()));
+            } catch (Exception e) {
+                System.err.println("[Archive] discard failed quizId=" + quizId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private boolean archive(Long quizId) throws IOException {
+        List<SubmissionSegment.Record> rows = jdbcTemplate.query(ROWS_SQL, (rs, i) -> new SubmissionSegment.Record(
+                rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
+                rs.getTimestamp(7).toInstant()), quizId);
+        if (rows.isEmpty()) return false;
+        long maxId = rows.get(rows.size() - 1).id();
+
+        // Fold in a previous segment so the new one holds the complete history
+        Map<Long, SubmissionSegment.Record> all = new HashMap<>();
+        SubmissionArchive previous = archives.get(quizId);
+        if (previous != null) {
+            for (SubmissionSegment.Record r : segment(previous).all()) all.put(r.id(), r);
+        }
+        for (SubmissionSegment.Record r : rows) all.put(r.id(), r);
+
+        Path path = directory.resolve("quiz-" + quizId + "-" + maxId + ".seg");
+        long bytes = SubmissionSegment.write(path, quizId, new ArrayList<>(all.values()));
+        SubmissionSegment written = SubmissionSegment.open(path);
+        if (written.recordCount() != all.size() || written.quizId() != quizId) {
+            Files.deleteIfExists(path);
+            throw new IOException("Segment verification failed");
+        }
+
+        SubmissionArchive a = new SubmissionArchive();
+        a.setQuizId(quizId);
+        a.setSegmentPath(path.toString());
+        a.setRecordCount(all.size());
+        a.setMaxSubmissionId(maxId);
+        a.setSegmentBytes(bytes);
+        a.setArchivedAt(Instant.now());
+        int trimmed;
+        try {
+            trimmed = tx.execute(status -> {
+                archiveRepository.save(a);
+                return jdbcTemplate.update(TRIM_SQL, quizId, maxId, quizId, maxId);
+            });
+        } catch (RuntimeException e) {
+            if (previous == null || !previous.getSegmentPath().equals(path.toString())) Files.deleteIfExists(path);
+            throw e;
+        }
+
+        archives.put(quizId, a);
+        mapped.put(quizId, written);
+        String quizCode = jdbcTemplate.query("SELECT quiz_code FROM quizzes WHERE id = ?",
+                rs -> rs.next() ? rs.getString(1) : null, quizId);
+        cacheBus.publish(CacheInvalidationBus.Change.ARCHIVED, quizCode, quizId);
+        if (previous != null && !previous.getSegmentPath().equals(path.toString())) {
+            Files.deleteIfExists(Paths.get(previous.getSegmentPath()));
+        }
+        System.out.println("[Archive] quizId=" + quizId + " records=" + all.size() + " trimmed=" + trimmed + " bytes=" + bytes);
+        return true;
+    }
+
+    private SubmissionSegment segment(SubmissionArchive a) throws IOException {
+        SubmissionSegment s = mapped.get(a.getQuizId());
+        if (s != null) return s;
+        s = SubmissionSegment.open(Paths.get(a.getSegmentPath()));
+        if (mapped.size() >= maxMapped) evictOne();
+        mapped.put(a.getQuizId(), s);
+        return s;
+    }
+
+    private void evictOne() {
+        Iterator<Long> it = mapped.keySet().iterator();
+        if (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static void afterCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
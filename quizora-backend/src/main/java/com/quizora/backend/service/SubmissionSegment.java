@@ -0,0 +1,242 @@
+package com.quizora.backend.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable per-quiz file of archived submissions.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header   magic, version, quizId, recordCount, blockCount, latestCount, indexCrc
+ *   blocks   blockCount x (offset, compressedLength, rawLength, firstRecord, crc)
+ *   latest   latestCount x recordNo   -- latest attempt per participant, ascending
+ *   data     deflated blocks of BLOCK_RECORDS records each, ordered by submission id
+ * </pre>
+ * The reader maps the file read-only and inflates only the blocks it needs, so reading the latest
+ * attempts of a large quiz touches the index plus the few blocks that hold them.
+ */
+public final class SubmissionSegment {
+
+    public record Record(long id, String participantName, int totalQuestions, int totalCorrect,
+                         int totalScore, int durationSeconds, Instant submittedAt) {}
+
+    private static final int MAGIC = 0x51534547; // "QSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int BLOCK_ENTRY_BYTES = 24;
+    static final int BLOCK_RECORDS = 256;
+
+    private final long quizId;
+    private final int recordCount;
+    private final long[] blockOffset;
+    private final int[] blockCompressed;
+    private final int[] blockRaw;
+    private final int[] blockFirst;
+    private final int[] blockCrc;
+    private final int[] latest;
+    private final MappedByteBuffer data;
+
+    private SubmissionSegment(MappedByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a submission segment");
+        }
+        this.quizId = data.getLong(8);
+        this.recordCount = data.getInt(16);
+        int blocks = data.getInt(20);
+        int latestCount = data.getInt(24);
+        int indexCrc = data.getInt(28);
+        int indexBytes = blocks * BLOCK_ENTRY_BYTES + latestCount * 4;
+        if (blocks < 0 || latestCount < 0 || HEADER_BYTES + (long) indexBytes > data.capacity()) {
+            throw new IOException("Corrupt segment index");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(HEADER_BYTES, indexBytes));
+        if ((int) crc.getValue() != indexCrc) throw new IOException("Segment index checksum mismatch");
+
+        blockOffset = new long[blocks];
+        blockCompressed = new int[blocks];
+        blockRaw = new int[blocks];
+        blockFirst = new int[blocks];
+        blockCrc = new int[blocks];
+        int pos = HEADER_BYTES;
+        for (int i = 0; i < blocks; i++, pos += BLOCK_ENTRY_BYTES) {
+            blockOffset[i] = data.getLong(pos);
+            blockCompressed[i] = data.getInt(pos + 8);
+            blockRaw[i] = data.getInt(pos + 12);
+            blockFirst[i] = data.getInt(pos + 16);
+            blockCrc[i] = data.getInt(pos + 20);
+        }
+        latest = new int[latestCount];
+        for (int i = 0; i < latestCount; i++, pos += 4) latest[i] = data.getInt(pos);
+    }
+
+    /** Map an existing segment read-only. The mapping stays valid after the channel is closed. */
+    public static SubmissionSegment open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SubmissionSegment(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public long quizId() { return quizId; }
+
+    public int recordCount() { return recordCount; }
+
+    /** Latest attempt per participant. */
+    public List<Record> latest() throws IOException {
+        List<Record> out = new ArrayList<>(latest.length);
+        int i = 0;
+        while (i < latest.length) {
+            int block = blockOf(latest[i]);
+            List<Record> records = decode(block);
+            int first = blockFirst[block];
+            for (; i < latest.length && latest[i] < first + records.size(); i++) {
+                out.add(records.get(latest[i] - first));
+            }
+        }
+        return out;
+    }
+
+    public List<Record> all() throws IOException {
+        List<Record> out = new ArrayList<>(recordCount);
+        for (int b = 0; b < blockOffset.length; b++) out.addAll(decode(b));
+        return out;
+    }
+
+    private int blockOf(int recordNo) {
+        int lo = 0, hi = blockFirst.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (blockFirst[mid] <= recordNo) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private List<Record> decode(int block) throws IOException {
+        ByteBuffer compressed = data.slice((int) blockOffset[block], blockCompressed[block]);
+        CRC32 crc = new CRC32();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != blockCrc[block]) throw new IOException("Segment block checksum mismatch");
+        byte[] raw = new byte[blockRaw[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int r = inflater.inflate(raw, n, raw.length - n);
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += r;
+            }
+            if (n != raw.length) throw new IOException("Truncated segment block");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt segment block", e);
+        } finally {
+            inflater.end();
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<Record> records = new ArrayList<>(BLOCK_RECORDS);
+        while (in.available() > 0) {
+            records.add(new Record(in.readLong(), in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                    Instant.ofEpochSecond(in.readLong(), in.readInt())));
+        }
+        return records;
+    }
+
+    /**
+     * Write a segment for one quiz: to a temp file, fsync, then atomically renamed into place.
+     * Records are re-sorted by id; returns the size of the file written.
+     */
+    public static long write(Path path, long quizId, List<Record> records) throws IOException {
+        List<Record> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(Record::id));
+
+        // Latest attempt per participant (by submittedAt, then id)
+        Map<String, Integer> latestByName = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            Record r = sorted.get(i);
+            Integer cur = latestByName.get(r.participantName());
+            if (cur == null || !r.submittedAt().isBefore(sorted.get(cur).submittedAt())) latestByName.put(r.participantName(), i);
+        }
+        int[] latest = latestByName.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        List<byte[]> blocks = new ArrayList<>();
+        List<Integer> rawLengths = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            for (int from = 0; from < sorted.size(); from += BLOCK_RECORDS) {
+                ByteArrayOutputStream rawOut = new ByteArrayOutputStream(BLOCK_RECORDS * 48);
+                DataOutputStream out = new DataOutputStream(rawOut);
+                for (Record r : sorted.subList(from, Math.min(sorted.size(), from + BLOCK_RECORDS))) {
+                    out.writeLong(r.id());
+                    out.writeUTF(r.participantName());
+                    out.writeInt(r.totalQuestions());
+                    out.writeInt(r.totalCorrect());
+                    out.writeInt(r.totalScore());
+                    out.writeInt(r.durationSeconds());
+                    out.writeLong(r.submittedAt().getEpochSecond());
+                    out.writeInt(r.submittedAt().getNano());
+                }
+                byte[] raw = rawOut.toByteArray();
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream comp = new ByteArrayOutputStream(raw.length / 2 + 64);
+                byte[] buf = new byte[8192];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buf);
+                    comp.write(buf, 0, n);
+                }
+                blocks.add(comp.toByteArray());
+                rawLengths.add(raw.length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        int indexBytes = blocks.size() * BLOCK_ENTRY_BYTES + latest.length * 4;
+        ByteBuffer index = ByteBuffer.allocate(indexBytes);
+        long offset = HEADER_BYTES + (long) indexBytes;
+        for (int b = 0; b < blocks.size(); b++) {
+            byte[] c = blocks.get(b);
+            CRC32 crc = new CRC32();
+            crc.update(c);
+            index.putLong(offset).putInt(c.length).putInt(rawLengths.get(b)).putInt(b * BLOCK_RECORDS).putInt((int) crc.getValue());
+            offset += c.length;
+        }
+        for (int n : latest) index.putInt(n);
+        index.flip();
+        CRC32 indexCrc = new CRC32();
+        indexCrc.update(index.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(quizId).putInt(sorted.size())
+                .putInt(blocks.size()).putInt(latest.length).putInt((int) indexCrc.getValue()).putInt(0);
+        header.flip();
+
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(ch, header);
+            writeFully(ch, index);
+            for (byte[] c : blocks) writeFully(ch, ByteBuffer.wrap(c));
+            ch.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return offset;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+}
@@ -0,0 +1,210 @@
+package com.quizora.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate join/submit activity per quizCode over a sliding window, in bounded memory.
+ *
+ * The window (app.trending.window-minutes) is split into buckets, each a count-min sketch; a
+ * code's estimate is the minimum over sketch rows of its counters summed across the live buckets,
+ * and every rotation clears the oldest bucket. Alongside the sketch a small candidate set holds the
+ * codes with the highest estimates seen so far (a new code displaces the weakest candidate once it
+ * outscores it), from which the top K are taken.
+ *
+ * The current top K also serve as the hot-key signal: {@link #isHot(String)} lets read caches keep
+ * those quizzes resident under eviction pressure.
+ */
+@Service
+public class TrendingService {
+
+    public record Trend(String quizCode, long score) {}
+
+    /** A trending quiz with its catalogue fields, for the landing page. */
+    public record TrendingQuiz(Long id, String quizCode, String title, String difficulty, long score) {}
+
+    private static final int DEPTH = 4;
+    private static final long REFRESH_NANOS = 5_000_000_000L;
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final QuizSearchIndex quizSearchIndex;
+    private final AtomicLongArray[] buckets;
+    private final int width;
+    private final int topK;
+    private final int maxCandidates;
+    private final int joinWeight;
+    private final int submitWeight;
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private volatile int head;
+    private volatile long weakestCandidate;
+    private volatile List<Trend> top = List.of();
+    private volatile Set<String> hot = Set.of();
+    private volatile long refreshedNanos;
+
+    public TrendingService(QuizSearchIndex quizSearchIndex,
+                           @Value("${app.trending.buckets:12}") int bucketCount,
+                           @Value("${app.trending.sketch-width:2048}") int width,
+                           @Value("${app.trending.top-k:20}") int topK,
+                           @Value("${app.trending.join-weight:1}") int joinWeight,
+                           @Value("${app.trending.submit-weight:2}") int submitWeight) {
+        this.quizSearchIndex = quizSearchIndex;
+        this.buckets = new AtomicLongArray[Math.max(2, bucketCount)];
+        this.width = Integer.highestOneBit(Math.max(64, width));
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new AtomicLongArray(DEPTH * this.width);
+        this.topK = Math.max(1, topK);
+        this.maxCandidates = this.topK * 4;
+        this.joinWeight = Math.max(0, joinWeight);
+        this.submitWeight = Math.max(0, submitWeight);
+    }
+
+    /** Bucket length: the window split over the bucket count, clamped like the bucket array. */
+    public static long rotateMillis(long windowMinutes, int bucketCount) {
+        return Math.max(1000, Math.max(1, windowMinutes) * 60_000 / Math.max(2, bucketCount));
+    }
+
+    public void recordJoin(String quizCode) {
+        record(quizCode, joinWeight);
+    }
+
+    public void recordSubmit(String quizCode) {
+        record(quizCode, submitWeight);
+    }
+
+    /** Highest-activity quizzes in the current window, best first. */
+    public List<Trend> trending(int limit) {
+        // Scores otherwise only move at rotation or when a new quiz breaks into the top K
+        if (System.nanoTime() - refreshedNanos > REFRESH_NANOS) refresh();
+        List<Trend> t = top;
+        return t.size() <= limit ? t : t.subList(0, Math.max(0, limit));
+    }
+
+    /** {@link #trending(int)} joined with the catalogue; deleted quizzes are skipped. */
+    public List<TrendingQuiz> trendingQuizzes(int limit) {
+        List<TrendingQuiz> out = new ArrayList<>();
+        for (Trend t : trending(limit)) {
+            quizSearchIndex.find(t.quizCode()).ifPresent(h ->
+                    out.add(new TrendingQuiz(h.id(), h.quizCode(), h.title(), h.difficulty(), t.score())));
+        }
+        return out;
+    }
+
+    /** True while the quiz is among the current top K. */
+    public boolean isHot(String quizCode) {
+        return quizCode != null && hot.contains(quizCode);
+    }
+
+    /** Advance the window: the oldest bucket is cleared and becomes the current one. */
+    @Scheduled(fixedRateString = "#{T(com.quizora.backend.service.TrendingService).rotateMillis(${app.trending.window-minutes:60}, ${app.trending.buckets:12})}")
+    public void rotate() {
+        int next = (head + 1) % buckets.length;
+        AtomicLongArray b = buckets[next];
+        for (int i = 0; i < b.length(); i++) b.set(i, 0);
+        head = next;
+        refresh();
+    }
+
+    private void record(String quizCode, int weight) {
+        if (quizCode == null || quizCode.isBlank() || weight == 0) return;
+        AtomicLongArray b = buckets[head];
+        long[] h = hashes(quizCode);
+        for (int row = 0; row < DEPTH; row++) b.addAndGet(slot(row, h[row]), weight);
+        long estimate = estimate(h);
+        if (candidates.containsKey(quizCode)) {
+            candidates.put(quizCode, estimate);
+        } else if (candidates.size() < maxCandidates) {
+            candidates.put(quizCode, estimate);
+        } else if (estimate > weakestCandidate) {
+            admit(quizCode, estimate);
+        }
+        // Cheap path to the top list for a quiz that is taking off between rotations
+        if (estimate > lowestTop() && !hot.contains(quizCode)) refresh();
+    }
+
+    private synchronized void admit(String quizCode, long estimate) {
+        String weakest = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> e : candidates.entrySet()) {
+            if (e.getValue() < min) {
+                min = e.getValue();
+                weakest = e.getKey();
+            }
+        }
+        if (weakest != null && estimate > min) {
+            candidates.remove(weakest);
+            candidates.put(quizCode, estimate);
+        }
+        weakestCandidate = Math.min(min, estimate);
+    }
+
+    /** Re-estimate every candidate (buckets may have rotated out) and rebuild the top K. */
+    private synchronized void refresh() {
+        PriorityQueue<Trend> heap = new PriorityQueue<>(Comparator.comparingLong(Trend::score));
+        long weakest = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<String, Long>> it = candidates.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Long> e = it.next();
+            long est = estimate(hashes(e.getKey()));
+            if (est == 0) {
+                it.remove();
+                continue;
+            }
+            e.setValue(est);
+            weakest = Math.min(weakest, est);
+            if (heap.size() < topK) heap.add(new Trend(e.getKey(), est));
+            else if (est > heap.peek().score()) {
+                heap.poll();
+                heap.add(new Trend(e.getKey(), est));
+            }
+        }
+        weakestCandidate = candidates.size() < maxCandidates ? 0 : weakest;
+        List<Trend> sorted = new ArrayList<>(heap);
+        sorted.sort(Comparator.comparingLong(Trend::score).reversed().thenComparing(Trend::quizCode));
+        Set<String> codes = new HashSet<>();
+        for (Trend t : sorted) codes.add(t.quizCode());
+        top = List.copyOf(sorted);
+        hot = Set.copyOf(codes);
+        refreshedNanos = System.nanoTime();
+    }
+
+    private long lowestTop() {
+        List<Trend> t = top;
+        return t.size() < topK ? 0 : t.get(t.size() - 1).score();
+    }
+
+    private long estimate(long[] h) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int s = slot(row, h[row]);
+            long sum = 0;
+            for (AtomicLongArray b : buckets) sum += b.get(s);
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private int slot(int row, long hash) {
+        return row * width + (int) (hash & (width - 1));
+    }
+
+    private static long[] hashes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long[] out = new long[DEPTH];
+        for (int row = 0; row < DEPTH; row++) {
+            long h = SEEDS[row];
+            for (byte b : bytes) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            out[row] = h;
+        }
+        return out;
+    }
+}
@@ -4,243 +4,83 @@ import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.Firestore;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.cloud.FirestoreClient;
+import com.quizora.backend.config.FirebaseClients;
+import com.quizora.backend.model.AwardLedgerEntry;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * User XP, badges and attempt stats.
+ *
+ * Awards go to the Postgres award ledger ({@link AwardLedgerService}); Firestore users/{uid} and
+ * users/{uid}/awards are an asynchronous projection of it. Attempt counters are still plain
+ * Firestore increments.
+ */
 @Service
 public class UserStatsService {
 
+    private final GlobalRankingService globalRankingService;
+    private final AwardLedgerService awardLedgerService;
+    private final BadgeRuleEngine badgeRuleEngine;
+    private final FirebaseClients firebase;
+
+    public UserStatsService(GlobalRankingService globalRankingService, AwardLedgerService awardLedgerService,
+                            BadgeRuleEngine badgeRuleEngine, FirebaseClients firebase) {
+        this.globalRankingService = globalRankingService;
+        this.awardLedgerService = awardLedgerService;
+        this.badgeRuleEngine = badgeRuleEngine;
+        this.firebase = firebase;
+    }
+
     public void awardIfNotAwarded(String uid, String quizCode, int rank) {
         if (uid == null || uid.isBlank()) return;
         try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return;
-        } catch (IllegalStateException ignored) { return; }
-
-        try {
-            Firestore db = FirestoreClient.getFirestore();
-            DocumentReference awardsRef = db.collection("users").document(uid)
-                    .collection("awards").document(quizCode);
-
-            // Idempotent: if award doc exists, skip
-            var snap = awardsRef.get().get();
-            if (snap.exists()) return;
-
             int xp = Math.max(10 - (rank - 1), 1); // 1st=10, 2nd=9, ...
-            String badge = rank == 1 ? "Gold" : rank == 2 ? "Silver" : rank == 3 ? "Bronze" : "Participant";
-
-            Map<String, Object> award = new HashMap<>();
-            award.put("quizCode", quizCode);
-            award.put("rank", rank);
-            award.put("xp", xp);
-            award.put("badge", badge);
-            award.put("awardedAt", Instant.now().toString());
-
-            // Write award doc, then aggregate fields atomically via transaction
-            db.runTransaction(tx -> {
-                tx.set(awardsRef, award);
-                DocumentReference userRef = db.collection("users").document(uid);
-                var userSnap = tx.get(userRef).get();
-                long totalXp = 0;
-                long xpLegacy = 0;
-                long badges = 0;
-                if (userSnap.exists()) {
-                    Object oxp = userSnap.get("totalXp");
-                    if (oxp instanceof Number n) totalXp = n.longValue();
-                    Object oLegacy = userSnap.get("xp");
-                    if (oLegacy instanceof Number n) xpLegacy = n.longValue();
-                    Object ob = userSnap.get("badgesCount");
-                    if (ob instanceof Number n) badges = n.longValue();
-                }
-                Map<String, Object> inc = new HashMap<>();
-                inc.put("totalXp", totalXp + xp);
-                inc.put("xp", xpLegacy + xp);
-                inc.put("badgesCount", badges + 1);
-                tx.set(userRef, inc, com.google.cloud.firestore.SetOptions.merge());
-                return null;
-            }).get();
-        } catch (Exception ignored) {}
+            String badge = badgeRuleEngine.badgeForRank(rank);
+            // Idempotent: the ledger's unique (uid, quizCode, kind) key ignores repeats
+            awardLedgerService.record(new AwardLedgerService.Award(
+                    uid, quizCode, AwardLedgerEntry.KIND_QUIZ, AwardLedgerEntry.SOURCE_RANK, xp, badge, rank, null));
+        } catch (Exception e) {
+            System.out.println("[Award] awardIfNotAwarded ERROR uid=" + uid + ", quizCode=" + quizCode + ": " + e.getMessage());
+        }
     }
 
     /**
      * Award XP based on performance for a given quiz attempt. Idempotent per (uid, quizCode).
-     * Stores an award document with xp and percent, and increments user's xp/totalXp.
-     * Also assigns a "Speed Learner" badge on this award if percent >= 0.9.
+     * Records an award with xp and percent; the user's xp/totalXp follow from the ledger.
+     * The award's badge (e.g. "Speed Learner" at >= 90%) comes from {@link BadgeRuleEngine}.
+     * Milestone badges such as XP Master are granted by the engine once the award commits.
      */
     public void awardPerformance(String uid, String quizCode, long xp, double percent) {
         if (uid == null || uid.isBlank()) return;
         try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) {
-                System.out.println("[Award] Firebase not initialized; skipping awardPerformance uid=" + uid + ", quizCode=" + quizCode);
-                return;
-            }
-        } catch (IllegalStateException ignored) { 
-            System.out.println("[Award] IllegalStateException on Firebase apps; skipping awardPerformance uid=" + uid + ", quizCode=" + quizCode);
-            return; 
-        }
-        try {
-            Firestore db = FirestoreClient.getFirestore();
-            DocumentReference awardsRef = db.collection("users").document(uid)
-                    .collection("awards").document(quizCode);
-            System.out.println("[Award] awardPerformance ENTER uid=" + uid + ", quizCode=" + quizCode + ", xp=" + xp + ", percent=" + percent);
-            // Existence check will be performed inside the transaction to avoid read/write ordering issues
-
-            String badge = percent >= 0.9 ? "Speed Learner" : "";
-            Map<String, Object> award = new HashMap<>();
-            award.put("quizCode", quizCode);
-            award.put("xp", xp);
-            award.put("percent", percent);
-            if (!badge.isBlank()) award.put("badge", badge);
-            award.put("awardedAt", Instant.now().toString());
-
-            db.runTransaction(tx -> {
-                DocumentReference userRef = db.collection("users").document(uid);
-                // READS must occur before any WRITES in a Firestore transaction
-                var awardSnap = tx.get(awardsRef).get();
-                if (awardSnap.exists()) {
-                    System.out.println("[Award] awardPerformance SKIP existing award uid=" + uid + ", quizCode=" + quizCode);
-                    return null;
-                }
-                var userSnap = tx.get(userRef).get();
-                long totalXp = 0;
-                long xpLegacy = 0;
-                long badges = 0;
-                if (userSnap.exists()) {
-                    Object oxp = userSnap.get("totalXp");
-                    if (oxp instanceof Number n) totalXp = n.longValue();
-                    Object oLegacy = userSnap.get("xp");
-                    if (oLegacy instanceof Number n) xpLegacy = n.longValue();
-                    Object ob = userSnap.get("badgesCount");
-                    if (ob instanceof Number n) badges = n.longValue();
-                }
-                Map<String, Object> inc = new HashMap<>();
-                inc.put("totalXp", totalXp + xp);
-                inc.put("xp", xpLegacy + xp);
-                if (!badge.isBlank()) {
-                    inc.put("badgesCount", badges + 1);
-                }
-                // WRITES after all reads
-                tx.set(awardsRef, award);
-                tx.set(userRef, inc, com.google.cloud.firestore.SetOptions.merge());
-                return null;
-            }).get();
-            System.out.println("[Award] awardPerformance OK uid=" + uid + ", quizCode=" + quizCode + ", xp=" + xp + ", badge=" + (badge.isBlank()?"-":badge));
+            String badge = badgeRuleEngine.badgeForPercent(percent);
+            boolean recorded = awardLedgerService.record(new AwardLedgerService.Award(
+                    uid, quizCode, AwardLedgerEntry.KIND_QUIZ, AwardLedgerEntry.SOURCE_PERFORMANCE, xp, badge, null, percent));
+            System.out.println("[Award] awardPerformance " + (recorded ? "OK" : "SKIP existing award") + " uid=" + uid + ", quizCode=" + quizCode + ", xp=" + xp + ", badge=" + (badge == null ? "-" : badge));
         } catch (Exception e) {
             System.out.println("[Award] awardPerformance ERROR uid=" + uid + ", quizCode=" + quizCode + ": " + e.getMessage());
-            // Fallback: attempt non-transactional, idempotent writes
-            try {
-                Firestore db = FirestoreClient.getFirestore();
-                DocumentReference awardsRef = db.collection("users").document(uid)
-                        .collection("awards").document(quizCode);
-                DocumentReference userRef = db.collection("users").document(uid);
-
-                // Rebuild award payload locally
-                String fbBadge = percent >= 0.9 ? "Speed Learner" : "";
-                Map<String, Object> fbAward = new HashMap<>();
-                fbAward.put("quizCode", quizCode);
-                fbAward.put("xp", xp);
-                fbAward.put("percent", percent);
-                if (!fbBadge.isBlank()) fbAward.put("badge", fbBadge);
-                fbAward.put("awardedAt", Instant.now().toString());
-
-                // Try to create the award document only if it does not exist
-                try {
-                    awardsRef.create(fbAward).get();
-                    System.out.println("[Award] Fallback CREATE award OK uid=" + uid + ", quizCode=" + quizCode);
-                } catch (Exception ce) {
-                    // If already exists or create failed for existing, log and continue
-                    System.out.println("[Award] Fallback SKIP/CREATE failed (may exist) uid=" + uid + ", quizCode=" + quizCode + ": " + ce.getMessage());
-                }
-
-                // Increment totals using atomic increments (works whether doc exists or not when used with merge)
-                Map<String, Object> inc = new HashMap<>();
-                inc.put("totalXp", com.google.cloud.firestore.FieldValue.increment(xp));
-                inc.put("xp", com.google.cloud.firestore.FieldValue.increment(xp));
-                if (!fbBadge.isBlank()) {
-                    inc.put("badgesCount", com.google.cloud.firestore.FieldValue.increment(1));
-                }
-                userRef.set(inc, com.google.cloud.firestore.SetOptions.merge()).get();
-                System.out.println("[Award] Fallback INCREMENT user totals OK uid=" + uid + ", xp=" + xp + ", badge=" + (fbBadge.isBlank()?"-":fbBadge));
-            } catch (Exception fe) {
-                System.out.println("[Award] Fallback ERROR uid=" + uid + ", quizCode=" + quizCode + ": " + fe.getMessage());
-            }
         }
     }
 
-    /** Ensure the XP Master milestone badge (1000+ totalXp). Creates a special award doc if missing. */
-    public void ensureXpMasterBadge(String uid) {
-        if (uid == null || uid.isBlank()) return;
-        try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return;
-        } catch (IllegalStateException ignored) { return; }
-        try {
-            Firestore db = FirestoreClient.getFirestore();
-            var userRef = db.collection("users").document(uid);
-            var userSnap = userRef.get().get();
-            long totalXp = 0L;
-            if (userSnap.exists()) {
-                Object oxp = userSnap.get("totalXp");
-                if (oxp instanceof Number n) totalXp = n.longValue();
-            }
-            if (totalXp < 1000) return;
-            DocumentReference badgeRef = db.collection("users").document(uid)
-                    .collection("awards").document("badge_xp_master");
-            var bSnap = badgeRef.get().get();
-            if (bSnap.exists()) return;
-            Map<String, Object> award = new HashMap<>();
-            award.put("badge", "XP Master");
-            award.put("xp", 0);
-            award.put("awardedAt", Instant.now().toString());
-            db.runTransaction(tx -> {
-                tx.set(badgeRef, award);
-                var us = tx.get(userRef).get();
-                long badges = 0L;
-                if (us.exists()) {
-                    Object ob = us.get("badgesCount");
-                    if (ob instanceof Number n) badges = n.longValue();
-                }
-                Map<String, Object> inc = new HashMap<>();
-                inc.put("badgesCount", badges + 1);
-                tx.set(userRef, inc, com.google.cloud.firestore.SetOptions.merge());
-                return null;
-            }).get();
-        } catch (Exception ignored) {}
-    }
-
+    /** Recompute a user's totals with one aggregate over the ledger and re-project them. */
     public void recomputeAggregates(String uid) {
         if (uid == null || uid.isBlank()) return;
         try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return;
-        } catch (IllegalStateException ignored) { return; }
-        try {
-            Firestore db = FirestoreClient.getFirestore();
-            var awards = db.collection("users").document(uid).collection("awards").get().get();
-            long xpSum = 0L;
-            long badges = 0L;
-            for (var d : awards.getDocuments()) {
-                Object oxp = d.get("xp");
-                if (oxp instanceof Number n) xpSum += n.longValue();
-                badges++;
-            }
-            var userRef = db.collection("users").document(uid);
-            Map<String, Object> data = new HashMap<>();
-            data.put("xp", xpSum);
-            data.put("totalXp", xpSum);
-            data.put("badgesCount", badges);
-            db.runTransaction(tx -> { tx.set(userRef, data, com.google.cloud.firestore.SetOptions.merge()); return null; }).get();
+            AwardLedgerService.Totals totals = awardLedgerService.totalsFor(uid);
+            globalRankingService.setXp(uid, totals.totalXp());
+            awardLedgerService.projectTotals(uid, totals);
+            badgeRuleEngine.invalidate(uid);
         } catch (Exception ignored) {}
     }
+
     public void recordSubmission(String uid, int totalCorrect, int totalQuestions) {
         if (uid == null || uid.isBlank()) return;
+        if (!firebase.ready()) return;
         try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return;
-        } catch (IllegalStateException ignored) { return; }
-        try {
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             DocumentReference userRef = db.collection("users").document(uid);
             Map<String, Object> inc = new HashMap<>();
             // increment counters (attempt-based)
@@ -260,11 +100,9 @@ public class UserStatsService {
      */
     public String resolveUidByName(String displayName) {
         if (displayName == null || displayName.isBlank()) return null;
+        if (!firebase.ready()) return null;
         try {
-            if (FirebaseApp.getApps() == null || FirebaseApp.getApps().isEmpty()) return null;
-        } catch (IllegalStateException ignored) { return null; }
-        try {
-            Firestore db = FirestoreClient.getFirestore();
+            Firestore db = firebase.firestore();
             String target = displayName.trim().toLowerCase();
             Query q = db.collection("users").whereGreaterThanOrEqualTo("name", displayName)
                     .whereLessThan("name", displayName + "\uf8ff");
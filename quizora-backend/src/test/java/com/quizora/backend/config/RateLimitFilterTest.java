@@ -0,0 +1,115 @@
+package com.quizora.backend.config;
+
+import com.quizora.backend.service.ClusterRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    private static final long INTERVAL = 100;
+    private static final long BURST = INTERVAL * 4; // five tokens
+
+    @Test
+    void bucketAdmitsItsBurstThenOnePerInterval() {
+        RateLimitFilter.Bucket bucket = new RateLimitFilter.Bucket();
+        long now = 1_000_000;
+        for (int i = 0; i < 5; i++) assertEquals(0, bucket.tryAcquire(now, INTERVAL, BURST), "token " + i);
+        assertEquals(INTERVAL, bucket.tryAcquire(now, INTERVAL, BURST));
+        assertEquals(INTERVAL / 2, bucket.tryAcquire(now + INTERVAL / 2, INTERVAL, BURST));
+        assertEquals(0, bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST));
+        assertEquals(INTERVAL, bucket.tryAcquire(now + INTERVAL, INTERVAL, BURST));
+    }
+
+    @Test
+    void bucketRefillsAndGoesIdle() {
+        RateLimitFilter.Bucket bucket = new RateLimitFilter.Bucket();
+        long now = 1_000_000;
+        for (int i = 0; i < 5; i++) bucket.tryAcquire(now, INTERVAL, BURST);
+        assertFalse(bucket.idle(now));
+        long refilled = now + 5 * INTERVAL;
+        assertTrue(bucket.idle(refilled));
+        for (int i = 0; i < 5; i++) assertEquals(0, bucket.tryAcquire(refilled, INTERVAL, BURST));
+        assertTrue(bucket.tryAcquire(refilled, INTERVAL, BURST) > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws Exception {
+        RateLimitFilter.Bucket bucket = new RateLimitFilter.Bucket();
+        long now = 1_000_000;
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> calls = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                calls.add(pool.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < 1000; i++) {
+                        if (bucket.tryAcquire(now, INTERVAL, BURST) == 0) admitted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> f : calls) f.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(5, admitted.get());
+    }
+
+    @Test
+    void anonymousPlayersBehindOneAddressGetTheirOwnBuckets() throws Exception {
+        RateLimitFilter filter = filter(3);
+        for (int i = 0; i < 3; i++) assertEquals(200, join(filter, "alice", null).getStatus());
+        MockHttpServletResponse limited = join(filter, "alice", null);
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader("Retry-After"));
+        assertEquals(200, join(filter, "bob", null).getStatus());
+    }
+
+    @Test
+    void signedInClientsAreLimitedByUid() throws Exception {
+        RateLimitFilter filter = filter(3);
+        for (int i = 0; i < 3; i++) assertEquals(200, join(filter, "name-" + i, "uid-1").getStatus());
+        assertEquals(429, join(filter, "another-name", "uid-1").getStatus());
+        assertEquals(200, join(filter, "another-name", "uid-2").getStatus());
+    }
+
+    @Test
+    void readsAreNotLimited() throws Exception {
+        RateLimitFilter filter = filter(1);
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/quizzes/ROOM01/results");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private static RateLimitFilter filter(int clientBurst) {
+        return new RateLimitFilter(mock(ClusterRing.class), true, false, 1, clientBurst, 100, 1000, 100, 1000, 8);
+    }
+
+    private static MockHttpServletResponse join(RateLimitFilter filter, String name, String uid) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/quizzes/join");
+        request.setRemoteAddr("10.1.2.3");
+        request.setContentType("application/json");
+        request.setContent(("{\"quizCode\":\"ROOM01\",\"name\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8));
+        if (uid != null) request.setAttribute("firebaseUid", uid);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,63 @@
+package com.quizora.backend.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ReadYourWritesFilterTest {
+
+    // Replica lag starts at max-lag until the first poll, so the window here is 60s plus margin
+    private final ReadYourWritesFilter filter =
+            new ReadYourWritesFilter(new ReplicaRoutingDataSource(mock(DataSource.class), List.of(), 60_000), 0, 100, false);
+
+    @Test
+    void signedInSubmitPinsTheFollowingPublicRead() throws Exception {
+        MockHttpServletRequest submit = request("POST", "/api/quizzes/submit", "10.0.0.7");
+        submit.setAttribute("firebaseUid", "player-uid");
+        filter.doFilter(submit, new MockHttpServletResponse(), (req, res) -> { });
+
+        // Results are public: no uid on the read
+        assertTrue(readPinned(request("GET", "/api/quizzes/ABC123/results", "10.0.0.7")));
+    }
+
+    @Test
+    void signedInReadFromAnotherAddressMatchesOnUid() throws Exception {
+        MockHttpServletRequest submit = request("POST", "/api/quizzes/submit", "10.0.0.7");
+        submit.setAttribute("firebaseUid", "player-uid");
+        filter.doFilter(submit, new MockHttpServletResponse(), (req, res) -> { });
+
+        MockHttpServletRequest read = request("GET", "/api/quizzes/user-stats/player-uid", "10.0.0.8");
+        read.setAttribute("firebaseUid", "player-uid");
+        assertTrue(readPinned(read));
+    }
+
+    @Test
+    void otherClientsAndFailedWritesStayOnReplicas() throws Exception {
+        filter.doFilter(request("POST", "/api/quizzes/submit", "10.0.0.9"), new MockHttpServletResponse(),
+                (req, res) -> ((MockHttpServletResponse) res).setStatus(409));
+
+        assertFalse(readPinned(request("GET", "/api/quizzes/ABC123/results", "10.0.0.9")));
+        assertFalse(readPinned(request("GET", "/api/quizzes/ABC123/results", "10.0.0.10")));
+    }
+
+    private boolean readPinned(MockHttpServletRequest read) throws Exception {
+        boolean[] pinned = new boolean[1];
+        FilterChain chain = (req, res) -> pinned[0] = ReplicaRoutingDataSource.pinnedToPrimary();
+        filter.doFilter(read, new MockHttpServletResponse(), chain);
+        return pinned[0];
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package com.quizora.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routing across two Postgres instances, told apart by database name. The second instance is not
+ * in recovery, so it reports zero lag and serves as the replica.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingDataSourceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16-alpine").withDatabaseName("primary_db");
+
+    @Container
+    static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine").withDatabaseName("replica_db");
+
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        route(REPLICA.getJdbcUrl(), 30_000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable c : closeables) c.close();
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        assertEquals("replica_db", readOnly.execute(status -> database()));
+    }
+
+    @Test
+    void readWriteTransactionGoesToPrimary() {
+        assertEquals("primary_db", readWrite.execute(status -> database()));
+    }
+
+    @Test
+    void writeAfterReadOnlyTransactionOnSameThreadGoesToPrimary() {
+        // What a join does: resolve the quiz code read-only, then write the participant
+        readOnly.execute(status -> database());
+        assertEquals("primary_db", readWrite.execute(status -> database()));
+    }
+
+    @Test
+    void pinnedThreadReadsFromPrimary() {
+        String[] db = new String[1];
+        ReplicaRoutingDataSource.onPrimary(() -> db[0] = readOnly.execute(status -> database()));
+        assertEquals("primary_db", db[0]);
+        assertEquals("replica_db", readOnly.execute(status -> database()));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        route("jdbc:postgresql://127.0.0.1:1/replica_db", 250);
+        assertEquals("primary_db", readOnly.execute(status -> database()));
+    }
+
+    private void route(String replicaUrl, long replicaConnectionTimeoutMillis) {
+        HikariDataSource primary = pool(PRIMARY.getJdbcUrl());
+        HikariDataSource replica = pool(replicaUrl);
+        replica.setReadOnly(true);
+        replica.setInitializationFailTimeout(-1);
+        replica.setConnectionTimeout(replicaConnectionTimeoutMillis);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), 5000);
+        routing.afterPropertiesSet();
+        routing.refreshLag();
+        closeables.add(routing);
+        closeables.add(primary);
+
+        DataSource ds = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(ds);
+        jdbc = new JdbcTemplate(ds);
+        readWrite = new TransactionTemplate(tm);
+        readOnly = new TransactionTemplate(tm);
+        readOnly.setReadOnly(true);
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setJdbcUrl(url);
+        ds.setUsername(PRIMARY.getUsername());
+        ds.setPassword(PRIMARY.getPassword());
+        ds.setMaximumPoolSize(2);
+        return ds;
+    }
+
+    private String database() {
+        return jdbc.queryForObject("select current_database()", String.class);
+    }
+}
@@ -0,0 +1,27 @@
+package com.quizora.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReplicaRoutingEnvironmentTest {
+
+    @Test
+    void replicasTurnOffOpenInView() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.datasource.replicas.enabled", "true")
+                .withProperty("spring.jpa.open-in-view", "true");
+        new ReplicaRoutingEnvironment().postProcessEnvironment(env, new SpringApplication());
+        assertEquals("false", env.getProperty("spring.jpa.open-in-view"));
+    }
+
+    @Test
+    void withoutReplicasOpenInViewIsLeftAlone() {
+        MockEnvironment env = new MockEnvironment().withProperty("app.datasource.replicas.enabled", "false");
+        new ReplicaRoutingEnvironment().postProcessEnvironment(env, new SpringApplication());
+        assertNull(env.getProperty("spring.jpa.open-in-view"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.quizora.backend.controller;
+
+import com.quizora.backend.model.Participant;
+import com.quizora.backend.model.Question;
+import com.quizora.backend.model.Quiz;
+import com.quizora.backend.model.Submission;
+import com.quizora.backend.repository.ParticipantRepository;
+import com.quizora.backend.repository.QuizRepository;
+import com.quizora.backend.repository.SubmissionRepository;
+import com.quizora.backend.service.QuizCodeCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements per public read endpoint, counted with Hibernate {@link Statistics}. Each endpoint
+ * must render from one fetch-planned query or projection, whatever the number of questions,
+ * participants and submissions, so a lazy load creeping back into serialization fails here.
+ */
+@SpringBootTest(properties = {
+        "app.firebase.enabled=false",
+        "app.archive.enabled=false",
+        "app.ranking.seed-from-firestore=false",
+        "app.ranking.snapshot-path=target/test-data/global-ranking.bin",
+        "app.standings.snapshot-path=target/test-data/standings.bin",
+        "app.archive.directory=target/test-data/archive",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class QuizControllerStatementCountTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    private static final int QUESTIONS = 5;
+    private static final int PLAYERS = 4;
+
+    @Autowired private MockMvc mvc;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private QuizRepository quizRepository;
+    @Autowired private ParticipantRepository participantRepository;
+    @Autowired private SubmissionRepository submissionRepository;
+    @Autowired private QuizCodeCache quizCodeCache;
+
+    private Statistics statistics;
+    private Quiz quiz;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Quiz q = new Quiz();
+        q.setTitle("Statement count");
+        q.setQuizCode("SC" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        q.setCreatorUid("creator-" + q.getQuizCode());
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = new Question();
+            question.setQuestionText("Question " + i);
+            question.setOptionA("a");
+            question.setOptionB("b");
+            question.setOptionC("c");
+            question.setOptionD("d");
+            question.setCorrectAnswer("A");
+            question.setMarks(1);
+            question.setTimer(10);
+            q.addQuestion(question);
+        }
+        quiz = quizRepository.save(q);
+        for (int i = 0; i < PLAYERS; i++) {
+            Participant p = new Participant();
+            p.setQuiz(quiz);
+            p.setName("player-" + i);
+            p = participantRepository.save(p);
+            // Two attempts each, so the latest-per-participant pick has something to discard
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Submission s = new Submission();
+                s.setQuiz(quiz);
+                s.setParticipant(p);
+                s.setTotalQuestions(QUESTIONS);
+                s.setTotalCorrect(i + attempt);
+                s.setTotalScore(i + attempt);
+                s.setDurationSeconds(30);
+                s.setSubmittedAt(Instant.now().plusSeconds(attempt));
+                submissionRepository.save(s);
+            }
+        }
+        // The code -> id lookup is cached after first use; count only what the endpoint itself reads
+        quizCodeCache.resolve(quiz.getQuizCode());
+    }
+
+    @Test
+    void quizByCodeIsOneStatement() throws Exception {
+        assertEquals(1, statementsFor(get("/api/quizzes/code/{code}", quiz.getQuizCode())));
+    }
+
+    @Test
+    void allQuizzesIsOneStatement() throws Exception {
+        assertEquals(1, statementsFor(get("/api/quizzes/all")));
+    }
+
+    @Test
+    void participantsIsOneStatement() throws Exception {
+        assertEquals(1, statementsFor(get("/api/quizzes/{code}/participants", quiz.getQuizCode())));
+    }
+
+    @Test
+    void resultsIsOneStatement() throws Exception {
+        assertEquals(1, statementsFor(get("/api/quizzes/{code}/results", quiz.getQuizCode())));
+    }
+
+    @Test
+    void createdQuizzesIsOneStatement() throws Exception {
+        assertEquals(1, statementsFor(get("/api/quizzes/users/{uid}/quizzes", quiz.getCreatorUid())));
+    }
+
+    private long statementsFor(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
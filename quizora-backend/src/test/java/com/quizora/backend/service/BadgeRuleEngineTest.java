@@ -0,0 +1,59 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.AwardLedgerEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BadgeRuleEngineTest {
+
+    private final AwardLedgerService ledger = mock(AwardLedgerService.class);
+    private final BadgeRuleEngine engine = new BadgeRuleEngine(ledger, mock(CacheInvalidationBus.class), 100, 120);
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void localAwardsAreCountedWithoutRereadingTheLedger() {
+        when(ledger.totalsBefore(eq("u1"), any(Instant.class))).thenReturn(new AwardLedgerService.Totals(950, 0, 9, 9));
+        when(ledger.milestoneKindsOf("u1")).thenReturn(Set.of());
+        when(ledger.entriesSince(eq("u1"), any(Instant.class))).thenReturn(List.of());
+
+        // The first award loads the user (the mocked ledger holds nothing past the settled totals);
+        // the second pushes XP past 1000 from the event alone
+        engine.onRecorded(10, quizAward(50));
+        engine.onRecorded(11, quizAward(60));
+
+        verify(ledger, timeout(2000)).record(argThat(a -> AwardLedgerEntry.KIND_XP_MASTER.equals(a.kind())));
+        verify(ledger, times(1)).totalsBefore(eq("u1"), any(Instant.class));
+        verify(ledger, times(1)).entriesSince(eq("u1"), any(Instant.class));
+    }
+
+    @Test
+    void remoteAwardsReadTheLedgerForUsersHeldInMemory() {
+        when(ledger.totalsBefore(eq("u1"), any(Instant.class))).thenReturn(new AwardLedgerService.Totals(0, 0, 0, 0));
+        when(ledger.milestoneKindsOf("u1")).thenReturn(Set.of());
+        when(ledger.entriesSince(eq("u1"), any(Instant.class))).thenReturn(List.of());
+
+        engine.onRecorded(10, quizAward(50));
+        engine.onRemoteChange(CacheInvalidationBus.Change.XP, List.of(new CacheInvalidationBus.Key("u1", null)));
+        // Not held here: loaded on first use instead
+        engine.onRemoteChange(CacheInvalidationBus.Change.XP, List.of(new CacheInvalidationBus.Key("u2", null)));
+
+        verify(ledger, timeout(2000).times(2)).entriesSince(eq("u1"), any(Instant.class));
+        verify(ledger, never()).entriesSince(eq("u2"), any(Instant.class));
+    }
+
+    private static AwardLedgerService.Award quizAward(long xp) {
+        return new AwardLedgerService.Award("u1", "Q" + xp, AwardLedgerEntry.KIND_QUIZ,
+                AwardLedgerEntry.SOURCE_RANK, xp, null, 4, null);
+    }
+}
@@ -0,0 +1,105 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.config.FirebaseClients;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class GlobalRankingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void ranksMatchABruteForceCount() {
+        GlobalRankingService ranking = service(dir.resolve("ranking.bin"));
+        Map<String, Long> model = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String uid = "u" + random.nextInt(500);
+            // Narrow XP range so plenty of users tie
+            if (random.nextInt(4) == 0) {
+                long total = random.nextInt(200);
+                ranking.setXp(uid, total);
+                model.put(uid, total);
+            } else {
+                long delta = random.nextInt(21) - 5;
+                ranking.addXp(uid, delta);
+                if (delta != 0) model.merge(uid, delta, Long::sum);
+            }
+        }
+        assertEquals(model.size(), ranking.size());
+        for (Map.Entry<String, Long> e : model.entrySet()) {
+            long greater = model.values().stream().filter(xp -> xp > e.getValue()).count();
+            GlobalRankingService.RankRow row = ranking.rankOf(e.getKey()).orElseThrow();
+            assertEquals(e.getValue(), row.xp());
+            assertEquals(greater + 1, row.rank(), e.getKey());
+        }
+
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(model.entrySet());
+        sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<GlobalRankingService.RankRow> top = ranking.top(50);
+        assertEquals(50, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(sorted.get(i).getKey(), top.get(i).uid());
+            assertEquals(sorted.get(i).getValue(), top.get(i).xp());
+            assertEquals(ranking.rankOf(top.get(i).uid()).orElseThrow().rank(), top.get(i).rank());
+        }
+    }
+
+    @Test
+    void tiesShareACompetitionRank() {
+        GlobalRankingService ranking = service(dir.resolve("ranking.bin"));
+        ranking.setXp("carol", 300);
+        ranking.setXp("alice", 200);
+        ranking.setXp("bob", 200);
+        ranking.setXp("dave", 100);
+
+        assertEquals(List.of(
+                new GlobalRankingService.RankRow(1, "carol", 300),
+                new GlobalRankingService.RankRow(2, "alice", 200),
+                new GlobalRankingService.RankRow(2, "bob", 200),
+                new GlobalRankingService.RankRow(4, "dave", 100)), ranking.top(10));
+        assertEquals(2, ranking.rankOf("bob").orElseThrow().rank());
+        assertTrue(ranking.rankOf("nobody").isEmpty());
+        assertTrue(ranking.top(0).isEmpty());
+    }
+
+    @Test
+    void movingAUserReordersIt() {
+        GlobalRankingService ranking = service(dir.resolve("ranking.bin"));
+        ranking.setXp("alice", 100);
+        ranking.setXp("bob", 50);
+        ranking.addXp("bob", 60);
+        assertEquals("bob", ranking.top(1).get(0).uid());
+        assertEquals(2, ranking.rankOf("alice").orElseThrow().rank());
+        ranking.setXp("bob", 10);
+        assertEquals(1, ranking.rankOf("alice").orElseThrow().rank());
+        assertEquals(2, ranking.size());
+    }
+
+    @Test
+    void snapshotRoundTrips() {
+        Path path = dir.resolve("nested").resolve("ranking.bin");
+        GlobalRankingService first = service(path);
+        for (int i = 0; i < 100; i++) first.setXp("u" + i, i * 7L);
+        first.flushSnapshot();
+
+        GlobalRankingService second = service(path);
+        second.load();
+        assertEquals(100, second.size());
+        for (int i = 0; i < 100; i++) assertEquals(i * 7L, second.xpOf("u" + i).orElseThrow());
+        assertEquals(first.top(10), second.top(10));
+    }
+
+    private static GlobalRankingService service(Path snapshot) {
+        return new GlobalRankingService(mock(JdbcTemplate.class), mock(FirebaseClients.class), mock(CacheInvalidationBus.class),
+                4, snapshot.toString(), false, 120);
+    }
+}
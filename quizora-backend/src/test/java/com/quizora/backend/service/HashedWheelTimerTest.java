@@ -0,0 +1,85 @@
+package com.quizora.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+
+    // Four slots of 10ms: anything past 40ms has to survive whole wheel rotations
+    private final HashedWheelTimer timer = new HashedWheelTimer("timer-test", 10, TimeUnit.MILLISECONDS, 4);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void firesNoEarlierThanItsDelay() throws Exception {
+        for (long delay : new long[]{0, 25, 150}) {
+            CountDownLatch fired = new CountDownLatch(1);
+            AtomicLong firedAt = new AtomicLong();
+            long start = System.nanoTime();
+            HashedWheelTimer.Timeout t = timer.schedule(() -> {
+                firedAt.set(System.nanoTime());
+                fired.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+            assertTrue(fired.await(2, TimeUnit.SECONDS), "delay " + delay);
+            assertTrue(firedAt.get() - start >= TimeUnit.MILLISECONDS.toNanos(delay), "delay " + delay);
+            assertTrue(t.isExpired());
+            assertFalse(t.cancel());
+        }
+    }
+
+    @Test
+    void cancelledTimeoutNeverRuns() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        HashedWheelTimer.Timeout t = timer.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        assertTrue(t.cancel());
+        assertFalse(t.cancel());
+        assertTrue(t.isCancelled());
+
+        CountDownLatch later = new CountDownLatch(1);
+        timer.schedule(later::countDown, 120, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertEquals(0, timer.pendingCount());
+    }
+
+    @Test
+    void manyTimeoutsAllFireOnce() throws Exception {
+        int n = 5000;
+        CountDownLatch fired = new CountDownLatch(n);
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < n; i++) {
+            timer.schedule(() -> {
+                runs.incrementAndGet();
+                fired.countDown();
+            }, ThreadLocalRandom.current().nextInt(200), TimeUnit.MILLISECONDS);
+        }
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(n, runs.get());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWorker() throws Exception {
+        timer.schedule(() -> { throw new IllegalStateException("boom"); }, 5, TimeUnit.MILLISECONDS);
+        CountDownLatch after = new CountDownLatch(1);
+        timer.schedule(after::countDown, 30, TimeUnit.MILLISECONDS);
+        assertTrue(after.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void stoppedTimerRejectsNewTimeouts() {
+        timer.stop();
+        assertThrows(IllegalStateException.class, () -> timer.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+}
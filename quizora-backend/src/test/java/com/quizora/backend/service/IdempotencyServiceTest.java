@@ -0,0 +1,122 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Submission;
+import com.quizora.backend.model.SubmitReceipt;
+import com.quizora.backend.repository.SubmissionRepository;
+import com.quizora.backend.repository.SubmitReceiptRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private final QuizService quizService = mock(QuizService.class);
+    private final SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+    private final SubmitReceiptRepository receiptRepository = mock(SubmitReceiptRepository.class);
+    private final HashedWheelTimer timer = new HashedWheelTimer("idempotency-test", 100, TimeUnit.MILLISECONDS, 64);
+    private IdempotencyService idempotency;
+
+    @BeforeEach
+    void setUp() {
+        QuizCodeCache quizCodeCache = mock(QuizCodeCache.class);
+        when(quizCodeCache.resolve("ROOM01")).thenReturn(Optional.of(new QuizCodeCache.QuizRef(1L, "ROOM01", 0)));
+        when(receiptRepository.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
+        when(submissionRepository.findWithParticipantById(eq(1L), anyLong()))
+                .thenAnswer(inv -> Optional.of(submission(inv.getArgument(1))));
+        idempotency = new IdempotencyService(quizService, submissionRepository, quizCodeCache, receiptRepository,
+                timer, mock(LeaderElection.class), 100, 600, 5000, 48);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void concurrentRetryWaitsForTheOriginalAndSubmitsOnce() throws Exception {
+        CountDownLatch inSubmit = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(quizService.submitAnswers(eq("ROOM01"), eq("alice"), any(), any(), any())).thenAnswer(inv -> {
+            inSubmit.countDown();
+            release.await();
+            return Optional.of(submission(7L));
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Submission>> original = pool.submit(() -> idempotency.submit("k1", "ROOM01", "alice", answers("A"), null));
+            assertTrue(inSubmit.await(2, TimeUnit.SECONDS));
+            Future<Optional<Submission>> retry = pool.submit(() -> idempotency.submit("k1", "ROOM01", "alice", answers("A"), null));
+            release.countDown();
+            assertEquals(7L, original.get(2, TimeUnit.SECONDS).orElseThrow().getId());
+            assertEquals(7L, retry.get(2, TimeUnit.SECONDS).orElseThrow().getId());
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(quizService, times(1)).submitAnswers(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reusingAKeyForDifferentAnswersIsRejected() {
+        when(quizService.submitAnswers(any(), any(), any(), any(), any())).thenReturn(Optional.of(submission(7L)));
+        idempotency.submit("k1", "ROOM01", "alice", answers("A"), null);
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> idempotency.submit("k1", "ROOM01", "alice", answers("B"), null));
+        assertEquals(422, e.getStatusCode().value());
+    }
+
+    @Test
+    void keysAreScopedToTheParticipant() {
+        when(quizService.submitAnswers(any(), eq("alice"), any(), any(), any())).thenReturn(Optional.of(submission(7L)));
+        when(quizService.submitAnswers(any(), eq("bob"), any(), any(), any())).thenReturn(Optional.of(submission(8L)));
+        assertEquals(7L, idempotency.submit("k1", "ROOM01", "alice", answers("A"), null).orElseThrow().getId());
+        assertEquals(8L, idempotency.submit("k1", "ROOM01", "bob", answers("A"), null).orElseThrow().getId());
+    }
+
+    @Test
+    void persistedReceiptAnswersWithoutSubmitting() {
+        SubmitReceipt receipt = new SubmitReceipt();
+        receipt.setSubmissionId(9L);
+        when(receiptRepository.findByIdempotencyKey(anyString())).thenReturn(Optional.of(receipt));
+        assertEquals(9L, idempotency.submit("k1", "ROOM01", "alice", answers("A"), null).orElseThrow().getId());
+        verifyNoInteractions(quizService);
+    }
+
+    @Test
+    void failedSubmitIsNotRemembered() {
+        when(quizService.submitAnswers(any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(Optional.of(submission(7L)));
+        assertThrows(IllegalStateException.class, () -> idempotency.submit("k1", "ROOM01", "alice", answers("A"), null));
+        assertEquals(7L, idempotency.submit("k1", "ROOM01", "alice", answers("A"), null).orElseThrow().getId());
+    }
+
+    @Test
+    void withoutAKeyEverySubmitRuns() {
+        when(quizService.submitAnswers(any(), any(), any(), any(), isNull())).thenReturn(Optional.of(submission(7L)));
+        idempotency.submit(null, "ROOM01", "alice", answers("A"), null);
+        idempotency.submit(" ", "ROOM01", "alice", answers("A"), null);
+        verify(quizService, times(2)).submitAnswers(any(), any(), any(), any(), isNull());
+    }
+
+    private static List<QuizService.AnswerDTO> answers(String selected) {
+        QuizService.AnswerDTO a = new QuizService.AnswerDTO();
+        a.questionId = 1L;
+        a.selected = selected;
+        return List.of(a);
+    }
+
+    private static Submission submission(Long id) {
+        Submission s = new Submission();
+        s.setId(id);
+        return s;
+    }
+}
@@ -0,0 +1,110 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Question;
+import com.quizora.backend.model.Quiz;
+import com.quizora.backend.repository.ParticipantRepository;
+import com.quizora.backend.repository.QuizRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LiveQuizServiceTest {
+
+    private static final int QUESTIONS = 20;
+    private static final int PLAYERS = 200;
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("live-test", 100, TimeUnit.MILLISECONDS, 64);
+    private final ExecutorService players = Executors.newFixedThreadPool(8);
+    private LiveQuizService live;
+
+    @AfterEach
+    void tearDown() {
+        players.shutdownNow();
+        if (live != null) live.shutdown();
+        timer.stop();
+    }
+
+    @Test
+    void revealCountsExactlyTheAnswersItAccepted() throws Exception {
+        live = service(quiz("LIVE01"));
+        live.start("LIVE01", "host");
+        for (int p = 0; p < PLAYERS; p++) live.playerJoined("LIVE01", "player-" + p);
+
+        for (int q = 0; q < QUESTIONS; q++) {
+            LiveQuizService.QuestionView view = live.next("LIVE01", "host");
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> answers = new ArrayList<>();
+            for (int p = 0; p < PLAYERS; p++) {
+                String name = "player-" + p;
+                answers.add(players.submit(() -> {
+                    go.await();
+                    if (live.answer("LIVE01", name, view.questionId(), "A").accepted()) accepted.incrementAndGet();
+                    return null;
+                }));
+            }
+            go.countDown();
+            // Reveal while answers are still arriving
+            LiveQuizService.RevealView reveal = live.revealNow("LIVE01", "host");
+            for (Future<?> f : answers) f.get(10, TimeUnit.SECONDS);
+
+            assertEquals(accepted.get(), reveal.answered(), "question " + q);
+            assertEquals(reveal.answered(), reveal.counts().values().stream().mapToLong(Long::longValue).sum());
+            assertEquals("closed", live.answer("LIVE01", "player-0", view.questionId(), "A").reason());
+        }
+    }
+
+    @Test
+    void acceptedAnswerIsNotAlsoChargedTheFullWindow() {
+        live = service(quiz("LIVE02"));
+        live.start("LIVE02", "host");
+        live.playerJoined("LIVE02", "fast");
+        live.playerJoined("LIVE02", "idle");
+        LiveQuizService.QuestionView view = live.next("LIVE02", "host");
+        assertTrue(live.answer("LIVE02", "fast", view.questionId(), "A").accepted());
+        assertTrue(live.answer("LIVE02", "idle", view.questionId(), "B").accepted());
+        live.revealNow("LIVE02", "host");
+
+        for (LiveQuizService.StandingRow row : live.end("LIVE02", "host").rows()) {
+            assertTrue(row.responseMillis() < 10_000, row.name() + " " + row.responseMillis());
+        }
+    }
+
+    private LiveQuizService service(Quiz quiz) {
+        QuizRepository quizRepository = mock(QuizRepository.class);
+        when(quizRepository.findByQuizCode(quiz.getQuizCode())).thenReturn(Optional.of(quiz));
+        ClusterRing ring = mock(ClusterRing.class);
+        return new LiveQuizService(quizRepository, mock(ParticipantRepository.class), timer, ring, 20, 750, 10, 120);
+    }
+
+    private static Quiz quiz(String code) {
+        Quiz quiz = new Quiz();
+        quiz.setId(1L);
+        quiz.setQuizCode(code);
+        quiz.setCreatorUid("host");
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question q = new Question();
+            q.setId((long) i + 1);
+            q.setQuestionText("Q" + i);
+            q.setOptionA("a");
+            q.setOptionB("b");
+            q.setOptionC("c");
+            q.setOptionD("d");
+            q.setCorrectAnswer("A");
+            q.setMarks(1);
+            q.setTimer(10);
+            questions.add(q);
+        }
+        quiz.setQuestions(questions);
+        return quiz;
+    }
+}
@@ -0,0 +1,120 @@
+package com.quizora.backend.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Converting populated participants and submissions tables (laid out as Hibernate creates them) to
+ * range partitions on quiz_id, then creating partitions ahead of the newest quiz.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PartitionMaintenanceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final long SPAN = 100;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private PartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(4);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP TABLE IF EXISTS submissions, participants, submissions_legacy, participants_legacy, quizzes CASCADE");
+        jdbc.execute("CREATE TABLE quizzes (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, quiz_code varchar(255) UNIQUE)");
+        jdbc.execute("CREATE TABLE participants (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "quiz_id bigint NOT NULL REFERENCES quizzes, name varchar(255) NOT NULL, joined_at timestamp(6) with time zone NOT NULL, " +
+                "CONSTRAINT uk_quiz_participant_name UNIQUE (quiz_id, name))");
+        jdbc.execute("CREATE TABLE submissions (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "quiz_id bigint NOT NULL REFERENCES quizzes, participant_id bigint REFERENCES participants, " +
+                "total_score integer NOT NULL, submitted_at timestamp(6) with time zone NOT NULL)");
+        jdbc.execute("CREATE INDEX idx_submission_quiz_participant ON submissions (quiz_id, participant_id)");
+        for (long quiz = 1; quiz <= 3; quiz++) {
+            jdbc.update("INSERT INTO quizzes (id, quiz_code) VALUES (?, ?)", quiz, "Q" + quiz);
+            for (int player = 0; player < 3; player++) {
+                Long participant = jdbc.queryForObject("INSERT INTO participants (quiz_id, name, joined_at) VALUES (?, ?, now()) RETURNING id",
+                        Long.class, quiz, "player-" + player);
+                jdbc.update("INSERT INTO submissions (quiz_id, participant_id, total_score, submitted_at) VALUES (?, ?, ?, now())",
+                        quiz, participant, player);
+            }
+        }
+        LeaderElection leader = new LeaderElection(jdbc, new DataSourceProperties(), false, "51554c44", 2000, 10000);
+        leader.start();
+        maintenance = new PartitionMaintenance(jdbc, new DataSourceTransactionManager(dataSource), leader, true, SPAN, 2, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void convertsInPlaceAndCreatesPartitionsAhead() {
+        // Legacy partition below 100, then two empty blocks past the newest quiz, for each table
+        assertEquals(4, maintenance.maintain());
+        for (String table : List.of("participants", "submissions")) {
+            assertEquals("p", jdbc.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table));
+            assertEquals(List.of(table + "_legacy", table + "_q100", table + "_q200"), partitions(table));
+        }
+        assertEquals(9, count("participants"));
+        assertEquals(9, count("submissions"));
+        assertEquals(0, maintenance.maintain());
+    }
+
+    @Test
+    void newRowsContinueIdsAndLandInTheirQuizPartition() {
+        maintenance.maintain();
+        long maxParticipant = jdbc.queryForObject("SELECT max(id) FROM participants", Long.class);
+        jdbc.update("INSERT INTO quizzes (id, quiz_code) VALUES (150, 'Q150')");
+        Long participant = jdbc.queryForObject("INSERT INTO participants (quiz_id, name, joined_at) VALUES (150, 'late', now()) RETURNING id", Long.class);
+        jdbc.update("INSERT INTO submissions (quiz_id, participant_id, total_score, submitted_at) VALUES (150, ?, 1, now())", participant);
+
+        assertTrue(participant > maxParticipant);
+        assertEquals("participants_q100", jdbc.queryForObject("SELECT tableoid::regclass::text FROM participants WHERE id = ?", String.class, participant));
+        assertEquals("submissions_q100", jdbc.queryForObject("SELECT tableoid::regclass::text FROM submissions WHERE participant_id = ?", String.class, participant));
+        assertEquals("participants_legacy", jdbc.queryForObject("SELECT tableoid::regclass::text FROM participants WHERE quiz_id = 1 LIMIT 1", String.class));
+    }
+
+    @Test
+    void constraintsCarryOverToTheParents() {
+        maintenance.maintain();
+        jdbc.update("INSERT INTO quizzes (id, quiz_code) VALUES (150, 'Q150')");
+        jdbc.update("INSERT INTO participants (quiz_id, name, joined_at) VALUES (150, 'dup', now())");
+        // (quiz_id, name) stays unique in new partitions
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("INSERT INTO participants (quiz_id, name, joined_at) VALUES (150, 'dup', now())"));
+        // The submissions -> participants key now includes quiz_id: a participant of quiz 1 cannot submit to quiz 150
+        Long ofQuizOne = jdbc.queryForObject("SELECT min(id) FROM participants WHERE quiz_id = 1", Long.class);
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("INSERT INTO submissions (quiz_id, participant_id, total_score, submitted_at) VALUES (150, ?, 1, now())", ofQuizOne));
+    }
+
+    private List<String> partitions(String table) {
+        return jdbc.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass(?) ORDER BY c.relname", String.class, table);
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.repository.ParticipantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PresenceServiceTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("presence-test", 50, TimeUnit.MILLISECONDS, 64);
+    private final RoomSessionService sessions = mock(RoomSessionService.class);
+    private final ParticipantRepository participants = mock(ParticipantRepository.class);
+    private final ClusterRing ring = mock(ClusterRing.class);
+    private PresenceService presence;
+
+    @BeforeEach
+    void setUp() {
+        QuizCodeCache quizCodeCache = mock(QuizCodeCache.class);
+        when(quizCodeCache.resolve(anyString())).thenReturn(Optional.empty());
+        when(quizCodeCache.resolve("ROOM01")).thenReturn(Optional.of(new QuizCodeCache.QuizRef(1L, "ROOM01", 0)));
+        when(quizCodeCache.resolve("ROOM02")).thenReturn(Optional.of(new QuizCodeCache.QuizRef(2L, "ROOM02", 0)));
+        when(participants.existsByQuizIdAndName(anyLong(), anyString())).thenReturn(true);
+        when(participants.existsByQuizIdAndName(anyLong(), startsWith("stranger"))).thenReturn(false);
+        presence = new PresenceService(quizCodeCache, sessions, participants, timer, ring, 5, 100, 3, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        presence.shutdown();
+        timer.stop();
+    }
+
+    @Test
+    void onlyNamesThatJoinedAreAccepted() {
+        assertEquals(404, assertThrows(ResponseStatusException.class, () -> presence.heartbeat("NOPE01", "alice")).getStatusCode().value());
+        assertEquals(409, assertThrows(ResponseStatusException.class, () -> presence.heartbeat("ROOM01", "stranger")).getStatusCode().value());
+        assertEquals(1, presence.heartbeat("ROOM01", "alice"));
+
+        // An open attempt session counts as joined before the participant row is visible
+        when(sessions.openSince("ROOM01", "stranger-with-session")).thenReturn(Instant.now());
+        assertEquals(2, presence.heartbeat("ROOM01", "stranger-with-session"));
+    }
+
+    @Test
+    void membersAreCheckedOnceNotOnEveryHeartbeat() {
+        for (int i = 0; i < 5; i++) presence.heartbeat("ROOM01", "alice");
+        verify(participants, times(1)).existsByQuizIdAndName(1L, "alice");
+    }
+
+    @Test
+    void roomsAreCappedAndListNamesInOrder() {
+        presence.heartbeat("ROOM01", "carol");
+        presence.heartbeat("ROOM01", "alice");
+        presence.heartbeat("ROOM01", "bob");
+        assertEquals(409, assertThrows(ResponseStatusException.class, () -> presence.heartbeat("ROOM01", "dave")).getStatusCode().value());
+        assertFalse(presence.touch("ROOM01", "dave"));
+        assertTrue(presence.touch("ROOM01", "bob"));
+
+        assertEquals(new PresenceService.PresenceView("ROOM01", 3, List.of("alice", "bob")), presence.view("ROOM01"));
+        assertEquals(new PresenceService.PresenceView("ROOM09", 0, List.of()), presence.view("ROOM09"));
+    }
+
+    @Test
+    void leaveRemovesTheMemberAndDropsEmptyRooms() {
+        presence.heartbeat("ROOM01", "alice");
+        presence.heartbeat("ROOM02", "bob");
+        presence.leave("ROOM01", "alice");
+        presence.leave("ROOM01", "nobody-online");
+        assertEquals(0, presence.online("ROOM01"));
+        assertEquals(1, presence.stats().get("rooms"));
+        assertEquals(1, presence.stats().get("online"));
+    }
+
+    @Test
+    void silentMembersExpireAndHeartbeatsKeepOthersOnline() throws Exception {
+        presence.touch("ROOM01", "quiet");
+        presence.touch("ROOM01", "chatty");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(8);
+        Thread.sleep(3000);
+        presence.touch("ROOM01", "chatty");
+        while (presence.view("ROOM01").names().contains("quiet") && System.nanoTime() < deadline) Thread.sleep(100);
+
+        assertEquals(new PresenceService.PresenceView("ROOM01", 1, List.of("chatty")), presence.view("ROOM01"));
+    }
+
+    @Test
+    void roomsThatMovedAwayAreDropped() {
+        presence.heartbeat("ROOM01", "alice");
+        presence.heartbeat("ROOM02", "bob");
+        when(ring.isLocal("ROOM01")).thenReturn(true);
+        when(ring.isLocal("ROOM02")).thenReturn(false);
+        presence.onRingChanged();
+        assertEquals(1, presence.online("ROOM01"));
+        assertEquals(0, presence.online("ROOM02"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Quiz;
+import com.quizora.backend.repository.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class QuizSearchIndexTest {
+
+    private QuizSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new QuizSearchIndex(mock(QuizRepository.class), mock(CacheInvalidationBus.class), 100, 200, 200, 3);
+        add(1L, "PHO001", "Photosynthesis basics", "How plants turn light into sugar", "EASY");
+        add(2L, "PHO002", "Photo editing", "Cropping and exposure for beginners", "MEDIUM");
+        add(3L, "VOL001", "Volcanoes of the world", "Magma, ash and plate tectonics", "HARD");
+        add(4L, "CAT001", "Cat breeds", "From Siamese to Maine Coon", "EASY");
+        add(5L, "CAF001", "Café culture", "Espresso, crème and croissants", "MEDIUM");
+    }
+
+    @Test
+    void tokenizeFoldsCaseAndAccents() {
+        assertEquals(List.of("cafe", "creme", "brulee", "101"), QuizSearchIndex.tokenize("Café CRÈME-brûlée, 101!"));
+        assertTrue(QuizSearchIndex.tokenize("  ").isEmpty());
+        assertTrue(QuizSearchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsAndGivesUpPastTheLimit() {
+        assertEquals(0, QuizSearchIndex.editDistance("volcano", "volcano", 2));
+        assertEquals(1, QuizSearchIndex.editDistance("volcnao", "volcano", 2));
+        assertEquals(1, QuizSearchIndex.editDistance("volcanoe", "volcano", 2));
+        assertEquals(3, QuizSearchIndex.editDistance("kitten", "sitting", 3));
+        assertEquals(2, QuizSearchIndex.editDistance("kitten", "sitting", 1));
+    }
+
+    @Test
+    void exactMatchesOutrankPrefixMatches() {
+        assertEquals(List.of(2L, 1L), ids(index.search("photo", null, 10)));
+        assertEquals(List.of(1L), ids(index.search("photosynth", null, 10)));
+    }
+
+    @Test
+    void typosAreToleratedForLongerWords() {
+        assertEquals(List.of(1L), ids(index.search("photosyntesis", null, 10)));   // one edit
+        assertEquals(List.of(1L), ids(index.search("photosnythessi", null, 10))); // two edits from eight letters
+        assertEquals(List.of(3L), ids(index.search("volcanos", null, 10)));
+        assertEquals(List.of(3L), ids(index.search("tectnoics", null, 10)));
+        // Typos are only looked for among terms with the same first letter
+        assertTrue(index.search("fotosynthesis", null, 10).isEmpty());
+        // Short words must match exactly or as a prefix
+        assertTrue(index.search("cst", null, 10).isEmpty());
+        assertEquals(List.of(4L), ids(index.search("cat", null, 10)));
+    }
+
+    @Test
+    void codesAndTitlesOutweighDescriptions() {
+        add(6L, "SUG001", "Kitchen chemistry", "Sugar, salt and baking soda", "EASY");
+        add(7L, "SUG002", "Sugar rush", "Candy through the ages", "EASY");
+        assertEquals(List.of(7L, 6L, 1L), ids(index.search("sugar", null, 10)));
+        assertEquals(3L, index.search("vol001", null, 10).get(0).id());
+    }
+
+    @Test
+    void documentsMatchingMoreWordsRankHigher() {
+        assertEquals(List.of(1L, 2L), ids(index.search("photo plants", null, 10)));
+    }
+
+    @Test
+    void accentsAreIgnoredInQueriesAndDocuments() {
+        assertEquals(List.of(5L), ids(index.search("CAFE creme", null, 10)));
+    }
+
+    @Test
+    void difficultyFilterAndBlankQueries() {
+        assertEquals(List.of(4L, 1L), ids(index.search("", "easy", 10)));
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), ids(index.search(null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("photo", "EASY", 10)));
+        assertEquals(List.of(5L, 4L), ids(index.search(" ", null, 2)));
+    }
+
+    @Test
+    void onlyTheFirstQueryWordsAreUsed() {
+        // max-query-words is 3 here: the fourth distinct word is dropped
+        assertTrue(index.search("zzz yyy xxx volcanoes", null, 10).isEmpty());
+        assertEquals(List.of(3L), ids(index.search("volcanoes volcanoes volcanoes zzz", null, 10)));
+    }
+
+    @Test
+    void reindexingAndRemovingUpdateThePostings() {
+        add(3L, "VOL001", "Glaciers", "Ice sheets and moraines", "HARD");
+        assertTrue(index.search("volcanoes", null, 10).isEmpty());
+        assertEquals(List.of(3L), ids(index.search("glaciers", null, 10)));
+
+        index.remove(List.of(3L));
+        assertTrue(index.search("glaciers", null, 10).isEmpty());
+        assertTrue(index.find("VOL001").isEmpty());
+        assertEquals("Cat breeds", index.find("CAT001").orElseThrow().title());
+    }
+
+    private void add(Long id, String code, String title, String description, String difficulty) {
+        Quiz q = new Quiz();
+        q.setId(id);
+        q.setQuizCode(code);
+        q.setTitle(title);
+        q.setDescription(description);
+        q.setDifficulty(difficulty);
+        q.setCreatedAt(Instant.EPOCH.plusSeconds(id));
+        index.index(q);
+    }
+
+    private static List<Long> ids(List<QuizSearchIndex.Hit> hits) {
+        return hits.stream().map(QuizSearchIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Participant;
+import com.quizora.backend.model.Quiz;
+import com.quizora.backend.model.Submission;
+import com.quizora.backend.repository.ParticipantRepository;
+import com.quizora.backend.repository.SubmissionArchiveRepository;
+import com.quizora.backend.repository.SubmissionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deleting a quiz clears what other services keep for it once the delete commits: the search
+ * index entry and an archived submission segment (row and file).
+ */
+@SpringBootTest(properties = {
+        "app.firebase.enabled=false",
+        "app.archive.enabled=true",
+        "app.archive.inactive-days=1",
+        "app.archive.initial-delay-ms=3600000",
+        "app.archive.directory=target/test-data/delete-archive",
+        "app.ranking.seed-from-firestore=false",
+        "app.ranking.snapshot-path=target/test-data/delete-global-ranking.bin",
+        "app.standings.snapshot-path=target/test-data/delete-standings.bin",
+        "spring.jpa.show-sql=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class QuizServiceDeleteTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired private QuizService quizService;
+    @Autowired private QuizSearchIndex quizSearchIndex;
+    @Autowired private SubmissionArchiveService archiveService;
+    @Autowired private SubmissionArchiveRepository archiveRepository;
+    @Autowired private ParticipantRepository participantRepository;
+    @Autowired private SubmissionRepository submissionRepository;
+
+    @Test
+    void deleteClearsSearchIndexAndArchive() {
+        String title = "Volcanology " + UUID.randomUUID().toString().substring(0, 8);
+        Quiz q = new Quiz();
+        q.setTitle(title);
+        q.setCreatorUid("creator");
+        Quiz quiz = quizService.createQuiz(q);
+        assertTrue(found(title, quiz.getId()));
+
+        // A cold quiz with a superseded attempt is an archive candidate
+        Instant old = Instant.now().minus(10, ChronoUnit.DAYS);
+        Participant p = new Participant();
+        p.setQuiz(quiz);
+        p.setName("player");
+        p.setJoinedAt(old);
+        p = participantRepository.save(p);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Submission s = new Submission();
+            s.setQuiz(quiz);
+            s.setParticipant(p);
+            s.setTotalQuestions(1);
+            s.setTotalCorrect(attempt);
+            s.setTotalScore(attempt);
+            s.setDurationSeconds(5);
+            s.setSubmittedAt(old.plusSeconds(attempt));
+            submissionRepository.save(s);
+        }
+        assertTrue(archiveService.archiveInactive() >= 1);
+        assertTrue(archiveService.isArchived(quiz.getId()));
+        String segment = archiveRepository.findById(quiz.getId()).orElseThrow().getSegmentPath();
+        assertTrue(Files.exists(Paths.get(segment)));
+
+        assertEquals(1, quizService.deleteQuizzes(List.of(quiz.getId())));
+
+        assertFalse(found(title, quiz.getId()));
+        assertFalse(archiveService.isArchived(quiz.getId()));
+        assertTrue(archiveRepository.findById(quiz.getId()).isEmpty());
+        assertFalse(Files.exists(Paths.get(segment)));
+    }
+
+    private boolean found(String title, Long quizId) {
+        return quizSearchIndex.search(title, null, 10).stream().anyMatch(h -> quizId.equals(h.id()));
+    }
+}
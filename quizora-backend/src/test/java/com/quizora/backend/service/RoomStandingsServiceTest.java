@@ -0,0 +1,126 @@
+package com.quizora.backend.service;
+
+import com.quizora.backend.model.Participant;
+import com.quizora.backend.model.Submission;
+import com.quizora.backend.repository.SubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RoomStandingsServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private RoomStandingsService standings;
+    private Instant clock = Instant.parse("2026-01-01T10:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+        when(submissionRepository.findLatestResultViewsByQuizId(1L)).thenReturn(List.of());
+        QuizCodeCache quizCodeCache = mock(QuizCodeCache.class);
+        when(quizCodeCache.resolve("ROOM01")).thenReturn(Optional.of(new QuizCodeCache.QuizRef(1L, "ROOM01", 0)));
+        standings = new RoomStandingsService(submissionRepository, quizCodeCache, mock(CacheInvalidationBus.class),
+                mock(ClusterRing.class), 16, 30, dir.resolve("standings.bin").toString(), 60);
+        assertTrue(standings.standings("ROOM01").isEmpty());
+    }
+
+    @Test
+    void ranksByScoreThenDurationAndTiesShareARank() {
+        submit("alice", 5, 30);
+        submit("bob", 5, 20);
+        submit("carol", 5, 30);
+        submit("dave", 7, 90);
+
+        assertEquals(List.of(
+                new RoomStandingsService.Row("dave", 7, 90, 1),
+                new RoomStandingsService.Row("bob", 5, 20, 2),
+                new RoomStandingsService.Row("alice", 5, 30, 3),
+                new RoomStandingsService.Row("carol", 5, 30, 3)), standings.standings("ROOM01"));
+    }
+
+    @Test
+    void latestAttemptWinsAndOlderOnesAreIgnored() {
+        submit("alice", 5, 30);
+        Instant first = clock;
+        submit("alice", 2, 10);
+        standings.submitted("ROOM01", submission("alice", 9, 5, first.minusSeconds(60)));
+
+        assertEquals(List.of(new RoomStandingsService.Row("alice", 2, 10, 1)), standings.standings("ROOM01"));
+    }
+
+    @Test
+    void deltaCarriesOnlyTheRowsThatMoved() {
+        for (int i = 0; i < 10; i++) submit("p" + i, 100 - i, 10);
+        long version = standings.since("ROOM01", 0).version();
+
+        // p9 climbs from 10th to 8th: p7 and p8 drop a place, the rest are untouched
+        submit("p9", 93, 5);
+        RoomStandingsService.Delta delta = standings.since("ROOM01", version);
+        assertFalse(delta.full());
+        assertEquals(List.of(
+                new RoomStandingsService.Row("p9", 93, 5, 8),
+                new RoomStandingsService.Row("p7", 93, 10, 9),
+                new RoomStandingsService.Row("p8", 92, 10, 10)), delta.rows());
+        assertEquals(new RoomStandingsService.Delta(delta.version(), false, List.of()), standings.since("ROOM01", delta.version()));
+    }
+
+    @Test
+    void versionsOlderThanTheHistoryGetAFullSnapshot() {
+        for (int i = 0; i < 40; i++) submit("p" + i, i, 10);
+        long version = standings.since("ROOM01", 0).version();
+        for (int i = 0; i < 20; i++) submit("p" + i, i + 1, 9);
+
+        RoomStandingsService.Delta delta = standings.since("ROOM01", version);
+        assertTrue(delta.full());
+        assertEquals(standings.standings("ROOM01"), delta.rows());
+    }
+
+    @Test
+    void applyingEveryDeltaReproducesTheFullBoard() {
+        Random random = new Random(7);
+        Map<String, RoomStandingsService.Row> client = new HashMap<>();
+        long version = 0;
+        for (int i = 0; i < 2000; i++) {
+            submit("p" + random.nextInt(60), random.nextInt(20), random.nextInt(5));
+            if (random.nextInt(3) > 0) continue; // the client polls every few submits
+            RoomStandingsService.Delta delta = standings.since("ROOM01", version);
+            if (delta.full()) client.clear();
+            for (RoomStandingsService.Row r : delta.rows()) client.put(r.name(), r);
+            version = delta.version();
+
+            List<RoomStandingsService.Row> full = standings.standings("ROOM01");
+            assertEquals(new HashSet<>(full), new HashSet<>(client.values()), "after submit " + i);
+            for (int k = 0; k < full.size(); k++) {
+                RoomStandingsService.Row r = full.get(k);
+                long better = full.stream().filter(o -> o.score() > r.score()
+                        || (o.score() == r.score() && o.durationSeconds() < r.durationSeconds())).count();
+                assertEquals(better + 1, r.rank(), r.name());
+            }
+        }
+    }
+
+    private void submit(String name, int score, int durationSeconds) {
+        clock = clock.plusSeconds(1);
+        standings.submitted("ROOM01", submission(name, score, durationSeconds, clock));
+    }
+
+    private static Submission submission(String name, int score, int durationSeconds, Instant at) {
+        Participant p = new Participant();
+        p.setName(name);
+        Submission s = new Submission();
+        s.setParticipant(p);
+        s.setTotalScore(score);
+        s.setDurationSeconds(durationSeconds);
+        s.setSubmittedAt(at);
+        return s;
+    }
+}
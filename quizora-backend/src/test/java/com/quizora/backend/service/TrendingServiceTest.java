@@ -0,0 +1,100 @@
+package com.quizora.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrendingServiceTest {
+
+    private final QuizSearchIndex quizSearchIndex = mock(QuizSearchIndex.class);
+
+    @Test
+    void weightsJoinsAndSubmits() {
+        TrendingService trending = service(4, 2048, 5);
+        for (int i = 0; i < 3; i++) trending.recordJoin("AAA111");
+        for (int i = 0; i < 2; i++) trending.recordSubmit("AAA111");
+        trending.recordJoin("BBB222");
+        trending.recordJoin(null);
+        trending.recordJoin(" ");
+
+        assertEquals(List.of(new TrendingService.Trend("AAA111", 7), new TrendingService.Trend("BBB222", 1)), trending.trending(10));
+        assertEquals(List.of(new TrendingService.Trend("AAA111", 7)), trending.trending(1));
+        assertTrue(trending.isHot("AAA111"));
+        assertFalse(trending.isHot("CCC333"));
+    }
+
+    @Test
+    void heavyHittersSurfaceAndAreNeverUnderestimated() {
+        // A narrow sketch and thousands of one-off codes force plenty of collisions
+        TrendingService trending = service(4, 64, 5);
+        Map<String, Long> actual = new HashMap<>();
+        Random random = new Random(3);
+        List<String> events = new ArrayList<>();
+        for (int hot = 0; hot < 5; hot++) {
+            for (int i = 0; i < 500 + hot * 100; i++) events.add("HOT" + hot);
+        }
+        for (int i = 0; i < 3000; i++) events.add("COLD" + i);
+        Collections.shuffle(events, random);
+        for (String code : events) {
+            trending.recordJoin(code);
+            actual.merge(code, 1L, Long::sum);
+        }
+        // Listed scores are refreshed periodically; rotating into an empty bucket re-estimates them now
+        trending.rotate();
+
+        List<TrendingService.Trend> top = trending.trending(5);
+        Set<String> codes = new HashSet<>();
+        for (TrendingService.Trend t : top) {
+            codes.add(t.quizCode());
+            assertTrue(t.score() >= actual.get(t.quizCode()), t.quizCode());
+        }
+        assertEquals(Set.of("HOT0", "HOT1", "HOT2", "HOT3", "HOT4"), codes);
+        assertEquals("HOT4", top.get(0).quizCode());
+    }
+
+    @Test
+    void activityAgesOutOfTheWindow() {
+        TrendingService trending = service(3, 2048, 5);
+        trending.recordJoin("OLD001");
+        trending.rotate();
+        trending.recordJoin("NEW001");
+        trending.recordJoin("NEW001");
+        trending.rotate();
+        assertEquals(List.of(new TrendingService.Trend("NEW001", 2), new TrendingService.Trend("OLD001", 1)), trending.trending(10));
+
+        // Third rotation clears the bucket OLD001 was counted in
+        trending.rotate();
+        assertEquals(List.of(new TrendingService.Trend("NEW001", 2)), trending.trending(10));
+        assertFalse(trending.isHot("OLD001"));
+        trending.rotate();
+        assertTrue(trending.trending(10).isEmpty());
+    }
+
+    @Test
+    void trendingQuizzesSkipsQuizzesMissingFromTheCatalogue() {
+        TrendingService trending = service(4, 2048, 5);
+        trending.recordJoin("LIVE01");
+        trending.recordJoin("LIVE01");
+        trending.recordJoin("GONE01");
+        when(quizSearchIndex.find("LIVE01")).thenReturn(Optional.of(
+                new QuizSearchIndex.Hit(1L, "LIVE01", "Rivers", "", "EASY", Instant.EPOCH, 0)));
+        when(quizSearchIndex.find("GONE01")).thenReturn(Optional.empty());
+
+        assertEquals(List.of(new TrendingService.TrendingQuiz(1L, "LIVE01", "Rivers", "EASY", 2)), trending.trendingQuizzes(10));
+    }
+
+    @Test
+    void rotationPeriodSplitsTheWindow() {
+        assertEquals(300_000, TrendingService.rotateMillis(60, 12));
+        assertEquals(1000, TrendingService.rotateMillis(0, 1000));
+        assertEquals(30_000, TrendingService.rotateMillis(1, 1));
+    }
+
+    private TrendingService service(int buckets, int width, int topK) {
+        return new TrendingService(quizSearchIndex, buckets, width, topK, 1, 2);
+    }
+}
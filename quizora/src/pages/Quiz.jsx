@@ -1,4 +1,4 @@
-import { useEffect, useMemo, useState } from 'react'
+import { useEffect, useMemo, useRef, useState } from 'react'
 import { useLocation, useNavigate, useParams } from 'react-router-dom'
 import { motion } from 'framer-motion'
 import Button from '../components/Button'
@@ -17,6 +17,8 @@ export default function Quiz() {
   const [answers, setAnswers] = useState({})
   const [error, setError] = useState('')
   const [elapsed, setElapsed] = useState(0)
+  // One key per attempt: retries of the same submit are answered with the original result
+  const submitKey = useRef(globalThis.crypto?.randomUUID?.() || `${Date.now()}-${Math.random().toString(36).slice(2)}`)
 
   useEffect(() => {
     let t = setInterval(() => setElapsed((e) => e + 1), 1000)
@@ -58,11 +60,15 @@ export default function Quiz() {
         setError('Please sign in to submit your quiz and earn XP/badges.')
         return
       }
-      const displayName = auth.currentUser?.displayName || nameFromState || ''
+      // Submit under the name used at /join so the server-side attempt clock is found
+      let joinedName = nameFromState
+      if (!joinedName) { try { joinedName = localStorage.getItem(`room:${roomCode}`) || '' } catch {} }
+      const displayName = joinedName || auth.currentUser?.displayName || ''
       const payload = Object.entries(answers).map(([questionId, selected]) => ({ questionId: Number(questionId), selected }))
       const res = await apiFetch('/quizzes/submit', {
         method: 'POST',
         auth: true,
+        headers: { 'Idempotency-Key': submitKey.current },
         body: { quizCode: roomCode, name: displayName, durationSeconds: elapsed, answers: payload },
       })
       navigate(`/results/${roomCode}`, { state: { result: res, name: displayName, quizCode: roomCode } })